@@ -1,17 +1,73 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
 
+import Benchmarks.EngineBenchmarks;
+import Benchmarks.ThreadScaling;
+import Engine.BatchAnalysis;
 import Engine.Chessboard;
+import Engine.MagicFinder;
 import Engine.MoveHandler;
+import Engine.TableSnapshot;
+import Engine.Tablebase;
+import Engine.Tablebases;
+import Engine.UCI;
+import Tests.BatchAnalysisTests;
+import Tests.EvaluationTests;
+import Tests.FenTests;
 import Tests.PCMBBTests;
+import Tests.ParallelSearchTests;
+import Tests.PerftTests;
+import Tests.PolyglotBookTests;
+import Tests.StaticExchangeTests;
+import Tests.TablebaseTests;
+import Tests.TimeManagerTests;
+import Tests.TranspositionTableTests;
+import Tests.UCITests;
+import Tests.ZobristTests;
 
 public class App {
-    private static void runTests() {
+    // batch job names, indexed by BatchAnalysis job
+    private static final String[] BATCH_JOBS = new String[] { "perft", "moves", "search" };
+
+    /**
+     * runs every test suite, each reports its checks on standard output
+     * @return  boolean of whether all suites passed
+     */
+    private static boolean runTests() {
+        boolean allPassed = true;
         PCMBBTests.testMagicBitboards();
+        allPassed &= PCMBBTests.testSlidingAttacks(1000);
+        allPassed &= PCMBBTests.testTableSnapshot();
+        allPassed &= PCMBBTests.testSetwiseAttacks(2);
+        allPassed &= PerftTests.testPerftSuite(10000L);
+        allPassed &= ZobristTests.testIncrementalKeys(3);
+        allPassed &= ZobristTests.testHistoryCompaction();
+        allPassed &= TranspositionTableTests.testTranspositionTable();
+        allPassed &= EvaluationTests.testIncrementalEvaluation(3);
+        allPassed &= EvaluationTests.testPawnStructure();
+        allPassed &= EvaluationTests.testPawnHashTable(3);
+        allPassed &= StaticExchangeTests.testStaticExchange();
+        allPassed &= FenTests.testFenRoundTrip(2);
+        allPassed &= FenTests.testInvalidFen();
+        allPassed &= PolyglotBookTests.testPolyglotBook();
+        allPassed &= TablebaseTests.testTablebases(10000);
+        allPassed &= ParallelSearchTests.testStopProtocol(4);
+        allPassed &= TimeManagerTests.testTimeLimits();
+        allPassed &= UCITests.testSearchCommands();
+        allPassed &= BatchAnalysisTests.testOrderedOutput(4);
+        return allPassed;
     }
 
     private static void startGame() {
         Scanner sc = new Scanner(System.in);
         Chessboard chessboard = new Chessboard("");
+        System.out.println(chessboard.printBoard());
         while (chessboard.getGameState()) {
             System.out.println("Please make your move: ");
             String userMoveString = sc.nextLine();
@@ -22,7 +78,71 @@ public class App {
         sc.close();
     }
 
+    /**
+     * batch mode: epd [file] [perft | moves | search] [depth] [threads]
+     * results are written to standard output in input order, throughput to standard error
+     */
+    private static void runBatch(String[] args) throws Exception {
+        int job = (args.length < 3) ? -1 : Arrays.asList(BATCH_JOBS).indexOf(args[2]);
+        if (job < 0) {
+            System.err.println("usage: epd [file] [perft | moves | search] [depth] [threads]");
+            return;
+        }
+        int depth = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+        int threads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        BatchAnalysis batchAnalysis = new BatchAnalysis(job, depth, threads);
+        long startTime = System.nanoTime();
+        long lines;
+        try (BufferedReader input = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+             BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            lines = batchAnalysis.run(input, output);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        long linesPerSecond = (elapsed > 0L) ? (long) (lines * 1e9 / elapsed) : 0L;
+        System.err.println(String.format("%d positions in %.3f ms (%d positions/s, %d threads)", lines, elapsed / 1e6, linesPerSecond, threads));
+    }
+
+    /**
+     * tablebases [directory] [material ... | all]: generates and writes endgame tables, Tablebases.DEFAULT_MATERIALS by default
+     */
+    private static void generateTablebases(String[] args) throws Exception {
+        Tablebases tablebases = new Tablebases((args.length > 1) ? Paths.get(args[1]) : Tablebases.getDefaultPath());
+        String[] materials = (args.length <= 2) ? Tablebases.DEFAULT_MATERIALS
+            : (args[2].equals("all")) ? Tablebases.getAllMaterials() : Arrays.copyOfRange(args, 2, args.length);
+        for (String material : materials) {
+            long startTime = System.nanoTime();
+            Tablebase table = tablebases.generate(material, true);
+            System.out.println(String.format("%-5s %10d positions %8d KB, longest mate %3d plies, %.3f s", table.getName(),
+                table.getEntryCount(), table.getSizeBytes() / 1024, table.getMaxDistance(), (System.nanoTime() - startTime) / 1e9));
+        }
+    }
+
     public static void main(String[] args) throws Exception {
-        startGame();
+        if (args.length > 0 && args[0].equals("uci")) {
+            new UCI(System.in, System.out).run();
+        } else if (args.length > 0 && args[0].equals("test")) {
+            // exits with status 1 when any check fails, so that the suites can gate a build
+            boolean allPassed = runTests();
+            System.out.println((allPassed) ? "all tests passed" : "some tests failed");
+            System.exit((allPassed) ? 0 : 1);
+        } else if (args.length > 0 && args[0].equals("bench")) {
+            EngineBenchmarks.runBenchmarks((args.length > 1) ? args[1] : "");
+        } else if (args.length > 0 && args[0].equals("smp")) {
+            // smp [max threads] [depth]
+            ThreadScaling.run((args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors(),
+                (args.length > 2) ? Integer.parseInt(args[2]) : ThreadScaling.DEFAULT_DEPTH);
+        } else if (args.length > 0 && args[0].equals("magics")) {
+            // magics [seed] [tries per denser square]
+            MagicFinder.findAllMagics((args.length > 1) ? Long.decode(args[1]) : MagicFinder.DEFAULT_SEED,
+                (args.length > 2) ? Long.parseLong(args[2]) : MagicFinder.DEFAULT_DENSER_TRIES);
+        } else if (args.length > 0 && args[0].equals("tables")) {
+            TableSnapshot.write((args.length > 1) ? Paths.get(args[1]) : TableSnapshot.getPath());
+        } else if (args.length > 0 && args[0].equals("tablebases")) {
+            generateTablebases(args);
+        } else if (args.length > 0 && args[0].equals("epd")) {
+            runBatch(args);
+        } else {
+            startGame();
+        }
     }
 }
@@ -0,0 +1,115 @@
+package Benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+public class Benchmark {
+
+    /**
+     * minimal benchmark harness: warm-up iterations, then timed measurement iterations of a fixed duration
+     * every iteration calls the operation repeatedly until its time is up, and reports the mean and standard deviation of
+     * nanoseconds per operation over the measurement iterations, together with bytes allocated per operation
+     *
+     * the value returned by an operation is folded into a sink that is printed, so the JIT cannot remove the work as dead code
+     * allocation is read from the allocated bytes counter of the running thread (HotSpot ThreadMXBean), the same counter
+     * the JMH gc profiler reports as gc.alloc.rate.norm. it reads -1 on JVMs without the counter
+     * every operation is called from the one call site in runIteration, so measure one operation per JVM (see
+     * EngineBenchmarks), otherwise the call site turns megamorphic and the later operations are measured through it
+     */
+    public interface Operation {
+        /**
+         * @return  long of a result of the work done, consumed by the harness
+         */
+        long run();
+    }
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    public static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+    public static final long DEFAULT_ITERATION_MILLIS = 500L;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private long sink;
+
+    public Benchmark() {
+        this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASUREMENT_ITERATIONS, DEFAULT_ITERATION_MILLIS);
+    }
+
+    /**
+     * @param warmupIterations      int of iterations run before measuring, to let the JIT compile the operation
+     * @param measurementIterations int of iterations measured
+     * @param iterationMillis       long of duration of every iteration in milliseconds
+     */
+    public Benchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = Math.max(1, measurementIterations);
+        this.iterationNanos = iterationMillis * 1000000L;
+    }
+
+    /**
+     * runs and prints one benchmark, in the format [name]: [mean] +- [deviation] ns/op, [bytes] B/op
+     * @param name              String of benchmark name
+     * @param operationsPerCall int of operations done by one call of operation, e.g. the size of a batch of inputs
+     * @param operation         Operation to measure
+     * @return                  double of mean nanoseconds per operation
+     */
+    public double measure(String name, int operationsPerCall, Operation operation) {
+        for (int i = 0; i < this.warmupIterations; i++) runIteration(operation);
+        double[] nanosPerOperation = new double[this.measurementIterations];
+        long totalCalls = 0L;
+        long allocatedBefore = getAllocatedBytes();
+        for (int i = 0; i < this.measurementIterations; i++) {
+            long[] iteration = runIteration(operation);
+            nanosPerOperation[i] = (double) iteration[1] / (iteration[0] * operationsPerCall);
+            totalCalls += iteration[0];
+        }
+        long allocated = getAllocatedBytes() - allocatedBefore;
+
+        double mean = 0.0, variance = 0.0;
+        for (double value : nanosPerOperation) mean += value;
+        mean /= this.measurementIterations;
+        for (double value : nanosPerOperation) variance += (value - mean) * (value - mean);
+        double deviation = Math.sqrt(variance / this.measurementIterations);
+        double bytesPerOperation = (allocatedBefore < 0L) ? -1.0 : (double) allocated / (totalCalls * operationsPerCall);
+        System.out.println(String.format("%-32s %12.2f +- %8.2f ns/op %10.1f B/op", name, mean, deviation, bytesPerOperation));
+        return mean;
+    }
+
+    /**
+     * @return  long of consumed results, print it once at the end so that no benchmark is optimised away
+     */
+    public long getSink() { return this.sink; }
+
+    /**
+     * @return  long[] of { calls made, elapsed nanoseconds }
+     */
+    private long[] runIteration(Operation operation) {
+        long calls = 0L, result = 0L;
+        long startTime = System.nanoTime(), elapsed;
+        do {
+            result += operation.run();
+            calls++;
+            elapsed = System.nanoTime() - startTime;
+        } while (elapsed < this.iterationNanos);
+        this.sink += result;
+        return new long[] { calls, elapsed };
+    }
+
+    /**
+     * @return  long of bytes allocated by the current thread so far, -1 if not supported
+     */
+    private static long getAllocatedBytes() {
+        return (THREAD_BEAN == null) ? -1L : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        if (!threadBean.isThreadAllocatedMemorySupported()) return null;
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return threadBean;
+    }
+}
@@ -0,0 +1,240 @@
+package Benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+import Engine.Chessboard;
+import Engine.MoveHandler;
+import Engine.PawnHashTable;
+import Engine.Perft;
+import Engine.Search;
+import Engine.SetwiseAttacks;
+import Engine.SlidingAttacks;
+import Engine.TranspositionTable;
+
+public class EngineBenchmarks {
+
+    /**
+     * benchmarks of the engine hot paths on fixed inputs, so that runs before and after a change are comparable
+     * inputs are generated from a fixed seed or taken from fixed positions, and built before timing starts
+     * run with a fixed heap (e.g. java -Xms1g -Xmx1g -cp bin App bench) and compare ns/op and B/op between runs
+     * the engine benchmarks use the sliding attacks backend chosen with -Dengine.sliders (see SlidingAttacks)
+     *
+     * every benchmark runs in a fresh JVM of its own, started with the JVM options and class path of the calling one (main is
+     * the entry point of the forked JVM). in a shared JVM the profile of one benchmark shapes the code compiled for the next:
+     * the call of Operation.run in Benchmark.runIteration and every call site shared between benchmarks turn polymorphic,
+     * and later benchmarks measure slower than they would alone
+     */
+    public static final String[] POSITIONS = new String[] {
+        Chessboard.DEFAULT_FEN_STRING,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+    };
+
+    private static final int SLIDER_INPUTS = 1024;
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int PAWN_HASH_SEARCH_DEPTH = 7;
+
+    /**
+     * runs every benchmark whose name contains filter, each in a forked JVM, one after another
+     * @param filter    String of benchmark name filter, empty for all
+     */
+    public static void runBenchmarks(String filter) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> jvmOptions = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        String classPath = System.getProperty("java.class.path");
+        for (String name : getNames()) {
+            if (!name.contains(filter)) continue;
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(classPath);
+            command.add(EngineBenchmarks.class.getName());
+            command.add(name);
+            int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exitCode != 0) System.err.println("benchmark " + name + " failed with exit code " + exitCode);
+        }
+    }
+
+    /**
+     * entry point of a forked benchmark JVM
+     * @param args  String[] of { name of the one benchmark to run }
+     */
+    public static void main(String[] args) {
+        if (args.length != 1 || !getNames().contains(args[0])) {
+            System.err.println("unknown benchmark: " + String.join(" ", args));
+            System.exit(1);
+        }
+        Benchmark benchmark = new Benchmark();
+        run(benchmark, name -> name.equals(args[0]));
+        System.out.println("sink: ".concat(Long.toString(benchmark.getSink())));
+    }
+
+    /**
+     * @return  List of names of every benchmark, in running order
+     */
+    public static List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        // a pass that selects nothing only builds the inputs and records the names
+        run(null, name -> !names.add(name));
+        return names;
+    }
+
+    /**
+     * runs every selected benchmark in this JVM
+     * @param benchmark Benchmark harness, only used if a benchmark is selected
+     * @param selected  Predicate of benchmark names to run
+     */
+    private static void run(Benchmark benchmark, Predicate<String> selected) {
+
+        // slider lookups on random squares and occupancies of roughly a third of the board
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] squares = new int[SLIDER_INPUTS];
+        long[] occupancies = new long[SLIDER_INPUTS];
+        for (int i = 0; i < SLIDER_INPUTS; i++) {
+            squares[i] = random.nextInt(64);
+            occupancies[i] = random.nextLong() & random.nextLong();
+        }
+        // every backend side by side. the lambdas below are one call site for all backends, so they are only measured
+        // one per forked JVM (see runBenchmarks), where the call site sees a single backend
+        for (String name : SlidingAttacks.BACKENDS) {
+            SlidingAttacks backend = SlidingAttacks.create(name);
+            if (selected.test(name + " getRookAttacks")) benchmark.measure(name + " getRookAttacks", SLIDER_INPUTS, () -> {
+                long result = 0L;
+                for (int i = 0; i < SLIDER_INPUTS; i++) result ^= backend.getRookAttacks(squares[i], occupancies[i]);
+                return result;
+            });
+            if (selected.test(name + " getBishopAttacks")) benchmark.measure(name + " getBishopAttacks", SLIDER_INPUTS, () -> {
+                long result = 0L;
+                for (int i = 0; i < SLIDER_INPUTS; i++) result ^= backend.getBishopAttacks(squares[i], occupancies[i]);
+                return result;
+            });
+            if (selected.test(name + " getQueenAttacks")) benchmark.measure(name + " getQueenAttacks", SLIDER_INPUTS, () -> {
+                long result = 0L;
+                for (int i = 0; i < SLIDER_INPUTS; i++) result ^= backend.getQueenAttacks(squares[i], occupancies[i]);
+                return result;
+            });
+        }
+        Chessboard[] chessboards = new Chessboard[POSITIONS.length];
+        int[][] legalMoves = new int[POSITIONS.length][];
+        int totalMoves = 0;
+        for (int i = 0; i < POSITIONS.length; i++) {
+            chessboards[i] = new Chessboard(POSITIONS[i]);
+            int[] moves = new int[MoveHandler.MAX_MOVES];
+            int count = MoveHandler.generateAllLegalMoves(chessboards[i], moves);
+            legalMoves[i] = Arrays.copyOf(moves, count);
+            totalMoves += count;
+        }
+        int[] moveBuffer = new int[MoveHandler.MAX_MOVES];
+        if (selected.test("generateLegalMoves")) benchmark.measure("generateLegalMoves", POSITIONS.length, () -> {
+            long result = 0L;
+            for (Chessboard chessboard : chessboards) result += MoveHandler.generateLegalMoves(chessboard, moveBuffer, MoveHandler.GENERATE_ALL, -1L);
+            return result;
+        });
+        if (selected.test("generateAllAttackingSquares")) benchmark.measure("generateAllAttackingSquares", POSITIONS.length, () -> {
+            long result = 0L;
+            for (Chessboard chessboard : chessboards) result ^= MoveHandler.generateAllAttackingSquares(chessboard, true)[0];
+            return result;
+        });
+        if (selected.test("performMove+undoMove")) benchmark.measure("performMove+undoMove", totalMoves, () -> {
+            long result = 0L;
+            for (int i = 0; i < chessboards.length; i++) {
+                for (int move : legalMoves[i]) {
+                    chessboards[i].performMove(move);
+                    result ^= chessboards[i].getZobristKey();
+                    chessboards[i].undoMove();
+                }
+            }
+            return result;
+        });
+
+        // attack maps of both sides of the children of the benchmark positions: per piece lookups against set-wise fills
+        Chessboard[] children = new Chessboard[totalMoves];
+        for (int i = 0, child = 0; i < chessboards.length; i++) {
+            for (int move : legalMoves[i]) {
+                chessboards[i].performMove(move);
+                children[child++] = new Chessboard(chessboards[i]);
+                chessboards[i].undoMove();
+            }
+        }
+        if (selected.test("generateAttackedSquares")) benchmark.measure("generateAttackedSquares", 2 * children.length, () -> {
+            long result = 0L;
+            for (Chessboard chessboard : children) {
+                result ^= chessboard.generateAttackedSquares(true, chessboard.getFullBitboard());
+                result ^= chessboard.generateAttackedSquares(false, chessboard.getFullBitboard());
+            }
+            return result;
+        });
+        if (selected.test("setwise getAttackedSquares")) benchmark.measure("setwise getAttackedSquares", 2 * children.length, () -> {
+            long result = 0L;
+            for (Chessboard chessboard : children) {
+                result ^= SetwiseAttacks.getAttackedSquares(chessboard, true, chessboard.getFullBitboard());
+                result ^= SetwiseAttacks.getAttackedSquares(chessboard, false, chessboard.getFullBitboard());
+            }
+            return result;
+        });
+        SetwiseAttacks.AttackBatch batch = new SetwiseAttacks.AttackBatch(2 * children.length);
+        if (selected.test("setwise AttackBatch")) benchmark.measure("setwise AttackBatch", 2 * children.length, () -> {
+            batch.clear();
+            for (Chessboard chessboard : children) {
+                batch.add(chessboard, true);
+                batch.add(chessboard, false);
+            }
+            batch.compute();
+            long result = 0L;
+            for (int i = 0; i < batch.size(); i++) result ^= batch.getAttacks(i);
+            return result;
+        });
+
+        Chessboard fenBoard = new Chessboard("");
+        if (selected.test("setFromFen")) benchmark.measure("setFromFen", POSITIONS.length, () -> {
+            long result = 0L;
+            for (String fen : POSITIONS) {
+                fenBoard.setFromFen(fen);
+                result ^= fenBoard.getZobristKey();
+            }
+            return result;
+        });
+        StringBuilder builder = new StringBuilder(128);
+        if (selected.test("toFen")) benchmark.measure("toFen", POSITIONS.length, () -> {
+            long result = 0L;
+            for (Chessboard chessboard : chessboards) {
+                builder.setLength(0);
+                result += chessboard.toFen(builder).length();
+            }
+            return result;
+        });
+
+        // perft, one leaf node is one operation
+        if (selected.test("perft start position depth 4")) benchmark.measure("perft start position depth 4", 197281, () -> Perft.perft(chessboards[0], 4));
+        if (selected.test("perft kiwipete depth 3")) benchmark.measure("perft kiwipete depth 3", 97862, () -> Perft.perft(chessboards[1], 3));
+
+        // a statistic rather than a timing: pawn hash hits of a fixed depth search of every position
+        if (selected.test("pawn hash hit rate")) printPawnHashStatistics();
+    }
+
+    /**
+     * searches every benchmark position to PAWN_HASH_SEARCH_DEPTH with a fresh search and prints the probes, hits and hit
+     * rate of its pawn hash table
+     */
+    private static void printPawnHashStatistics() {
+        for (int i = 0; i < POSITIONS.length; i++) {
+            Search search = new Search(new TranspositionTable(16));
+            search.setInfoOutput(null);
+            search.search(new Chessboard(POSITIONS[i]), PAWN_HASH_SEARCH_DEPTH, 0L, 0L);
+            PawnHashTable pawnHashTable = search.getPawnHashTable();
+            System.out.println(String.format("%-32s %12d probes %10d hits %8.1f %%", "pawn hash hit rate position " + i,
+                pawnHashTable.getProbes(), pawnHashTable.getHits(), 100.0 * pawnHashTable.getHitRate()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package Benchmarks;
+
+import Engine.Chessboard;
+import Engine.ParallelSearch;
+import Engine.TranspositionTable;
+
+public class ThreadScaling {
+
+    /**
+     * thread scaling of the Lazy SMP search: searches every position of EngineBenchmarks.POSITIONS to a fixed depth with
+     * 1 to maxThreads threads and prints time to depth, nodes per second and speedup over one thread
+     * the transposition table is cleared before every position, so every thread count starts from the same state
+     * time to depth is what matters for playing strength; nodes per second alone also grows with wasted helper work
+     */
+    public static final int DEFAULT_DEPTH = 10;
+    public static final int HASH_MB = 64;
+
+    /**
+     * @param maxThreads    int of largest thread count measured
+     * @param depth         int of search depth in plies
+     */
+    public static void run(int maxThreads, int depth) {
+        if (maxThreads < 1) throw new IllegalArgumentException("thread count must be at least 1: ".concat(Integer.toString(maxThreads)));
+        TranspositionTable transpositionTable = new TranspositionTable(HASH_MB);
+        Chessboard[] chessboards = new Chessboard[EngineBenchmarks.POSITIONS.length];
+        for (int i = 0; i < chessboards.length; i++) chessboards[i] = new Chessboard(EngineBenchmarks.POSITIONS[i]);
+
+        // one untimed pass so that the JIT has compiled the search before the single thread baseline
+        measure(transpositionTable, chessboards, 1, depth);
+        System.out.println(String.format("%-8s %12s %14s %12s %8s", "threads", "time ms", "nodes", "nps", "speedup"));
+        double baseMillis = 0.0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long[] result = measure(transpositionTable, chessboards, threads, depth);
+            double millis = result[0] / 1e6;
+            if (threads == 1) baseMillis = millis;
+            long nodesPerSecond = (result[0] > 0L) ? (long) (result[1] * 1e9 / result[0]) : 0L;
+            System.out.println(String.format("%-8d %12.1f %14d %12d %8.2f", threads, millis, result[1], nodesPerSecond, baseMillis / millis));
+        }
+    }
+
+    /**
+     * @return  long[] of { elapsed nanoseconds, nodes of all threads } over all positions
+     */
+    private static long[] measure(TranspositionTable transpositionTable, Chessboard[] chessboards, int threads, int depth) {
+        ParallelSearch parallelSearch = new ParallelSearch(transpositionTable, threads);
+        parallelSearch.setInfoOutput(null);
+        long elapsed = 0L, nodes = 0L;
+        try {
+            for (Chessboard chessboard : chessboards) {
+                transpositionTable.clear();
+                long startTime = System.nanoTime();
+                parallelSearch.search(chessboard, depth, 0L, 0L);
+                elapsed += System.nanoTime() - startTime;
+                nodes += parallelSearch.getNodes();
+            }
+        } finally {
+            parallelSearch.shutdown();
+        }
+        return new long[] { elapsed, nodes };
+    }
+}
@@ -0,0 +1,244 @@
+package Engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+public class BatchAnalysis {
+
+    /**
+     * streaming batch analysis of FEN / EPD files, one position per line
+     *
+     * the calling thread reads lines from a reader (never the whole file) and numbers them, worker threads run the job on each
+     * position and the results are written in input order
+     * every worker owns its chessboard, move buffer and search, so a position costs no allocation beyond its line and result
+     *
+     * reorder buffer: results are placed in a ring of REORDER_CAPACITY slots by line number, and the writer thread empties the
+     * ring in order. a line is only read after a permit is taken, and the writer returns the permit once the line's result is
+     * written, so at most REORDER_CAPACITY lines are in flight whatever the file size. a slow position holds back the output,
+     * but the other workers keep going until the ring is full
+     * if writing fails, the writer releases every permit so that the reader wakes up, and run throws the writer's exception
+     *
+     * output line: (input line) ; (job result). empty lines and lines starting with # are copied through without analysis
+     */
+    public static final int JOB_PERFT = 0;
+    public static final int JOB_MOVES = 1;
+    public static final int JOB_SEARCH = 2;
+
+    public static final int REORDER_CAPACITY = 4096;
+    // transposition table of each search worker, positions of a batch are unrelated so a small table is enough
+    private static final int SEARCH_TABLE_SIZE_MB = 4;
+
+    private final int job;
+    private final int depth;
+    private final int threadCount;
+
+    private final String[] reorderBuffer = new String[REORDER_CAPACITY];
+    private Semaphore inFlight;
+    private BlockingQueue<Object> workQueue;
+    private long linesRead;
+    private volatile boolean finishedReading;
+    private volatile boolean writerFailed;
+
+    // marks the end of the input in the work queue, one per worker
+    private static final Object END_OF_INPUT = new Object();
+
+    /**
+     * @param job           int of job run on every position (JOB_PERFT, JOB_MOVES, JOB_SEARCH)
+     * @param depth         int of perft depth or search depth in plies, unused for JOB_MOVES
+     * @param threadCount   int of number of worker threads (at least 1)
+     */
+    public BatchAnalysis(int job, int depth, int threadCount) {
+        if (job < JOB_PERFT || job > JOB_SEARCH) throw new IllegalArgumentException("unknown batch job: ".concat(Integer.toString(job)));
+        if (threadCount < 1) throw new IllegalArgumentException("thread count must be at least 1: ".concat(Integer.toString(threadCount)));
+        this.job = job;
+        this.depth = Math.max(0, Math.min(depth, Search.MAX_PLY));
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * analyses every line of input and writes the results in input order. blocks until all results are written
+     * @param input     BufferedReader of FEN / EPD lines, e.g. from Files.newBufferedReader
+     * @param output    Writer of results, flushed on return
+     * @return          long of number of lines processed
+     */
+    public long run(BufferedReader input, Writer output) throws IOException {
+        Arrays.fill(this.reorderBuffer, null);
+        this.inFlight = new Semaphore(REORDER_CAPACITY);
+        this.workQueue = new ArrayBlockingQueue<>(REORDER_CAPACITY + this.threadCount);
+        this.linesRead = 0L;
+        this.finishedReading = false;
+        this.writerFailed = false;
+        ExecutorService pool = Executors.newFixedThreadPool(this.threadCount + 1, runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?>[] workers = new Future<?>[this.threadCount];
+            for (int i = 0; i < this.threadCount; i++) workers[i] = pool.submit(new Worker());
+            Future<Long> writer = pool.submit(() -> writeResults(output));
+
+            String line;
+            while ((line = input.readLine()) != null) {
+                this.inFlight.acquireUninterruptibly();
+                // throws the exception of the writer, the workers are interrupted by shutdownNow
+                if (this.writerFailed) return writer.get();
+                putWork(new WorkItem(this.linesRead++, line));
+            }
+            synchronized (this.reorderBuffer) {
+                this.finishedReading = true;
+                this.reorderBuffer.notifyAll();
+            }
+            for (int i = 0; i < this.threadCount; i++) putWork(END_OF_INPUT);
+
+            for (Future<?> worker : workers) worker.get();
+            return writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("batch analysis interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("batch analysis failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            output.flush();
+        }
+    }
+
+    private void putWork(Object item) {
+        try {
+            this.workQueue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("batch analysis interrupted", e);
+        }
+    }
+
+    /**
+     * writer loop, waits for the result of the next line number and writes it
+     * @return  long of number of lines written
+     */
+    private long writeResults(Writer output) throws IOException, InterruptedException {
+        try {
+            return writeOrderedResults(output);
+        } catch (IOException | RuntimeException e) {
+            // no permit would come back, wake the reader so that it fails the pipeline
+            this.writerFailed = true;
+            this.inFlight.release(REORDER_CAPACITY);
+            throw e;
+        }
+    }
+
+    private long writeOrderedResults(Writer output) throws IOException, InterruptedException {
+        long nextLine = 0L;
+        while (true) {
+            String result;
+            int slot = (int) (nextLine % REORDER_CAPACITY);
+            synchronized (this.reorderBuffer) {
+                while (this.reorderBuffer[slot] == null) {
+                    if (this.finishedReading && nextLine == this.linesRead) return nextLine;
+                    this.reorderBuffer.wait();
+                }
+                result = this.reorderBuffer[slot];
+                this.reorderBuffer[slot] = null;
+            }
+            output.write(result);
+            output.write('\n');
+            nextLine++;
+            this.inFlight.release();
+        }
+    }
+
+    private void putResult(long lineNumber, String result) {
+        synchronized (this.reorderBuffer) {
+            this.reorderBuffer[(int) (lineNumber % REORDER_CAPACITY)] = result;
+            this.reorderBuffer.notifyAll();
+        }
+    }
+
+    private static final class WorkItem {
+        private final long lineNumber;
+        private final String line;
+
+        private WorkItem(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    /**
+     * worker thread state, reused for every position the worker analyses
+     */
+    private final class Worker implements Runnable {
+        private final Chessboard chessboard = new Chessboard("");
+        private final int[] moves = new int[MoveHandler.MAX_MOVES];
+        private final StringBuilder builder = new StringBuilder(256);
+        private Search search;
+
+        @Override
+        public void run() {
+            if (BatchAnalysis.this.job == JOB_SEARCH) {
+                this.search = new Search(new TranspositionTable(SEARCH_TABLE_SIZE_MB));
+                this.search.setInfoOutput(null);
+            }
+            try {
+                while (true) {
+                    Object item = BatchAnalysis.this.workQueue.take();
+                    if (item == END_OF_INPUT) return;
+                    WorkItem workItem = (WorkItem) item;
+                    putResult(workItem.lineNumber, analyse(workItem.line));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @param line  String of FEN / EPD line
+         * @return      String of output line
+         */
+        private String analyse(String line) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.charAt(0) == '#') return line;
+            this.builder.setLength(0);
+            this.builder.append(trimmed).append(" ; ");
+            try {
+                this.chessboard.setFromFen(trimmed);
+            } catch (RuntimeException e) {
+                return this.builder.append("error ").append(e.getMessage()).toString();
+            }
+            // a failed job must still leave a result, otherwise the writer would wait for this line forever
+            try {
+                switch (BatchAnalysis.this.job) {
+                    case JOB_PERFT:
+                        this.builder.append('D').append(BatchAnalysis.this.depth).append(' ')
+                            .append(Perft.perft(this.chessboard, BatchAnalysis.this.depth));
+                        break;
+                    case JOB_MOVES:
+                        int count = MoveHandler.generateAllLegalMoves(this.chessboard, this.moves);
+                        this.builder.append("moves");
+                        for (int i = 0; i < count; i++) this.builder.append(' ').append(Move.toString(this.moves[i]));
+                        break;
+                    default:
+                        int bestMove = this.search.search(this.chessboard, Math.max(1, BatchAnalysis.this.depth), 0L, 0L);
+                        this.builder.append("bm ").append((bestMove == Move.NONE) ? "0000" : Move.toString(bestMove))
+                            .append(" ; ce ").append(this.search.getBestScore())
+                            .append(" ; acd ").append(this.search.getCompletedDepth());
+                        break;
+                }
+            } catch (RuntimeException e) {
+                this.builder.append("error ").append(e);
+            }
+            return this.builder.toString();
+        }
+    }
+}
@@ -1,5 +1,4 @@
 package Engine;
-import java.util.*;
 
 public class Chessboard {
     
@@ -12,8 +11,12 @@ public class Chessboard {
      * 
      * bitboard representing white pieces: K, Q, R, N, B, P
      * bitboard representing black pieces: k, q, r, n, b, p
+     *
+     * bitboards are stored in a primitive array indexed by piece index (see Piece)
+     * occupancy boards of each colour and of the whole board are cached, and are updated together with the piece boards
      */
-    private Map<Character, Long> bitboards;
+    private long[] bitboards;
+    private long whiteBitboard, blackBitboard, fullBitboard;
 
     /**
      * attributes for chessboard position
@@ -25,8 +28,13 @@ public class Chessboard {
      * 
      * criticalAttacksOnKing: long of all attacks on king (squares that attack the king and are being attacked by the same piece)
      * criticalAttackers: long of opposition pieces positions that are attacking the king
+     * check information is computed lazily on first access after a move (checkInformationValid), most moves made during a search never query it
+     * oppositionAttacks: long of all squares attacked by the side not to move, also computed lazily (oppositionAttacksValid)
+     *
+     * zobristKey: 64 bit key of the position (see Zobrist), XORed incrementally as pieces, side to move, castling rights and en passant change
+     * midgameScore, endgameScore, gamePhase: evaluation sums of all pieces on the board (see Evaluation), updated as pieces are toggled
      * 
-     * castling rights (whiteKingSideCastle, whiteQueenSideCastle, blackKingSideCastle, blackQueenSideCastle): true for (potential) castling availability, false otherwise
+     * castlingRights: bits of (potential) castling availability (WHITE_KING_SIDE_CASTLE, WHITE_QUEEN_SIDE_CASTLE, BLACK_KING_SIDE_CASTLE, BLACK_QUEEN_SIDE_CASTLE)
      * (note): not necessary that the king can castle in this move, only that the king or rook has yet to move
      * 
      * enPassantFlag: the bitboard position of the pawn that is susceptible to en passant. if no pawn susceptible, set to 0
@@ -35,14 +43,23 @@ public class Chessboard {
      * 
      * game state: tracks if the game is still in progress, import so that the scanner still waits for user input
      * 
-     * moveHistory: stack of Move objects to present moves that were made
+     * undo stack: fixed-capacity primitive arrays, one slot per ply made
+     * moveHistory: packed moves (see Move) that were made
+     * stateHistory: packed irreversible state before each move (castling rights, en passant square, move clocks, check flags)
+     * attacksOnKingHistory, attackersHistory, oppositionAttacksHistory: cached attack information before each move, so that undo restores the cache of that ply exactly
+     * keyHistory: Zobrist keys of the positions before each move, used for repetition detection
      */
     private boolean isWhiteTurn;
     private boolean kingInCheck;
     private boolean kingInDoubleCheck;
     private long criticalAttacksOnKing;
     private long criticalAttackers;
-    private boolean whiteKingSideCastle = false, whiteQueenSideCastle = false, blackKingSideCastle = false, blackQueenSideCastle = false;
+    private boolean checkInformationValid;
+    private long oppositionAttacks;
+    private boolean oppositionAttacksValid;
+    private long zobristKey;
+    private int midgameScore, endgameScore, gamePhase;
+    private int castlingRights;
     private long enPassantFlag;
     private int halfMoveClock, fullMoveClock;
     private boolean gameState;
@@ -50,140 +67,320 @@ public class Chessboard {
     private final long whiteKingSideCastleMask = Long.parseLong("01100000", 2);
     private final long blackQueenSideCastleMask = Long.parseLong("00001110", 2) << 56;
     private final long blackKingSideCastleMask = Long.parseLong("01100000", 2) << 56;
-    public Stack<Move> moveHistory;
+    private int[] moveHistory;
+    private long[] stateHistory;
+    private long[] attacksOnKingHistory;
+    private long[] attackersHistory;
+    private long[] oppositionAttacksHistory;
+    private long[] keyHistory;
+    private int ply;
+
+    // castling right bits
+    public static final int WHITE_KING_SIDE_CASTLE = 1;
+    public static final int WHITE_QUEEN_SIDE_CASTLE = 2;
+    public static final int BLACK_KING_SIDE_CASTLE = 4;
+    public static final int BLACK_QUEEN_SIDE_CASTLE = 8;
+
+    // castling rights kept when a piece moves from or to a square. moving the king or a rook (or capturing a rook) clears the rights
+    private static final int[] CASTLING_RIGHTS_MASK = new int[64];
+
+    static {
+        for (int i = 0; i < 64; i++) CASTLING_RIGHTS_MASK[i] = 0xF;
+        CASTLING_RIGHTS_MASK[0] = ~WHITE_QUEEN_SIDE_CASTLE & 0xF;
+        CASTLING_RIGHTS_MASK[4] = ~(WHITE_KING_SIDE_CASTLE | WHITE_QUEEN_SIDE_CASTLE) & 0xF;
+        CASTLING_RIGHTS_MASK[7] = ~WHITE_KING_SIDE_CASTLE & 0xF;
+        CASTLING_RIGHTS_MASK[56] = ~BLACK_QUEEN_SIDE_CASTLE & 0xF;
+        CASTLING_RIGHTS_MASK[60] = ~(BLACK_KING_SIDE_CASTLE | BLACK_QUEEN_SIDE_CASTLE) & 0xF;
+        CASTLING_RIGHTS_MASK[63] = ~BLACK_KING_SIDE_CASTLE & 0xF;
+    }
+
+    // maximum number of plies that can be made (and undone) from the initial position
+    public static final int MAX_HISTORY = 2048;
+
+    // packed state layout: castling rights (4 bits), en passant square + 1 (7 bits, 0 if none), half-move clock (16 bits), full-move clock (20 bits), check flags (2 bits), cache valid flags (2 bits)
+    private static final int STATE_EN_PASSANT_SHIFT = 4;
+    private static final int STATE_HALF_MOVE_SHIFT = 11;
+    private static final int STATE_FULL_MOVE_SHIFT = 27;
+    private static final int STATE_CHECK_SHIFT = 47;
+    private static final int STATE_DOUBLE_CHECK_SHIFT = 48;
+    private static final int STATE_CHECK_VALID_SHIFT = 49;
+    private static final int STATE_ATTACKS_VALID_SHIFT = 50;
 
     // default FEN String
     public static final String DEFAULT_FEN_STRING = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
     /**
      * constructor of the chessboard class. default chess position is the starting position
-     * fenstring format: (pieces position) (whose turn) (castling rights) (enpassant flag) (halfmove clock) (fullmove clock)
-     * pieces position: character corresponds to a piece, number represents the number of empty cells, / represents next row. from rank 8 to 1, from A file to H, on chessboard
-     * castling rights: upper case for white, lower case for black. K for king side castle, Q for queen side castle availability
-     * enpassant flag: - if no enpassant possible, else will be in the form of (rank)(file) of the pawn that can be enpassant-ed
-     * halfmove/fullmove clocks: counts of moves
+     * fenstring format: see setFromFen
      * 
      * @param   fenstring   FEN string of starting position. if empty string passed, default starting position is used
      * @return              returns a Chessboard object with the initialised chess position
      */
     public Chessboard(String fenString) {
+        this.bitboards = new long[Piece.COUNT];
+        this.moveHistory = new int[MAX_HISTORY];
+        this.stateHistory = new long[MAX_HISTORY];
+        this.attacksOnKingHistory = new long[MAX_HISTORY];
+        this.attackersHistory = new long[MAX_HISTORY];
+        this.oppositionAttacksHistory = new long[MAX_HISTORY];
+        this.keyHistory = new long[MAX_HISTORY];
+        setFromFen((fenString.isEmpty()) ? DEFAULT_FEN_STRING : fenString);
+    }
 
-        // create chessboard map
-        this.bitboards = new HashMap<>();
-        this.bitboards.put('K', 0L);
-        this.bitboards.put('Q', 0L);
-        this.bitboards.put('R', 0L);
-        this.bitboards.put('N', 0L);
-        this.bitboards.put('B', 0L);
-        this.bitboards.put('P', 0L);
-        this.bitboards.put('k', 0L);
-        this.bitboards.put('q', 0L);
-        this.bitboards.put('r', 0L);
-        this.bitboards.put('n', 0L);
-        this.bitboards.put('b', 0L);
-        this.bitboards.put('p', 0L);
-
-        // if empty string passed, set fenstring as default starting position
-        if (fenString.equals("")) fenString = DEFAULT_FEN_STRING;
-
-        // split fenstring into its various components
-        String[] fenStringDeconstructed = fenString.split(" ");
+    /**
+     * resets this chessboard in place to the position of a FEN string, reusing its arrays. the move history is cleared
+     * parsing works on the characters directly, without splitting or boxing, so loading many positions creates no garbage
+     * fenstring format: (pieces position) (whose turn) (castling rights) (enpassant square) (halfmove clock) (fullmove clock)
+     * pieces position: character corresponds to a piece, number represents the number of empty cells, / represents next row. from rank 8 to 1, from A file to H, on chessboard
+     * castling rights: upper case for white, lower case for black. K for king side castle, Q for queen side castle availability
+     * enpassant square: - if no enpassant possible, else the (file)(rank) square behind the pawn that just moved two squares, e.g. e3
+     * halfmove/fullmove clocks: counts of moves, optional (EPD records end after the enpassant square)
+     * every rank must hold 8 squares, each side exactly one king, and every castling right its king and rook on their starting squares
+     *
+     * @param fen   CharSequence of FEN string (leading and trailing fields after the six FEN fields are ignored)
+     * @throws IllegalArgumentException if the pieces, turn, castling rights or enpassant square are malformed
+     */
+    public void setFromFen(CharSequence fen) {
+        for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) this.bitboards[pieceIndex] = 0L;
+        this.whiteBitboard = 0L;
+        this.blackBitboard = 0L;
+        this.fullBitboard = 0L;
+        this.midgameScore = 0;
+        this.endgameScore = 0;
+        this.gamePhase = 0;
+        this.zobristKey = 0L;
+        int length = fen.length(), i = skipSpaces(fen, 0);
 
         // fill individual chessboard pieces into bitboard
-        String pieces = fenStringDeconstructed[0];
-        int piecesN = pieces.length(), rank = 7, file = 0;
-        for (int i = 0; i < piecesN; i++) {
-            if (Character.isAlphabetic(pieces.charAt(i))) {
-                char currPiece = pieces.charAt(i);
-                int idx = rank * 8 + file;
-                bitboards.put(currPiece, bitboards.get(currPiece) | PCMBB.INDEX_TO_BIN_MAP.get(idx));
-                file++;
-            } else if (Character.isDigit(pieces.charAt(i))) {
-                file += pieces.charAt(i) - '0';
-            } else {
+        int rank = 7, file = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) throw invalidFen(fen);
                 rank--;
                 file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) throw invalidFen(fen);
+            } else {
+                int pieceIndex = Piece.getIndex(c);
+                if (pieceIndex == Piece.NONE || rank < 0 || file > 7) throw invalidFen(fen);
+                togglePieces(pieceIndex, 1L << (rank * 8 + file));
+                file++;
             }
         }
 
+        if (rank != 0 || file != 8) throw invalidFen(fen);
+        if (Long.bitCount(this.bitboards[Piece.WHITE_KING]) != 1 || Long.bitCount(this.bitboards[Piece.BLACK_KING]) != 1) throw invalidFen(fen);
+
         // set turn to move
-        this.isWhiteTurn = (fenStringDeconstructed[1].equals("w"));
+        i = skipSpaces(fen, i);
+        if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) throw invalidFen(fen);
+        this.isWhiteTurn = fen.charAt(i++) == 'w';
 
         // set castling rights
-        String castlingRights = fenStringDeconstructed[2];
-        int castlingRightsN = castlingRights.length();
-        for (int i = 0; i < castlingRightsN; i++) {
-            if (castlingRights.charAt(i) == '-') break;
-            switch (castlingRights.charAt(i)){
+        i = skipSpaces(fen, i);
+        this.castlingRights = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
                 case 'K':
-                    this.whiteKingSideCastle = true;
+                    this.castlingRights |= WHITE_KING_SIDE_CASTLE;
                     break;
                 case 'Q':
-                    this.whiteQueenSideCastle = true;
+                    this.castlingRights |= WHITE_QUEEN_SIDE_CASTLE;
                     break;
                 case 'k':
-                    this.blackKingSideCastle = true;
+                    this.castlingRights |= BLACK_KING_SIDE_CASTLE;
                     break;
                 case 'q':
-                    this.blackQueenSideCastle = true;
+                    this.castlingRights |= BLACK_QUEEN_SIDE_CASTLE;
                     break;
-                default:
+                case '-':
                     break;
+                default:
+                    throw invalidFen(fen);
             }
         }
+        // every castling right needs its king and rook on their starting squares, move generation relies on it
+        if ((this.castlingRights & WHITE_KING_SIDE_CASTLE) != 0 && !hasPiecesAt(Piece.WHITE_KING, 4, Piece.WHITE_ROOK, 7)
+            || (this.castlingRights & WHITE_QUEEN_SIDE_CASTLE) != 0 && !hasPiecesAt(Piece.WHITE_KING, 4, Piece.WHITE_ROOK, 0)
+            || (this.castlingRights & BLACK_KING_SIDE_CASTLE) != 0 && !hasPiecesAt(Piece.BLACK_KING, 60, Piece.BLACK_ROOK, 63)
+            || (this.castlingRights & BLACK_QUEEN_SIDE_CASTLE) != 0 && !hasPiecesAt(Piece.BLACK_KING, 60, Piece.BLACK_ROOK, 56)) {
+            throw invalidFen(fen);
+        }
 
-        // set enPassantFlag
-        String enPassantString = fenStringDeconstructed[3];
-        if (enPassantString.equals("-")) {
-            this.enPassantFlag = 0L;
+        // set enPassantFlag, the pawn stands one rank past the enpassant square, seen from the side that moved it
+        i = skipSpaces(fen, i);
+        this.enPassantFlag = 0L;
+        if (i < length && fen.charAt(i) != '-') {
+            if (i + 1 >= length) throw invalidFen(fen);
+            int enPassantFile = Character.toLowerCase(fen.charAt(i)) - 'a', enPassantRank = fen.charAt(i + 1) - '1';
+            if (enPassantFile < 0 || enPassantFile > 7 || enPassantRank != ((this.isWhiteTurn) ? 5 : 2)) throw invalidFen(fen);
+            int pawnSquare = enPassantRank * 8 + enPassantFile + ((this.isWhiteTurn) ? -8 : 8);
+            this.enPassantFlag = 1L << pawnSquare;
+            i += 2;
         } else {
-            int enPassantIdx = (((enPassantString.charAt(0) - '1') * 8) + enPassantString.charAt(1) - 'A');
-            this.enPassantFlag = PCMBB.INDEX_TO_BIN_MAP.get(enPassantIdx);
+            i++;
         }
 
-        // set move clocks
-        this.halfMoveClock = Integer.parseInt(fenStringDeconstructed[4]);
-        this.fullMoveClock = Integer.parseInt(fenStringDeconstructed[5]);
+        // set move clocks, defaulting to 0 and 1 when absent
+        i = skipSpaces(fen, i);
+        this.halfMoveClock = 0;
+        for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) this.halfMoveClock = this.halfMoveClock * 10 + fen.charAt(i) - '0';
+        i = skipSpaces(fen, i);
+        int fullMoveClock = 0;
+        for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) fullMoveClock = fullMoveClock * 10 + fen.charAt(i) - '0';
+        this.fullMoveClock = Math.max(1, fullMoveClock);
 
         // set game state
         // implement a check to check the input position if the position is already a checkmate position
         this.gameState = true;
-        updateCheckInformation();
-        this.moveHistory = new Stack<>();
+        this.checkInformationValid = false;
+        this.oppositionAttacksValid = false;
+        this.zobristKey = Zobrist.computeKey(this);
+        this.ply = 0;
+    }
+
+    /**
+     * @param fen   CharSequence of FEN string
+     * @param index int of position in fen
+     * @return      int of first position at or after index that is not a space
+     */
+    private static int skipSpaces(CharSequence fen, int index) {
+        while (index < fen.length() && fen.charAt(index) == ' ') index++;
+        return index;
+    }
+
+    /**
+     * @return  boolean of whether the king and the rook stand on the given squares
+     */
+    private boolean hasPiecesAt(int kingIndex, int kingSquare, int rookIndex, int rookSquare) {
+        return (this.bitboards[kingIndex] & (1L << kingSquare)) != 0L && (this.bitboards[rookIndex] & (1L << rookSquare)) != 0L;
+    }
 
-        // print board to console
-        System.out.println(printBoard());
+    private static IllegalArgumentException invalidFen(CharSequence fen) {
+        return new IllegalArgumentException("invalid FEN string: ".concat(fen.toString()));
     }
 
     /**
-     * @return      bitboard of all white pieces
+     * appends the FEN string of the position, the inverse of setFromFen
+     * @param builder   StringBuilder to append to
+     * @return          StringBuilder of builder, for chaining
      */
-    public long getWhiteBitboard() {
-        return bitboards.get('K') | bitboards.get('Q') | bitboards.get('R') | bitboards.get('N') | bitboards.get('B') | bitboards.get('P');
+    public StringBuilder toFen(StringBuilder builder) {
+        for (int rank = 7; rank >= 0; rank--) {
+            int emptyCount = 0;
+            for (int file = 0; file < 8; file++) {
+                int pieceIndex = getPieceAt(rank * 8 + file);
+                if (pieceIndex == Piece.NONE) {
+                    emptyCount++;
+                    continue;
+                }
+                if (emptyCount > 0) builder.append((char) ('0' + emptyCount));
+                emptyCount = 0;
+                builder.append(Piece.getCode(pieceIndex));
+            }
+            if (emptyCount > 0) builder.append((char) ('0' + emptyCount));
+            if (rank > 0) builder.append('/');
+        }
+        builder.append(' ').append((this.isWhiteTurn) ? 'w' : 'b').append(' ');
+        if (this.castlingRights == 0) builder.append('-');
+        if ((this.castlingRights & WHITE_KING_SIDE_CASTLE) != 0) builder.append('K');
+        if ((this.castlingRights & WHITE_QUEEN_SIDE_CASTLE) != 0) builder.append('Q');
+        if ((this.castlingRights & BLACK_KING_SIDE_CASTLE) != 0) builder.append('k');
+        if ((this.castlingRights & BLACK_QUEEN_SIDE_CASTLE) != 0) builder.append('q');
+        builder.append(' ');
+        if (this.enPassantFlag == 0L) {
+            builder.append('-');
+        } else {
+            // the enpassant square is behind the pawn, seen from the side that moved it
+            int enPassantSquare = Long.numberOfTrailingZeros(this.enPassantFlag) + ((this.isWhiteTurn) ? 8 : -8);
+            builder.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >>> 3)));
+        }
+        return builder.append(' ').append(this.halfMoveClock).append(' ').append(this.fullMoveClock);
     }
 
     /**
-     * @return      bitboard of all black pieces
+     * @return  String of FEN string of the position
+     */
+    public String toFen() { return toFen(new StringBuilder(90)).toString(); }
+
+    /**
+     * copy constructor, every search thread works on its own copy of the position
+     * @param   chessboard  Chessboard to copy, including the moves made on it so that undo and repetition detection behave the same
+     * @return              returns a Chessboard object with the same position and history
      */
-    public long getBlackBitboard() {
-        return bitboards.get('k') | bitboards.get('q') | bitboards.get('r') | bitboards.get('n') | bitboards.get('b') | bitboards.get('p');
+    public Chessboard(Chessboard chessboard) {
+        this.bitboards = new long[Piece.COUNT];
+        this.moveHistory = new int[MAX_HISTORY];
+        this.stateHistory = new long[MAX_HISTORY];
+        this.attacksOnKingHistory = new long[MAX_HISTORY];
+        this.attackersHistory = new long[MAX_HISTORY];
+        this.oppositionAttacksHistory = new long[MAX_HISTORY];
+        this.keyHistory = new long[MAX_HISTORY];
+        copyFrom(chessboard);
     }
 
+    /**
+     * overwrites this position with a copy of another, reusing the arrays of this chessboard
+     * @param chessboard    Chessboard to copy, including the moves made on it
+     */
+    public void copyFrom(Chessboard chessboard) {
+        System.arraycopy(chessboard.bitboards, 0, this.bitboards, 0, Piece.COUNT);
+        this.whiteBitboard = chessboard.whiteBitboard;
+        this.blackBitboard = chessboard.blackBitboard;
+        this.fullBitboard = chessboard.fullBitboard;
+        this.isWhiteTurn = chessboard.isWhiteTurn;
+        this.kingInCheck = chessboard.kingInCheck;
+        this.kingInDoubleCheck = chessboard.kingInDoubleCheck;
+        this.criticalAttacksOnKing = chessboard.criticalAttacksOnKing;
+        this.criticalAttackers = chessboard.criticalAttackers;
+        this.checkInformationValid = chessboard.checkInformationValid;
+        this.oppositionAttacks = chessboard.oppositionAttacks;
+        this.oppositionAttacksValid = chessboard.oppositionAttacksValid;
+        this.zobristKey = chessboard.zobristKey;
+        this.midgameScore = chessboard.midgameScore;
+        this.endgameScore = chessboard.endgameScore;
+        this.gamePhase = chessboard.gamePhase;
+        this.castlingRights = chessboard.castlingRights;
+        this.enPassantFlag = chessboard.enPassantFlag;
+        this.halfMoveClock = chessboard.halfMoveClock;
+        this.fullMoveClock = chessboard.fullMoveClock;
+        this.gameState = chessboard.gameState;
+        this.ply = chessboard.ply;
+        System.arraycopy(chessboard.moveHistory, 0, this.moveHistory, 0, this.ply);
+        System.arraycopy(chessboard.stateHistory, 0, this.stateHistory, 0, this.ply);
+        System.arraycopy(chessboard.attacksOnKingHistory, 0, this.attacksOnKingHistory, 0, this.ply);
+        System.arraycopy(chessboard.attackersHistory, 0, this.attackersHistory, 0, this.ply);
+        System.arraycopy(chessboard.oppositionAttacksHistory, 0, this.oppositionAttacksHistory, 0, this.ply);
+        System.arraycopy(chessboard.keyHistory, 0, this.keyHistory, 0, this.ply);
+    }
+
+    /**
+     * @return      bitboard of all white pieces
+     */
+    public long getWhiteBitboard() { return this.whiteBitboard; }
+
+    /**
+     * @return      bitboard of all black pieces
+     */
+    public long getBlackBitboard() { return this.blackBitboard; }
+
     /**
      * @return      bitboard of all pieces
      */
-    public long getFullBitboard() { return getWhiteBitboard() | getBlackBitboard(); }
+    public long getFullBitboard() { return this.fullBitboard; }
     
     /**
      * @param   isWhitePiece    boolean of piece color where true is white
      * @return                  long of same colored board
      */
-    public long getSameColouredBoard(boolean isWhitePiece) { return (isWhitePiece) ? getWhiteBitboard() : getBlackBitboard(); }
+    public long getSameColouredBoard(boolean isWhitePiece) { return (isWhitePiece) ? this.whiteBitboard : this.blackBitboard; }
 
     /**
      * @param   isWhitePiece    boolean of piece color where true is white
      * @return                  long of different colored board
      */
-    public long getDiffColouredBoard(boolean isWhitePiece) { return (!isWhitePiece) ? getWhiteBitboard() : getBlackBitboard(); }
+    public long getDiffColouredBoard(boolean isWhitePiece) { return (!isWhitePiece) ? this.whiteBitboard : this.blackBitboard; }
 
     /**
      * prints the board state onto the console.
@@ -199,12 +396,12 @@ public class Chessboard {
                 board[i][j] = '.';
             }
         }
-        for (Map.Entry<Character, Long> pair : this.bitboards.entrySet()) {
-            long bitboardPosition = pair.getValue();
+        for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) {
+            long bitboardPosition = this.bitboards[pieceIndex];
             for (int i = 0; i < 64; i++) {
-                if ((bitboardPosition & PCMBB.INDEX_TO_BIN_MAP.get(i)) != 0) {
+                if ((bitboardPosition & (1L << i)) != 0) {
                     int rank = i / 8, file = i % 8;
-                    board[rank][file] = pair.getKey();
+                    board[rank][file] = Piece.getCode(pieceIndex);
                 }
             }
         }
@@ -229,14 +426,14 @@ public class Chessboard {
         str.append(toMove);
         str.append(enPassant);
         str.append("Castling Legality: ");
-        if (this.whiteKingSideCastle) str.append("White king side  |  ");
-        if (this.whiteQueenSideCastle) str.append("White queen side   |  ");
-        if (this.blackKingSideCastle) str.append("Black king side  |  ");
-        if (this.blackQueenSideCastle) str.append("Black queen side  |  ");
+        if ((this.castlingRights & WHITE_KING_SIDE_CASTLE) != 0) str.append("White king side  |  ");
+        if ((this.castlingRights & WHITE_QUEEN_SIDE_CASTLE) != 0) str.append("White queen side   |  ");
+        if ((this.castlingRights & BLACK_KING_SIDE_CASTLE) != 0) str.append("Black king side  |  ");
+        if ((this.castlingRights & BLACK_QUEEN_SIDE_CASTLE) != 0) str.append("Black queen side  |  ");
         str.append("\n");
         str.append("Half-move clock: ".concat(Integer.toString(this.halfMoveClock)).concat("; Full-move clock: ").concat(Integer.toString(this.fullMoveClock)).concat("\n"));
-        if (this.isWhiteTurn && this.kingInCheck) str.append("Black king in check.\n");
-        if (!this.isWhiteTurn && this.kingInCheck) str.append("White king in check.\n");
+        if (this.isWhiteTurn && isKingInCheck()) str.append("White king in check.\n");
+        if (!this.isWhiteTurn && isKingInCheck()) str.append("Black king in check.\n");
         return str.toString();
     }
 
@@ -245,8 +442,8 @@ public class Chessboard {
      * @return              returns a String of the board position of the given long
      */
     private String findPositionName(long position) {
-        int rank = PCMBB.RANK_COORDINATES_MAP.get(position);
-        char file = PCMBB.FILE_COORDINATES_MAP.get(position);
+        int rank = PCMBB.getRankIndex(position) + 1;
+        char file = (char) ('A' + PCMBB.getFileIndex(position));
         return Character.toString(file).concat(Integer.toString(rank));
     }
 
@@ -265,18 +462,99 @@ public class Chessboard {
      */
     public long getEnPassantFlag() { return this.enPassantFlag; }
 
+    /**
+     * @return  int of castling right bits
+     */
+    public int getCastlingRights() { return this.castlingRights; }
+
+    /**
+     * @return  int of half-move clock
+     */
+    public int getHalfMoveClock() { return this.halfMoveClock; }
+
+    /**
+     * @return  int of full-move clock
+     */
+    public int getFullMoveClock() { return this.fullMoveClock; }
+
+    /**
+     * @return  int of number of moves currently on the undo stack
+     */
+    public int getPly() { return this.ply; }
+
+    /**
+     * @return  int of packed move last made, Move.NONE if no move has been made
+     */
+    public int getLastMove() { return (this.ply > 0) ? this.moveHistory[this.ply - 1] : Move.NONE; }
+
+    /**
+     * @return  long of Zobrist key of the current position
+     */
+    public long getZobristKey() { return this.zobristKey; }
+
+    /**
+     * @return  int of midgame evaluation sum from the view of white
+     */
+    public int getMidgameScore() { return this.midgameScore; }
+
+    /**
+     * @return  int of endgame evaluation sum from the view of white
+     */
+    public int getEndgameScore() { return this.endgameScore; }
+
+    /**
+     * @return  int of game phase of the pieces on the board (see Evaluation.GAME_PHASE_TOTAL)
+     */
+    public int getGamePhase() { return this.gamePhase; }
+
+    /**
+     * positions can only repeat within the moves since the last pawn move or capture, and only with the same side to move
+     * @return  boolean of whether the current position occurred before in the moves made on this board
+     */
+    public boolean isRepetition() {
+        int earliestPly = Math.max(0, this.ply - this.halfMoveClock);
+        for (int i = this.ply - 4; i >= earliestPly; i -= 2) {
+            if (this.keyHistory[i] == this.zobristKey) return true;
+        }
+        return false;
+    }
+
     /**
      * @param pieceCode char of queried piece
      * @return  long of all positions of a input piece code
      */
     public long getPiecesPosition(char pieceCode) {
-        return this.bitboards.get(pieceCode);
+        return this.bitboards[Piece.getIndex(pieceCode)];
+    }
+
+    /**
+     * @param pieceIndex    int piece index of queried piece (see Piece)
+     * @return              long of all positions of the piece
+     */
+    public long getPiecesPosition(int pieceIndex) {
+        return this.bitboards[pieceIndex];
+    }
+
+    /**
+     * @param square    int index of queried square
+     * @return          int piece index of the piece on the square, Piece.NONE if empty
+     */
+    public int getPieceAt(int square) {
+        long position = 1L << square;
+        if ((this.fullBitboard & position) == 0L) return Piece.NONE;
+        int pieceIndex = ((this.whiteBitboard & position) != 0L) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+        int lastIndex = pieceIndex + Piece.BLACK_OFFSET;
+        for (; pieceIndex < lastIndex; pieceIndex++) {
+            if ((this.bitboards[pieceIndex] & position) != 0L) return pieceIndex;
+        }
+        return Piece.NONE;
     }
 
     /**
      * @return  long of critical attacks and critical attackers
      */
     public long getCriticalAttackMap() {
+        if (!this.checkInformationValid) updateCheckInformation();
         return this.criticalAttackers | this.criticalAttacksOnKing;
     }
 
@@ -284,13 +562,91 @@ public class Chessboard {
      * @return  boolean of king in check
      */
     public boolean isKingInCheck() {
+        if (!this.checkInformationValid) updateCheckInformation();
         return this.kingInCheck;
     }
 
+    /**
+     * @return  long of positions of opposition pieces giving check
+     */
+    public long getCheckers() {
+        if (!this.checkInformationValid) updateCheckInformation();
+        return this.criticalAttackers;
+    }
+
+    /**
+     * @return  long of all squares attacked by the side not to move
+     */
+    public long getOppositionAttacks() {
+        if (!this.oppositionAttacksValid) {
+            this.oppositionAttacks = generateAttackedSquares(!this.isWhiteTurn, this.fullBitboard);
+            this.oppositionAttacksValid = true;
+        }
+        return this.oppositionAttacks;
+    }
+
+    /**
+     * attackers are found with reverse lookups: a piece attacks the square if the same piece type standing on the square would attack it
+     * @param square        int index of target square
+     * @param occupancy     long of board occupancy that blocks sliding pieces
+     * @return              long of positions of pieces of both colours that attack the square
+     */
+    public long attackersTo(int square, long occupancy) {
+        long queens = this.bitboards[Piece.WHITE_QUEEN] | this.bitboards[Piece.BLACK_QUEEN];
+        return (PCMBB.getPawnAttacks(square, false) & this.bitboards[Piece.WHITE_PAWN])
+            | (PCMBB.getPawnAttacks(square, true) & this.bitboards[Piece.BLACK_PAWN])
+            | (PCMBB.getKnightMoves(square) & (this.bitboards[Piece.WHITE_KNIGHT] | this.bitboards[Piece.BLACK_KNIGHT]))
+            | (PCMBB.getKingMoves(square) & (this.bitboards[Piece.WHITE_KING] | this.bitboards[Piece.BLACK_KING]))
+            | (PCMBB.getRookAttacks(square, occupancy) & (this.bitboards[Piece.WHITE_ROOK] | this.bitboards[Piece.BLACK_ROOK] | queens))
+            | (PCMBB.getBishopAttacks(square, occupancy) & (this.bitboards[Piece.WHITE_BISHOP] | this.bitboards[Piece.BLACK_BISHOP] | queens));
+    }
+
+    /**
+     * @param square    int index of target square
+     * @param byWhite   boolean of if attackers are white pieces
+     * @return          boolean of whether any piece of the given colour attacks the square
+     */
+    public boolean isSquareAttacked(int square, boolean byWhite) {
+        int offset = (byWhite) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+        // cheapest lookups first
+        if ((PCMBB.getPawnAttacks(square, !byWhite) & this.bitboards[offset + Piece.PAWN]) != 0L) return true;
+        if ((PCMBB.getKnightMoves(square) & this.bitboards[offset + Piece.KNIGHT]) != 0L) return true;
+        if ((PCMBB.getKingMoves(square) & this.bitboards[offset + Piece.KING]) != 0L) return true;
+        long queens = this.bitboards[offset + Piece.QUEEN];
+        if ((PCMBB.getRookAttacks(square, this.fullBitboard) & (this.bitboards[offset + Piece.ROOK] | queens)) != 0L) return true;
+        return (PCMBB.getBishopAttacks(square, this.fullBitboard) & (this.bitboards[offset + Piece.BISHOP] | queens)) != 0L;
+    }
+
+    /**
+     * @param byWhite   boolean of if attacks are of white pieces
+     * @param occupancy long of board occupancy that blocks sliding pieces
+     * @return          long of all squares attacked by the given colour
+     */
+    public long generateAttackedSquares(boolean byWhite, long occupancy) {
+        int offset = (byWhite) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+        long pawns = this.bitboards[offset + Piece.PAWN];
+        long notAFile = ~PCMBB.getFileMask(0), notHFile = ~PCMBB.getFileMask(7);
+        long attacks = (byWhite) ? ((pawns & notAFile) << 7) | ((pawns & notHFile) << 9) : ((pawns & notAFile) >>> 9) | ((pawns & notHFile) >>> 7);
+        long king = this.bitboards[offset + Piece.KING];
+        if (king != 0L) attacks |= PCMBB.getKingMoves(Long.numberOfTrailingZeros(king));
+        for (long knights = this.bitboards[offset + Piece.KNIGHT]; knights != 0L; knights = PCMBB.popLowestPosition(knights)) {
+            attacks |= PCMBB.getKnightMoves(PCMBB.getLowestSquare(knights));
+        }
+        long queens = this.bitboards[offset + Piece.QUEEN];
+        for (long rooks = this.bitboards[offset + Piece.ROOK] | queens; rooks != 0L; rooks = PCMBB.popLowestPosition(rooks)) {
+            attacks |= PCMBB.getRookAttacks(PCMBB.getLowestSquare(rooks), occupancy);
+        }
+        for (long bishops = this.bitboards[offset + Piece.BISHOP] | queens; bishops != 0L; bishops = PCMBB.popLowestPosition(bishops)) {
+            attacks |= PCMBB.getBishopAttacks(PCMBB.getLowestSquare(bishops), occupancy);
+        }
+        return attacks;
+    }
+
     /**
      * @return  boolean of king in double check
      */
     public boolean isKingInDoubleCheck() {
+        if (!this.checkInformationValid) updateCheckInformation();
         return this.kingInDoubleCheck;
     }
 
@@ -300,7 +656,7 @@ public class Chessboard {
      * @return                  true if piece entered is at position, false otherwise
      */
     public boolean checkPieceLocation(char pieceCode, long polledPosition) {
-        if ((bitboards.get(pieceCode) & polledPosition) == 0) {
+        if ((bitboards[Piece.getIndex(pieceCode)] & polledPosition) == 0) {
             System.out.println("Piece selected not found in starting position entered.");
             return false;
         }
@@ -308,19 +664,19 @@ public class Chessboard {
     }
 
     public boolean checkWhiteKingSideCastle() {
-        return whiteKingSideCastle && (getWhiteBitboard() & whiteKingSideCastleMask) == 0L;
+        return (castlingRights & WHITE_KING_SIDE_CASTLE) != 0 && (whiteBitboard & whiteKingSideCastleMask) == 0L;
     }
 
     public boolean checkWhiteQueenSideCastle() {
-        return whiteQueenSideCastle && (getWhiteBitboard() & whiteQueenSideCastleMask) == 0L;
+        return (castlingRights & WHITE_QUEEN_SIDE_CASTLE) != 0 && (whiteBitboard & whiteQueenSideCastleMask) == 0L;
     }
 
     public boolean checkBlackKingSideCastle() {
-        return blackKingSideCastle && (getBlackBitboard() & blackKingSideCastleMask) == 0L;
+        return (castlingRights & BLACK_KING_SIDE_CASTLE) != 0 && (blackBitboard & blackKingSideCastleMask) == 0L;
     }
 
     public boolean checkBlackQueenSideCastle() {
-        return blackQueenSideCastle && (getBlackBitboard() & blackQueenSideCastleMask) == 0L;
+        return (castlingRights & BLACK_QUEEN_SIDE_CASTLE) != 0 && (blackBitboard & blackQueenSideCastleMask) == 0L;
     }
 
     /**
@@ -329,108 +685,266 @@ public class Chessboard {
      * @param endingPosition        long of ending position
      */
     public void performMove(char pieceCode, long startingPosition, long endingPosition) {
-        long moveLong = startingPosition | endingPosition;
-        Move move = new Move(pieceCode, moveLong, false);
-
-        // perform move on piece
-        bitboards.put(pieceCode, bitboards.get(pieceCode) ^ moveLong);
+        performMove(createMove(Piece.getIndex(pieceCode), Long.numberOfTrailingZeros(startingPosition), Long.numberOfTrailingZeros(endingPosition), Piece.NONE));
+    }
 
-        if (Character.toLowerCase(pieceCode) == 'p') {
-            // check if pawn has moved to be an en passant target
-            if (((startingPosition << 16) == endingPosition) || (startingPosition >>> 16) == endingPosition) {
-                this.enPassantFlag = endingPosition;
-            } else {
-                this.enPassantFlag = 0L;
-            } 
-            // check if move is en passant
-            if (PCMBB.FILE_COORDINATES_MAP.get(startingPosition) != PCMBB.FILE_COORDINATES_MAP.get(endingPosition) && (this.getDiffColouredBoard(isWhiteTurn) & endingPosition) == 0L) {
-                if (isWhiteTurn) {
-                    bitboards.put('p', bitboards.get('p') ^ (endingPosition >>> 8));
-                    move.setCapture('p', endingPosition >>> 8);
-                } else {
-                    bitboards.put('P', bitboards.get('P') ^ (endingPosition << 8));
-                    move.setCapture('P', endingPosition << 8);
-                }
-            } 
-        } else {
-            this.enPassantFlag = 0L;
-        } 
-        if (Character.toLowerCase(pieceCode) == 'k') {
-            // check for king castling
-            char rookCode = (isWhiteTurn) ? 'R' : 'r';
-            long rookMove = 0L;
-            if (isWhiteTurn) {
-                if (((startingPosition >>> 2) == endingPosition)) rookMove = ((1L) | (1L << 3));
-                if ((startingPosition << 2) == endingPosition) rookMove = ((1L << 7) | (1L << 5));
-            } else {
-                if (((startingPosition >>> 2) == endingPosition)) rookMove = ((1L << 56) | (1L << 59));
-                if ((startingPosition << 2) == endingPosition) rookMove = ((1L << 63) | (1L << 61));
+    /**
+     * builds the packed move of a piece moving between two squares of the current position
+     * captures, en passant, castling and double pawn pushes are derived from the board
+     * @param pieceIndex    int piece index of piece to move
+     * @param from          int starting square
+     * @param to            int ending square
+     * @param promotion     int piece index to promote to if a pawn reaches the last rank, Piece.NONE promotes to a queen
+     * @return              int of packed move
+     */
+    public int createMove(int pieceIndex, int from, int to, int promotion) {
+        int pieceType = Piece.getType(pieceIndex);
+        boolean isWhitePiece = Piece.isWhite(pieceIndex);
+        int capturedIndex = getPieceAt(to);
+        int flags = 0;
+        if (pieceType == Piece.PAWN) {
+            if (Math.abs(to - from) == 16) {
+                flags |= Move.FLAG_DOUBLE_PUSH;
+            } else if ((from & 7) != (to & 7) && capturedIndex == Piece.NONE) {
+                // diagonal pawn move onto an empty square is en passant
+                flags |= Move.FLAG_EN_PASSANT;
+                capturedIndex = (isWhitePiece) ? Piece.BLACK_PAWN : Piece.WHITE_PAWN;
+            }
+            boolean isLastRank = (isWhitePiece) ? to >= 56 : to < 8;
+            if (!isLastRank) {
+                promotion = Piece.NONE;
+            } else if (promotion == Piece.NONE) {
+                promotion = Piece.getIndex(Piece.QUEEN, isWhitePiece);
             }
-            bitboards.put(rookCode, bitboards.get(rookCode) ^ rookMove);
-            move.setCastle(rookCode, rookMove);
+        } else {
+            promotion = Piece.NONE;
+            if (pieceType == Piece.KING && Math.abs(to - from) == 2) flags |= Move.FLAG_CASTLE;
         }
-        
-        // check for pawn promotion
-        
-        // check for captures
-        for (Map.Entry<Character, Long> pair : this.bitboards.entrySet()) {
-            if (pieceCode == pair.getKey()) continue;
-            if ((pair.getValue() & moveLong) == 0L) continue;
-            move.setCapture(pair.getKey(), pair.getValue() & moveLong);
-            this.bitboards.put(pair.getKey(), pair.getValue() & (~moveLong));
+        return Move.encode(from, to, pieceIndex, capturedIndex, promotion, flags);
+    }
+
+    /**
+     * makes a packed move on the board. the move is assumed to be legal in the current position
+     * the irreversible state before the move is saved on the undo stack, so making a move allocates nothing
+     * @param move  int of packed move (see Move)
+     * @throws IllegalStateException if the undo stack already holds MAX_HISTORY moves
+     */
+    public void performMove(int move) {
+        pushState(move);
+        int from = Move.getFrom(move), to = Move.getTo(move);
+        int pieceIndex = Move.getMovingPiece(move), capturedIndex = Move.getCapturedPiece(move), promotion = Move.getPromotion(move);
+
+        // remove captured piece first, en passant captures are not on the ending square
+        if (capturedIndex != Piece.NONE) togglePieces(capturedIndex, Move.getCapturedPiecePosition(move));
+
+        // perform move on piece, a promoting pawn is replaced by the promoted piece
+        if (promotion == Piece.NONE) {
+            togglePieces(pieceIndex, (1L << from) | (1L << to));
+        } else {
+            togglePieces(pieceIndex, 1L << from);
+            togglePieces(promotion, 1L << to);
         }
-        
+
+        // castling moves the rook as well
+        if (Move.getIsCastle(move)) togglePieces(Move.getRookCode(move), Move.getRookMove(move));
+
         // update game states
-        move.setEnPassantFlag(this.enPassantFlag);
-        this.moveHistory.push(move);
+        long previousEnPassantFlag = this.enPassantFlag;
+        int previousCastlingRights = this.castlingRights;
+        this.enPassantFlag = (Move.getIsDoublePush(move)) ? 1L << to : 0L;
+        this.castlingRights &= CASTLING_RIGHTS_MASK[from] & CASTLING_RIGHTS_MASK[to];
+        this.zobristKey ^= Zobrist.getEnPassantKey(previousEnPassantFlag) ^ Zobrist.getEnPassantKey(this.enPassantFlag)
+            ^ Zobrist.CASTLING_RIGHTS[previousCastlingRights] ^ Zobrist.CASTLING_RIGHTS[this.castlingRights]
+            ^ Zobrist.SIDE_TO_MOVE;
+        this.halfMoveClock = (Piece.getType(pieceIndex) == Piece.PAWN || capturedIndex != Piece.NONE) ? 0 : this.halfMoveClock + 1;
+        if (!this.isWhiteTurn) this.fullMoveClock++;
         this.isWhiteTurn = !this.isWhiteTurn;
-        updateCheckInformation();
+        invalidateAttackInformation();
     }
 
     /**
-     *  performs a move that does nothing to the chessboard
-     *  usually used to check if a move is illegal due to pinned pieces
+     *  performs a move that does nothing to the chessboard but pass the turn, used for null move pruning in the search
+     *  only the side to move, the en passant flag and the key change. the side that did not move can never be in check in a legal
+     *  position, so after passing the turn the side to move is known not to be in check without computing it
+     *  the half-move clock is reset, so that repetitions are not detected across a null move
      */
     public void performNullMove() {
-        Move move = new Move(' ', 0L, true);
-        this.moveHistory.push(move);
+        pushState(Move.NULL_MOVE);
+        this.zobristKey ^= Zobrist.getEnPassantKey(this.enPassantFlag) ^ Zobrist.SIDE_TO_MOVE;
+        this.enPassantFlag = 0L;
+        this.halfMoveClock = 0;
         this.isWhiteTurn = !this.isWhiteTurn;
-        updateCheckInformation();
+        this.kingInCheck = false;
+        this.kingInDoubleCheck = false;
+        this.criticalAttacksOnKing = 0L;
+        this.criticalAttackers = 0L;
+        this.checkInformationValid = true;
+        this.oppositionAttacksValid = false;
     }
 
     /**
      *  undo-s the latest move on the move stack
+     *  pieces are moved back and the saved irreversible state is restored exactly, no recomputation is needed
      */
     public void undoMove() {
-        Move previousMove = this.moveHistory.pop();
-        this.enPassantFlag = previousMove.getEnPassantFlag();
+        this.ply--;
+        int move = this.moveHistory[this.ply];
 
-        // undo the move itself
-        if (!previousMove.getIsNullMove()) undoHelper(previousMove.getMovingPiece(), previousMove.getMove());
+        if (!Move.getIsNullMove(move)) {
+            int from = Move.getFrom(move), to = Move.getTo(move);
+            int pieceIndex = Move.getMovingPiece(move), capturedIndex = Move.getCapturedPiece(move), promotion = Move.getPromotion(move);
 
-        // undo capture
-        if (previousMove.getIsCapture()) undoHelper(previousMove.getCapturedPiece(), previousMove.getCapturedPiecePosition());
+            // undo castling
+            if (Move.getIsCastle(move)) undoHelper(Move.getRookCode(move), Move.getRookMove(move));
 
-        // undo promotion
+            // undo the move itself, including promotion
+            if (promotion == Piece.NONE) {
+                undoHelper(pieceIndex, (1L << from) | (1L << to));
+            } else {
+                undoHelper(promotion, 1L << to);
+                undoHelper(pieceIndex, 1L << from);
+            }
 
-        // undo castling
-        if (previousMove.getIsCastle()) undoHelper(previousMove.getRookCode(), previousMove.getRookMove());
+            // undo capture
+            if (capturedIndex != Piece.NONE) undoHelper(capturedIndex, Move.getCapturedPiecePosition(move));
+        }
 
-        // update game states
+        // update game states, pieces were already XORed out of the key when they were toggled back
+        long currentEnPassantFlag = this.enPassantFlag;
+        int currentCastlingRights = this.castlingRights;
+        unpackState(this.stateHistory[this.ply]);
+        this.zobristKey ^= Zobrist.getEnPassantKey(currentEnPassantFlag) ^ Zobrist.getEnPassantKey(this.enPassantFlag)
+            ^ Zobrist.CASTLING_RIGHTS[currentCastlingRights] ^ Zobrist.CASTLING_RIGHTS[this.castlingRights]
+            ^ Zobrist.SIDE_TO_MOVE;
+        this.criticalAttacksOnKing = this.attacksOnKingHistory[this.ply];
+        this.criticalAttackers = this.attackersHistory[this.ply];
+        this.oppositionAttacks = this.oppositionAttacksHistory[this.ply];
         this.isWhiteTurn = !this.isWhiteTurn;
-        updateCheckInformation();
     }
 
-    private void undoHelper(char pieceCode, long move) { bitboards.put(pieceCode, bitboards.get(pieceCode) | move); }
+    private void undoHelper(int pieceIndex, long move) { togglePieces(pieceIndex, move); }
+
+    /**
+     * drops the undo slots before the last pawn move or capture, which repetition detection never reads, so that a long game
+     * leaves room for the search. at most MAX_HISTORY / 2 plies are kept, repetitions further back are not detected
+     * moves made before the kept plies can no longer be undone
+     */
+    public void compactHistory() {
+        int keep = Math.min(this.ply, Math.min(this.halfMoveClock, MAX_HISTORY / 2));
+        int dropped = this.ply - keep;
+        if (dropped == 0) return;
+        System.arraycopy(this.moveHistory, dropped, this.moveHistory, 0, keep);
+        System.arraycopy(this.stateHistory, dropped, this.stateHistory, 0, keep);
+        System.arraycopy(this.attacksOnKingHistory, dropped, this.attacksOnKingHistory, 0, keep);
+        System.arraycopy(this.attackersHistory, dropped, this.attackersHistory, 0, keep);
+        System.arraycopy(this.oppositionAttacksHistory, dropped, this.oppositionAttacksHistory, 0, keep);
+        System.arraycopy(this.keyHistory, dropped, this.keyHistory, 0, keep);
+        this.ply = keep;
+    }
+
+    /**
+     * saves the move and the irreversible state before it in the next undo slot
+     * @param move  int of packed move about to be made
+     * @throws IllegalStateException if all MAX_HISTORY undo slots are used, see compactHistory
+     */
+    private void pushState(int move) {
+        if (this.ply == MAX_HISTORY) throw new IllegalStateException("move history full after " + MAX_HISTORY + " plies");
+        this.moveHistory[this.ply] = move;
+        this.stateHistory[this.ply] = packState();
+        this.attacksOnKingHistory[this.ply] = this.criticalAttacksOnKing;
+        this.attackersHistory[this.ply] = this.criticalAttackers;
+        this.oppositionAttacksHistory[this.ply] = this.oppositionAttacks;
+        this.keyHistory[this.ply] = this.zobristKey;
+        this.ply++;
+    }
+
+    /**
+     * @return  long of packed irreversible state (castling rights, en passant square, move clocks, check flags)
+     */
+    private long packState() {
+        long enPassantSquare = (this.enPassantFlag == 0L) ? 0L : Long.numberOfTrailingZeros(this.enPassantFlag) + 1;
+        return this.castlingRights
+            | (enPassantSquare << STATE_EN_PASSANT_SHIFT)
+            | ((long) this.halfMoveClock << STATE_HALF_MOVE_SHIFT)
+            | ((long) this.fullMoveClock << STATE_FULL_MOVE_SHIFT)
+            | ((this.kingInCheck) ? 1L << STATE_CHECK_SHIFT : 0L)
+            | ((this.kingInDoubleCheck) ? 1L << STATE_DOUBLE_CHECK_SHIFT : 0L)
+            | ((this.checkInformationValid) ? 1L << STATE_CHECK_VALID_SHIFT : 0L)
+            | ((this.oppositionAttacksValid) ? 1L << STATE_ATTACKS_VALID_SHIFT : 0L);
+    }
+
+    /**
+     * @param state long of packed irreversible state to restore
+     */
+    private void unpackState(long state) {
+        this.castlingRights = (int) (state & 0xF);
+        int enPassantSquare = (int) ((state >>> STATE_EN_PASSANT_SHIFT) & 0x7F);
+        this.enPassantFlag = (enPassantSquare == 0) ? 0L : 1L << (enPassantSquare - 1);
+        this.halfMoveClock = (int) ((state >>> STATE_HALF_MOVE_SHIFT) & 0xFFFF);
+        this.fullMoveClock = (int) ((state >>> STATE_FULL_MOVE_SHIFT) & 0xFFFFF);
+        this.kingInCheck = ((state >>> STATE_CHECK_SHIFT) & 1L) != 0L;
+        this.kingInDoubleCheck = ((state >>> STATE_DOUBLE_CHECK_SHIFT) & 1L) != 0L;
+        this.checkInformationValid = ((state >>> STATE_CHECK_VALID_SHIFT) & 1L) != 0L;
+        this.oppositionAttacksValid = ((state >>> STATE_ATTACKS_VALID_SHIFT) & 1L) != 0L;
+    }
 
     /**
-     *  updates king information by recomputing attacking squares
+     * toggles the given positions on a piece bitboard and keeps the cached occupancy boards, the Zobrist key and the evaluation sums in sync
+     * moves, captures and their undos are all the same toggle, since the toggled squares are always disjoint from the other boards
+     * @param pieceIndex    int piece index (see Piece)
+     * @param positions     long of positions to toggle
+     */
+    private void togglePieces(int pieceIndex, long positions) {
+        this.bitboards[pieceIndex] ^= positions;
+        if (Piece.isWhite(pieceIndex)) {
+            this.whiteBitboard ^= positions;
+        } else {
+            this.blackBitboard ^= positions;
+        }
+        this.fullBitboard ^= positions;
+        for (; positions != 0L; positions = PCMBB.popLowestPosition(positions)) {
+            int square = PCMBB.getLowestSquare(positions);
+            this.zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+            // the piece was added if its bit is now set, removed otherwise
+            if ((this.bitboards[pieceIndex] & PCMBB.getLowestPosition(positions)) != 0L) {
+                this.midgameScore += Evaluation.MIDGAME_TABLE[pieceIndex][square];
+                this.endgameScore += Evaluation.ENDGAME_TABLE[pieceIndex][square];
+                this.gamePhase += Evaluation.PHASE_TABLE[pieceIndex];
+            } else {
+                this.midgameScore -= Evaluation.MIDGAME_TABLE[pieceIndex][square];
+                this.endgameScore -= Evaluation.ENDGAME_TABLE[pieceIndex][square];
+                this.gamePhase -= Evaluation.PHASE_TABLE[pieceIndex];
+            }
+        }
+    }
+
+    /**
+     *  marks the cached attack information as stale after the position changed
+     */
+    private void invalidateAttackInformation() {
+        this.checkInformationValid = false;
+        this.oppositionAttacksValid = false;
+    }
+
+    /**
+     *  updates king information from the pieces attacking the king square
      */
     private void updateCheckInformation() {
-        long[] attackInformation = MoveHandler.generateAllAttackingSquares(this, true);
-        this.kingInCheck = attackInformation[1] != 0L;
-        this.kingInDoubleCheck = attackInformation[3] > 1L;
-        this.criticalAttacksOnKing = attackInformation[1];
-        this.criticalAttackers = attackInformation[2];
+        long kingPosition = this.bitboards[(this.isWhiteTurn) ? Piece.WHITE_KING : Piece.BLACK_KING];
+        long checkers = 0L, attacksOnKing = 0L;
+        if (kingPosition != 0L) {
+            int kingSquare = Long.numberOfTrailingZeros(kingPosition);
+            checkers = attackersTo(kingSquare, this.fullBitboard) & getDiffColouredBoard(this.isWhiteTurn);
+            // squares between a sliding checker and the king, knight and pawn checks have none
+            for (long pieces = checkers; pieces != 0L; pieces = PCMBB.popLowestPosition(pieces)) {
+                attacksOnKing |= PCMBB.BETWEEN[kingSquare][PCMBB.getLowestSquare(pieces)];
+            }
+            if (checkers != 0L) attacksOnKing |= kingPosition;
+        }
+        this.kingInCheck = checkers != 0L;
+        this.kingInDoubleCheck = Long.bitCount(checkers) > 1;
+        this.criticalAttacksOnKing = attacksOnKing;
+        this.criticalAttackers = checkers;
+        this.checkInformationValid = true;
     }
 }
@@ -0,0 +1,369 @@
+package Engine;
+
+public class Evaluation {
+
+    /**
+     * static evaluation of chessboard positions, in centipawns from the view of the side to move
+     *
+     * tapered evaluation: every piece has a midgame and an endgame value (material + piece-square bonus), and the game phase
+     * (remaining minor and major pieces) blends the two sums. GAME_PHASE_TOTAL is the phase of the starting position
+     *
+     * the sums and the phase are kept by the chessboard and updated on every piece toggle (see Chessboard.togglePieces),
+     * so evaluating a position is a blend of three ints instead of a scan of the bitboards
+     *
+     * pawn structure (passed, doubled, isolated and backward pawns, and pawn shields of the castled king) depends only on the
+     * pawn bitboards, and is cached by pawn skeleton in a PawnHashTable
+     */
+
+    // piece values indexed by piece type (see Piece), the king is never traded so it has no value
+    public static final int[] PIECE_VALUES = new int[] { 0, 900, 500, 330, 320, 100 };
+
+    private static final int[] MIDGAME_VALUES = new int[] { 0, 1025, 477, 365, 337, 82 };
+    private static final int[] ENDGAME_VALUES = new int[] { 0, 936, 512, 297, 281, 94 };
+    private static final int[] PHASE_WEIGHTS = new int[] { 0, 4, 2, 1, 1, 0 };
+    public static final int GAME_PHASE_TOTAL = 24;
+
+    /**
+     * piece-square bonuses of white pieces, from a8 to h8 down to a1 to h1 (as seen from white). black uses the mirrored square
+     */
+    private static final int[][] MIDGAME_SQUARE_BONUS = new int[][] {
+        // king
+        {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20,
+        },
+        // queen
+        {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+        },
+        // rook
+        {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0,
+        },
+        // bishop
+        {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+        },
+        // knight
+        {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+        },
+        // pawn
+        {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+        },
+    };
+
+    // endgame bonuses differ only for the king (centralise) and pawns (advance), other pieces use the midgame bonuses
+    private static final int[] ENDGAME_KING_SQUARE_BONUS = new int[] {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] ENDGAME_PAWN_RANK_BONUS = new int[] { 0, 0, 5, 10, 20, 35, 60, 0 };
+
+    /**
+     * midgame and endgame values of every piece on every square, indexed by piece index and square (see Piece)
+     * values of black pieces are negative, so that the sums are from the view of white
+     */
+    public static final int[][] MIDGAME_TABLE = new int[Piece.COUNT][64];
+    public static final int[][] ENDGAME_TABLE = new int[Piece.COUNT][64];
+    public static final int[] PHASE_TABLE = new int[Piece.COUNT];
+
+    static {
+        for (int pieceType = Piece.KING; pieceType <= Piece.PAWN; pieceType++) {
+            for (int square = 0; square < 64; square++) {
+                // the tables are laid out from rank 8 down, so white reads them with the rank flipped
+                int whiteIndex = square ^ 56, blackIndex = square;
+                int whiteRank = square >>> 3, blackRank = 7 - whiteRank;
+                MIDGAME_TABLE[pieceType + Piece.WHITE_OFFSET][square] = MIDGAME_VALUES[pieceType] + MIDGAME_SQUARE_BONUS[pieceType][whiteIndex];
+                MIDGAME_TABLE[pieceType + Piece.BLACK_OFFSET][square] = -MIDGAME_VALUES[pieceType] - MIDGAME_SQUARE_BONUS[pieceType][blackIndex];
+                ENDGAME_TABLE[pieceType + Piece.WHITE_OFFSET][square] = ENDGAME_VALUES[pieceType] + getEndgameBonus(pieceType, whiteIndex, whiteRank);
+                ENDGAME_TABLE[pieceType + Piece.BLACK_OFFSET][square] = -ENDGAME_VALUES[pieceType] - getEndgameBonus(pieceType, blackIndex, blackRank);
+            }
+            PHASE_TABLE[pieceType + Piece.WHITE_OFFSET] = PHASE_WEIGHTS[pieceType];
+            PHASE_TABLE[pieceType + Piece.BLACK_OFFSET] = PHASE_WEIGHTS[pieceType];
+        }
+    }
+
+    // pawn structure terms, from the view of the pawn owner. passed pawn bonuses are indexed by rank of the pawn owner
+    private static final int[] PASSED_PAWN_MIDGAME = new int[] { 0, 5, 10, 15, 25, 40, 60, 0 };
+    private static final int[] PASSED_PAWN_ENDGAME = new int[] { 0, 10, 15, 25, 45, 75, 110, 0 };
+    private static final int DOUBLED_PAWN_MIDGAME = -10, DOUBLED_PAWN_ENDGAME = -20;
+    private static final int ISOLATED_PAWN_MIDGAME = -15, ISOLATED_PAWN_ENDGAME = -10;
+    private static final int BACKWARD_PAWN_MIDGAME = -8, BACKWARD_PAWN_ENDGAME = -10;
+    // pawn shield of a castled king, per file of the wing: pawn not moved, pawn moved one square, no pawn in front of the king
+    private static final int SHIELD_PAWN_UNMOVED = 10, SHIELD_PAWN_ADVANCED = 5, SHIELD_PAWN_MISSING = -15;
+
+    private static final long FILE_A = PCMBB.getFileMask(0);
+    private static final long FILE_H = PCMBB.getFileMask(7);
+    private static final long QUEEN_SIDE_FILES = PCMBB.getFileMask(0) | PCMBB.getFileMask(1) | PCMBB.getFileMask(2);
+    private static final long KING_SIDE_FILES = PCMBB.getFileMask(5) | PCMBB.getFileMask(6) | PCMBB.getFileMask(7);
+
+    // packed shield scores, 16 bits per wing
+    private static final int WHITE_KING_SIDE_SHIELD = 0, WHITE_QUEEN_SIDE_SHIELD = 16, BLACK_KING_SIDE_SHIELD = 32, BLACK_QUEEN_SIDE_SHIELD = 48;
+
+    /**
+     * @param pieceType     int of piece type
+     * @param tableIndex    int of index into the piece-square tables
+     * @param rank          int of rank from the view of the piece owner (0 to 7)
+     * @return              int of endgame piece-square bonus
+     */
+    private static int getEndgameBonus(int pieceType, int tableIndex, int rank) {
+        if (pieceType == Piece.KING) return ENDGAME_KING_SQUARE_BONUS[tableIndex];
+        if (pieceType == Piece.PAWN) return ENDGAME_PAWN_RANK_BONUS[rank];
+        return MIDGAME_SQUARE_BONUS[pieceType][tableIndex];
+    }
+
+    /**
+     * @param chessboard    Chessboard of position to evaluate
+     * @return              int of score of the position for the side to move
+     */
+    public static int evaluate(Chessboard chessboard) {
+        int score = blend(chessboard.getMidgameScore(), chessboard.getEndgameScore(), chessboard.getGamePhase());
+        return (chessboard.getIsWhiteTurn()) ? score : -score;
+    }
+
+    /**
+     * evaluation used by the search: the incremental piece sums plus the cached pawn structure
+     * @param chessboard    Chessboard of position to evaluate
+     * @param pawnHashTable PawnHashTable of cached pawn structure scores
+     * @return              int of score of the position for the side to move
+     */
+    public static int evaluate(Chessboard chessboard, PawnHashTable pawnHashTable) {
+        long whitePawns = chessboard.getPiecesPosition(Piece.WHITE_PAWN);
+        long blackPawns = chessboard.getPiecesPosition(Piece.BLACK_PAWN);
+        int index = pawnHashTable.getIndex(whitePawns, blackPawns);
+        if (!pawnHashTable.probe(index, whitePawns, blackPawns)) {
+            pawnHashTable.store(index, whitePawns, blackPawns, evaluatePawns(whitePawns, blackPawns), evaluateShields(whitePawns, blackPawns));
+        }
+        int pawnScore = pawnHashTable.getScore(index);
+        long shields = pawnHashTable.getShields(index);
+        // the shield only counts for a king on a wing, and only in the midgame
+        int midgameScore = chessboard.getMidgameScore() + unpackMidgame(pawnScore)
+            + getShield(shields, chessboard.getPiecesPosition(Piece.WHITE_KING), WHITE_KING_SIDE_SHIELD, WHITE_QUEEN_SIDE_SHIELD)
+            - getShield(shields, chessboard.getPiecesPosition(Piece.BLACK_KING), BLACK_KING_SIDE_SHIELD, BLACK_QUEEN_SIDE_SHIELD);
+        int endgameScore = chessboard.getEndgameScore() + unpackEndgame(pawnScore);
+        int score = blend(midgameScore, endgameScore, chessboard.getGamePhase());
+        return (chessboard.getIsWhiteTurn()) ? score : -score;
+    }
+
+    /**
+     * @param shields       long of packed shield scores
+     * @param king          long of king position
+     * @param kingSideShift int of shift of the king side shield
+     * @param queenSideShift int of shift of the queen side shield
+     * @return              int of shield score of the wing of the king, 0 for a king in the centre
+     */
+    private static int getShield(long shields, long king, int kingSideShift, int queenSideShift) {
+        if ((king & KING_SIDE_FILES) != 0L) return (short) (shields >>> kingSideShift);
+        if ((king & QUEEN_SIDE_FILES) != 0L) return (short) (shields >>> queenSideShift);
+        return 0;
+    }
+
+    /**
+     * evaluates passed, doubled, isolated and backward pawns of both sides
+     * spans are built by filling pawn pushes and pawn attacks (see PCMBB.getPawnAttacks) towards the promotion rank
+     * @param whitePawns    long of white pawn bitboard
+     * @param blackPawns    long of black pawn bitboard
+     * @return              int of packed score (see packScore) from the view of white
+     */
+    public static int evaluatePawns(long whitePawns, long blackPawns) {
+        int midgameScore = 0, endgameScore = 0;
+        long whiteAttacks = ((whitePawns & ~FILE_A) << 7) | ((whitePawns & ~FILE_H) << 9);
+        long blackAttacks = ((blackPawns & ~FILE_A) >>> 9) | ((blackPawns & ~FILE_H) >>> 7);
+
+        for (long pawns = whitePawns; pawns != 0L; pawns = PCMBB.popLowestPosition(pawns)) {
+            int square = PCMBB.getLowestSquare(pawns);
+            long position = PCMBB.getLowestPosition(pawns);
+            long frontSpan = northFill(position << 8);
+            long attackSpan = northFill(PCMBB.getPawnAttacks(square, true));
+            long neighbours = ((position & ~FILE_A) >>> 1) | ((position & ~FILE_H) << 1);
+            long adjacentFiles = fileFill(neighbours);
+            if (((frontSpan | attackSpan) & blackPawns) == 0L) {
+                midgameScore += PASSED_PAWN_MIDGAME[square >>> 3];
+                endgameScore += PASSED_PAWN_ENDGAME[square >>> 3];
+            }
+            if ((frontSpan & whitePawns) != 0L) {
+                midgameScore += DOUBLED_PAWN_MIDGAME;
+                endgameScore += DOUBLED_PAWN_ENDGAME;
+            }
+            if ((adjacentFiles & whitePawns) == 0L) {
+                midgameScore += ISOLATED_PAWN_MIDGAME;
+                endgameScore += ISOLATED_PAWN_ENDGAME;
+            } else if ((southFill(neighbours) & whitePawns) == 0L && ((position << 8) & blackAttacks) != 0L) {
+                // no pawn on an adjacent file, level with it or behind it, can support it, and its stop square is controlled by an enemy pawn
+                midgameScore += BACKWARD_PAWN_MIDGAME;
+                endgameScore += BACKWARD_PAWN_ENDGAME;
+            }
+        }
+
+        for (long pawns = blackPawns; pawns != 0L; pawns = PCMBB.popLowestPosition(pawns)) {
+            int square = PCMBB.getLowestSquare(pawns);
+            long position = PCMBB.getLowestPosition(pawns);
+            long frontSpan = southFill(position >>> 8);
+            long attackSpan = southFill(PCMBB.getPawnAttacks(square, false));
+            long neighbours = ((position & ~FILE_A) >>> 1) | ((position & ~FILE_H) << 1);
+            long adjacentFiles = fileFill(neighbours);
+            if (((frontSpan | attackSpan) & whitePawns) == 0L) {
+                midgameScore -= PASSED_PAWN_MIDGAME[7 - (square >>> 3)];
+                endgameScore -= PASSED_PAWN_ENDGAME[7 - (square >>> 3)];
+            }
+            if ((frontSpan & blackPawns) != 0L) {
+                midgameScore -= DOUBLED_PAWN_MIDGAME;
+                endgameScore -= DOUBLED_PAWN_ENDGAME;
+            }
+            if ((adjacentFiles & blackPawns) == 0L) {
+                midgameScore -= ISOLATED_PAWN_MIDGAME;
+                endgameScore -= ISOLATED_PAWN_ENDGAME;
+            } else if ((northFill(neighbours) & blackPawns) == 0L && ((position >>> 8) & whiteAttacks) != 0L) {
+                midgameScore -= BACKWARD_PAWN_MIDGAME;
+                endgameScore -= BACKWARD_PAWN_ENDGAME;
+            }
+        }
+        return packScore(midgameScore, endgameScore);
+    }
+
+    /**
+     * evaluates the pawn shields of both wings of both sides, so that the cached entry serves any king position
+     * @param whitePawns    long of white pawn bitboard
+     * @param blackPawns    long of black pawn bitboard
+     * @return              long of shield scores, 16 bits per wing (WHITE_KING_SIDE_SHIELD, ...)
+     */
+    public static long evaluateShields(long whitePawns, long blackPawns) {
+        long shields = 0L;
+        shields |= (evaluateShield(whitePawns, 5, 1, 1) & 0xFFFFL) << WHITE_KING_SIDE_SHIELD;
+        shields |= (evaluateShield(whitePawns, 0, 1, 1) & 0xFFFFL) << WHITE_QUEEN_SIDE_SHIELD;
+        shields |= (evaluateShield(blackPawns, 5, 6, -1) & 0xFFFFL) << BLACK_KING_SIDE_SHIELD;
+        shields |= (evaluateShield(blackPawns, 0, 6, -1) & 0xFFFFL) << BLACK_QUEEN_SIDE_SHIELD;
+        return shields;
+    }
+
+    /**
+     * @param pawns         long of pawn bitboard of the king owner
+     * @param firstFile     int of first of the three files of the wing
+     * @param homeRank      int of rank of unmoved pawns
+     * @param forward       int of rank direction of pawn pushes
+     * @return              int of shield score of the wing
+     */
+    private static int evaluateShield(long pawns, int firstFile, int homeRank, int forward) {
+        int score = 0;
+        for (int file = firstFile; file < firstFile + 3; file++) {
+            if ((pawns & (1L << (homeRank * 8 + file))) != 0L) score += SHIELD_PAWN_UNMOVED;
+            else if ((pawns & (1L << ((homeRank + forward) * 8 + file))) != 0L) score += SHIELD_PAWN_ADVANCED;
+            else score += SHIELD_PAWN_MISSING;
+        }
+        return score;
+    }
+
+    private static long northFill(long positions) {
+        positions |= positions << 8;
+        positions |= positions << 16;
+        return positions | (positions << 32);
+    }
+
+    private static long southFill(long positions) {
+        positions |= positions >>> 8;
+        positions |= positions >>> 16;
+        return positions | (positions >>> 32);
+    }
+
+    private static long fileFill(long positions) { return northFill(positions) | southFill(positions); }
+
+    /**
+     * packs a midgame and an endgame score into one int, the endgame score in the low 16 bits
+     * packed scores can be added and subtracted directly
+     * @param midgameScore  int of midgame score
+     * @param endgameScore  int of endgame score
+     * @return              int of packed score
+     */
+    public static int packScore(int midgameScore, int endgameScore) { return (midgameScore << 16) + endgameScore; }
+
+    /**
+     * @param score int of packed score
+     * @return      int of midgame score
+     */
+    public static int unpackMidgame(int score) { return (score + 0x8000) >> 16; }
+
+    /**
+     * @param score int of packed score
+     * @return      int of endgame score
+     */
+    public static int unpackEndgame(int score) { return (short) score; }
+
+    /**
+     * evaluates a position by scanning every bitboard. used to verify the incremental sums
+     * @param chessboard    Chessboard of position to evaluate
+     * @return              int of score of the position for the side to move
+     */
+    public static int evaluateFromScratch(Chessboard chessboard) {
+        int midgameScore = 0, endgameScore = 0, phase = 0;
+        for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) {
+            for (long pieces = chessboard.getPiecesPosition(pieceIndex); pieces != 0L; pieces = PCMBB.popLowestPosition(pieces)) {
+                int square = PCMBB.getLowestSquare(pieces);
+                midgameScore += MIDGAME_TABLE[pieceIndex][square];
+                endgameScore += ENDGAME_TABLE[pieceIndex][square];
+                phase += PHASE_TABLE[pieceIndex];
+            }
+        }
+        int score = blend(midgameScore, endgameScore, phase);
+        return (chessboard.getIsWhiteTurn()) ? score : -score;
+    }
+
+    /**
+     * @param midgameScore  int of midgame sum from the view of white
+     * @param endgameScore  int of endgame sum from the view of white
+     * @param phase         int of game phase, more than GAME_PHASE_TOTAL after early promotions
+     * @return              int of blended score from the view of white
+     */
+    private static int blend(int midgameScore, int endgameScore, int phase) {
+        int midgamePhase = Math.min(phase, GAME_PHASE_TOTAL);
+        return (midgameScore * midgamePhase + endgameScore * (GAME_PHASE_TOTAL - midgamePhase)) / GAME_PHASE_TOTAL;
+    }
+}
@@ -0,0 +1,114 @@
+package Engine;
+
+public class FixedMagicAttacks extends SlidingAttacks {
+
+    /**
+     * magic bitboards with fixed shifts
+     * for rooks (horizontal and vertical sliding moves) and bishops (diagonal)
+     * queen moves are derived by generating both rook and bishop moves, and taking the bitwiseOR of the results
+     * the idea is that there is a series of transformations that you can modify to an occupancy mask, which then returns you all possible moves for the given position
+     * transformation: ((occupancy & mask) * magicNumber) >>> bitshift
+     * when we want to retrieve all moves, we only need two information: square the piece is on, and the occupancy of other pieces around it
+     */
+    private static final int[] BIT_TABLE = new int[] {
+        63, 0, 58, 1, 59, 47, 53, 2,
+        60, 39, 48, 27, 54, 33, 42, 3,
+        61, 51, 37, 40, 49, 18, 28, 20,
+        55, 30, 34, 11, 43, 14, 22, 4,
+        62, 57, 46, 52, 38, 26, 32, 41,
+        50, 36, 17, 19, 29, 10, 13, 21,
+        56, 45, 25, 31, 35, 16, 9, 12,
+        44, 24, 15, 8, 23, 7, 6, 5
+    };
+    public static final long[] ROOK_MAGIC = {
+        0x0080001020400080L, 0x0040001000200040L, 0x0080081000200080L, 0x0080040800100080L, 0x0080020400080080L, 0x0080010200040080L, 0x0080008001000200L, 0x0080002040800100L,
+        0x0000800020400080L, 0x0000400020005000L, 0x0000801000200080L, 0x0000800800100080L, 0x0000800400080080L, 0x0000800200040080L, 0x0000800100020080L, 0x0000800040800100L,
+        0x0000208000400080L, 0x0000404000201000L, 0x0000808010002000L, 0x0000808008001000L, 0x0000808004000800L, 0x0000808002000400L, 0x0000010100020004L, 0x0000020000408104L,
+        0x0000208080004000L, 0x0000200040005000L, 0x0000100080200080L, 0x0000080080100080L, 0x0000040080080080L, 0x0000020080040080L, 0x0000010080800200L, 0x0000800080004100L,
+        0x0000204000800080L, 0x0000200040401000L, 0x0000100080802000L, 0x0000080080801000L, 0x0000040080800800L, 0x0000020080800400L, 0x0000020001010004L, 0x0000800040800100L,
+        0x0000204000808000L, 0x0000200040008080L, 0x0000100020008080L, 0x0000080010008080L, 0x0000040008008080L, 0x0000020004008080L, 0x0000010002008080L, 0x0000004081020004L,
+        0x0000204000800080L, 0x0000200040008080L, 0x0000100020008080L, 0x0000080010008080L, 0x0000040008008080L, 0x0000020004008080L, 0x0000800100020080L, 0x0000800041000080L,
+        0x0000102040800101L, 0x0000102040008101L, 0x0000081020004101L, 0x0000040810002101L, 0x0001000204080011L, 0x0001000204000801L, 0x0001000082000401L, 0x0000002040810402L
+    };
+    public static final long[] BISHOP_MAGIC = {
+        0x0002020202020200L, 0x0002020202020000L, 0x0004010202000000L, 0x0004040080000000L, 0x0001104000000000L, 0x0000821040000000L, 0x0000410410400000L, 0x0000104104104000L,
+        0x0000040404040400L, 0x0000020202020200L, 0x0000040102020000L, 0x0000040400800000L, 0x0000011040000000L, 0x0000008210400000L, 0x0000004104104000L, 0x0000002082082000L,
+        0x0004000808080800L, 0x0002000404040400L, 0x0001000202020200L, 0x0000800802004000L, 0x0000800400A00000L, 0x0000200100884000L, 0x0000400082082000L, 0x0000200041041000L,
+        0x0002080010101000L, 0x0001040008080800L, 0x0000208004010400L, 0x0000404004010200L, 0x0000840000802000L, 0x0000404002011000L, 0x0000808001041000L, 0x0000404000820800L,
+        0x0001041000202000L, 0x0000820800101000L, 0x0000104400080800L, 0x0000020080080080L, 0x0000404040040100L, 0x0000808100020100L, 0x0001010100020800L, 0x0000808080010400L,
+        0x0000820820004000L, 0x0000410410002000L, 0x0000082088001000L, 0x0000002011000800L, 0x0000080100400400L, 0x0001010101000200L, 0x0002020202000400L, 0x0001010101000200L,
+        0x0000410410400000L, 0x0000208208200000L, 0x0000002084100000L, 0x0000000020880000L, 0x0000001002020000L, 0x0000040408020000L, 0x0004040404040000L, 0x0002020202020000L,
+        0x0000104104104000L, 0x0000002082082000L, 0x0000000020841000L, 0x0000000000208800L, 0x0000000010020200L, 0x0000000404080200L, 0x0000040404040400L, 0x0002020202020200L
+    };
+
+    private final long[][] rookAttackBoard;
+    private final long[][] bishopAttackBoard;
+
+    public FixedMagicAttacks() {
+        // attack boards are of different permuations
+        // rooks have 4096 permutations of occupancies for each square, 512 for bishops
+        this.rookAttackBoard = fillAttackBoards(false);
+        this.bishopAttackBoard = fillAttackBoards(true);
+    }
+
+    @Override
+    public String getName() { return FIXED_MAGIC; }
+
+    @Override
+    public long getTableBytes() { return 64L * (4096 + 512) * Long.BYTES; }
+
+    @Override
+    public long getRookAttacks(int square, long occupancy) {
+        return this.rookAttackBoard[square][(int) (((occupancy & PCMBB.ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> 52)];
+    }
+
+    @Override
+    public long getBishopAttacks(int square, long occupancy) {
+        return this.bishopAttackBoard[square][(int) (((occupancy & PCMBB.BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> 55)];
+    }
+
+    /**
+     * @param isBishop  boolean of whether we are generating the bishop attack board
+     * @return          long[64][] attack board
+     */
+    private static long[][] fillAttackBoards(boolean isBishop) {
+        long[][] attackBoard = (isBishop) ? new long[64][512] : new long[64][4096];
+        int[] squares = new int[64];
+        int numSquares;
+        for (int i = 0; i < 64; ++i) {
+            numSquares = 0;
+            long temp = (isBishop) ? PCMBB.BISHOP_MASK[i] : PCMBB.ROOK_MASK[i];
+            // essentially trialing for every permutation of bits in temp
+            // based on some masking sequence, set the number of important bits for each square
+            while (temp != 0) {
+                final long bit = (temp & -temp);
+                squares[numSquares++] = BIT_TABLE[(int) ((bit * 0x07EDD5E59A4E28C2L) >>> 58)];
+                temp ^= bit;
+            }
+            // when temp == 0, 1 << numSquares is the number of permutations of different occupancies since 1 bit is popped off temp each round
+            for (temp = 0; temp < (1L << numSquares); ++temp) {
+                final long tempOccupancy = setOccupancy(squares, numSquares, temp);
+                if (isBishop) {
+                    attackBoard[i][(int) ((tempOccupancy * BISHOP_MAGIC[i]) >>> 55)] = PCMBB.findBishopMove(i, tempOccupancy);
+                } else {
+                    attackBoard[i][(int) ((tempOccupancy * ROOK_MAGIC[i]) >>> 52)] = PCMBB.findRookMove(i, tempOccupancy);
+                }
+            }
+        }
+        return attackBoard;
+    }
+
+    /**
+     * @param squares       int[] of important bits at each square
+     * @param squareNumber  int of total number of important squares
+     * @param mask          long some permutation of the board occupancy
+     * @return              long of the important bits based on the occupancy and important squares
+     */
+    private static long setOccupancy(int[] squares, int squareNumber, long mask) {
+        long ret = 0L;
+        for (int i = 0; i < squareNumber; ++i)
+            if ((mask & (1L << i)) != 0)
+                ret |= 1L << squares[i];
+        return ret;
+    }
+}
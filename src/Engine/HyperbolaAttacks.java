@@ -0,0 +1,60 @@
+package Engine;
+
+public class HyperbolaAttacks extends SlidingAttacks {
+
+    /**
+     * table-free sliding attacks with hyperbola quintessence
+     * for a slider s and the blockers o on one line (the slider itself excluded), o - 2s flips the bits from s up to and
+     * including the first blocker above s, which are the attacks in the positive direction. the same subtraction on the
+     * bit-reversed board gives the attacks in the negative direction, and the XOR of both, masked to the line, gives all of them
+     * Long.reverse mirrors files as well as ranks, so the subtraction also works along ranks
+     *
+     * only the four line masks of each square are stored (2 KB), which stay in L1 where the magic tables do not
+     */
+    private final long[] fileMask = new long[64];
+    private final long[] rankMask = new long[64];
+    private final long[] diagonalMask = new long[64];
+    private final long[] antiDiagonalMask = new long[64];
+
+    public HyperbolaAttacks() {
+        for (int square = 0; square < 64; square++) {
+            long position = 1L << square;
+            int rank = square >>> 3, file = square & 7;
+            this.fileMask[square] = PCMBB.getFileMask(file) & ~position;
+            this.rankMask[square] = PCMBB.getRankMask(rank) & ~position;
+            this.diagonalMask[square] = PCMBB.TOP_RIGHT_DIAGONAL[square] & ~position;
+            this.antiDiagonalMask[square] = PCMBB.TOP_LEFT_DIAGONAL[square] & ~position;
+        }
+    }
+
+    @Override
+    public String getName() { return HYPERBOLA; }
+
+    @Override
+    public long getTableBytes() { return 4L * 64 * Long.BYTES; }
+
+    @Override
+    public long getRookAttacks(int square, long occupancy) {
+        long position = 1L << square;
+        return lineAttacks(occupancy, this.fileMask[square], position) | lineAttacks(occupancy, this.rankMask[square], position);
+    }
+
+    @Override
+    public long getBishopAttacks(int square, long occupancy) {
+        long position = 1L << square;
+        return lineAttacks(occupancy, this.diagonalMask[square], position) | lineAttacks(occupancy, this.antiDiagonalMask[square], position);
+    }
+
+    /**
+     * @param occupancy long of the board
+     * @param lineMask  long of line through the slider, excluding the slider
+     * @param position  long of slider position
+     * @return          long of attacks along the line
+     */
+    private static long lineAttacks(long occupancy, long lineMask, long position) {
+        long blockers = occupancy & lineMask;
+        long forward = blockers - (position << 1);
+        long reverse = Long.reverse(Long.reverse(blockers) - (Long.reverse(position) << 1));
+        return (forward ^ reverse) & lineMask;
+    }
+}
@@ -0,0 +1,146 @@
+package Engine;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class MagicFinder {
+
+    /**
+     * offline search for magic numbers of fancy magic bitboards (see FancyMagicAttacks)
+     * run with: App magics [seed, decimal or 0x hex] [tries per denser square, 0 to skip]
+     *
+     * a magic maps every blocker subset of a square's mask to an index of bits bits, ((blockers * magic) >>> (64 - bits)),
+     * such that subsets with different attacks never share an index. subsets with the same attacks may share one (a
+     * constructive collision), which is what lets a magic use fewer bits than the mask has, and makes the table denser
+     *
+     * candidates are random numbers with few set bits, which are the ones most likely to be magic
+     * for every square the finder first finds a magic for the number of mask bits, then tries one bit less for a budget of
+     * candidates, and prints the magics and bits as Java arrays to paste into FancyMagicAttacks
+     */
+    public static final long DEFAULT_SEED = 0x2545F4914F6CDD1DL;
+    public static final long DEFAULT_DENSER_TRIES = 2000000L;
+    private static final long MAX_TRIES = 100000000L;
+
+    private final long mask;
+    private final long[] occupancies;
+    private final long[] attacks;
+    private final long[] usedAttacks;
+    // epoch of every used slot, so the table does not have to be cleared between candidates
+    private final int[] usedEpoch;
+    private int epoch;
+
+    /**
+     * enumerates the blocker subsets of a square and their attacks
+     * @param square    int of square
+     * @param isBishop  boolean of whether the magic is for a bishop (rook otherwise)
+     */
+    public MagicFinder(int square, boolean isBishop) {
+        this.mask = (isBishop) ? PCMBB.BISHOP_MASK[square] : PCMBB.ROOK_MASK[square];
+        int size = 1 << Long.bitCount(this.mask);
+        this.occupancies = new long[size];
+        this.attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            this.occupancies[i] = subset;
+            this.attacks[i] = (isBishop) ? PCMBB.findBishopMove(square, subset) : PCMBB.findRookMove(square, subset);
+            subset = SlidingAttacks.nextSubset(this.mask, subset);
+        }
+        this.usedAttacks = new long[size];
+        this.usedEpoch = new int[size];
+    }
+
+    /**
+     * @return  int of number of bits of the mask, the table size of a magic without constructive collisions
+     */
+    public int getMaskBits() { return Long.bitCount(this.mask); }
+
+    /**
+     * @param magic long of candidate magic number
+     * @param bits  int of index bits (table size 2^bits)
+     * @return      boolean of whether no two subsets with different attacks share an index
+     */
+    public boolean isMagic(long magic, int bits) {
+        if (++this.epoch == 0) {
+            Arrays.fill(this.usedEpoch, 0);
+            this.epoch = 1;
+        }
+        int shift = 64 - bits;
+        for (int i = 0; i < this.occupancies.length; i++) {
+            int index = (int) ((this.occupancies[i] * magic) >>> shift);
+            if (this.usedEpoch[index] != this.epoch) {
+                this.usedEpoch[index] = this.epoch;
+                this.usedAttacks[index] = this.attacks[i];
+            } else if (this.usedAttacks[index] != this.attacks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param bits      int of index bits (table size 2^bits)
+     * @param random    SplittableRandom of candidate source
+     * @param maxTries  long of maximum number of candidates to try
+     * @return          long of a magic number, 0 if none was found within maxTries
+     */
+    public long findMagic(int bits, SplittableRandom random, long maxTries) {
+        for (long tries = 0L; tries < maxTries; tries++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            // the top bits of the product form the index, a magic that leaves them nearly empty cannot spread the subsets
+            if (Long.bitCount((this.mask * magic) & 0xFF00000000000000L) < 6) continue;
+            if (isMagic(magic, bits)) return magic;
+        }
+        return 0L;
+    }
+
+    /**
+     * finds magics for every square of both pieces and prints them, with the total table size
+     * @param seed          long of random seed, the same seed finds the same magics
+     * @param denserTries   long of candidates tried per square for a magic of one bit less than the mask, 0 to skip
+     */
+    public static void findAllMagics(long seed, long denserTries) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long totalEntries = 0L;
+        for (boolean isBishop : new boolean[] { false, true }) {
+            long[] magics = new long[64];
+            int[] bits = new int[64];
+            int denserSquares = 0;
+            for (int square = 0; square < 64; square++) {
+                MagicFinder finder = new MagicFinder(square, isBishop);
+                bits[square] = finder.getMaskBits();
+                magics[square] = finder.findMagic(bits[square], random, MAX_TRIES);
+                if (magics[square] == 0L) throw new IllegalStateException("no magic found for square ".concat(Integer.toString(square)));
+                long denser = (denserTries > 0L) ? finder.findMagic(bits[square] - 1, random, denserTries) : 0L;
+                if (denser != 0L) {
+                    magics[square] = denser;
+                    bits[square]--;
+                    denserSquares++;
+                }
+                totalEntries += 1L << bits[square];
+            }
+            String piece = (isBishop) ? "BISHOP" : "ROOK";
+            System.out.println("// " + denserSquares + " " + piece.toLowerCase() + " squares one bit denser than their mask");
+            System.out.println(formatArray(piece + "_MAGICS", magics));
+            System.out.println(formatArray(piece + "_BITS", bits));
+        }
+        System.out.println("// table size: " + totalEntries + " entries, " + (totalEntries * Long.BYTES / 1024) + " KB");
+    }
+
+    public static void findAllMagics() { findAllMagics(DEFAULT_SEED, DEFAULT_DENSER_TRIES); }
+
+    private static String formatArray(String name, long[] values) {
+        StringBuilder builder = new StringBuilder("    private static final long[] ").append(name).append(" = {");
+        for (int i = 0; i < values.length; i++) {
+            builder.append((i % 8 == 0) ? "\n        " : " ").append(String.format("0x%016XL", values[i])).append(',');
+        }
+        return builder.append("\n    };").toString();
+    }
+
+    private static String formatArray(String name, int[] values) {
+        StringBuilder builder = new StringBuilder("    private static final byte[] ").append(name).append(" = {");
+        for (int i = 0; i < values.length; i++) {
+            builder.append((i % 8 == 0) ? "\n        " : " ").append(values[i]).append(',');
+        }
+        return builder.append("\n    };").toString();
+    }
+}
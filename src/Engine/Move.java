@@ -1,90 +1,169 @@
 package Engine;
 
-public class Move {
-    private char pieceMoving;
-    private char capturedPiece = ' ';
-    private char rookCode = 'R';
-    private boolean isNullMove;
-    private boolean isCapture = false;
-    private boolean isPromotion = false;
-    private boolean isCastle = false;
-    private long move;
-    private long capturedPiecePosition = 0L;
-    private long enPassantFlag = 0L;
-    private long rookMove = 0L;
-
-    /**
-     * constructor
-     * @param pieceMoving   char of main moving piece
-     * @param move          long of move (starting position | ending position)
-     * @param isNullMove    boolean of whether move is a null (dummy) move
-     */
-    public Move(char pieceMoving, long move, boolean isNullMove) {
-        this.pieceMoving = pieceMoving;
-        this.move = move;
-        this.isNullMove = isNullMove;
-    }
+public final class Move {
 
     /**
-     * set capture information of piece is captured (or en-passant-ed) on move
-     * @param capturedPiece             char of captured piece code
-     * @param capturedPiecePosition     long of captured piece code's position
+     * moves are packed into a single int so that making, storing and undoing a move allocates nothing
+     *
+     * bits  0 -  5: starting square (0 to 63)
+     * bits  6 - 11: ending square (0 to 63)
+     * bits 12 - 15: piece index of moving piece (see Piece)
+     * bits 16 - 19: piece index of captured piece, Piece.NONE if no capture
+     * bits 20 - 23: piece index of promoted piece, Piece.NONE if no promotion
+     * bits 24 - 27: flags (double pawn push, en passant, castle, null move)
+     *
+     * a starting square equal to the ending square never occurs in a real move, so 0 is free to mean "no move"
      */
-    public void setCapture(char capturedPiece, long capturedPiecePosition) {
-        this.isCapture = true;
-        this.capturedPiece = capturedPiece;
-        this.capturedPiecePosition = capturedPiecePosition;
-    }
+    public static final int NONE = 0;
+
+    public static final int FLAG_DOUBLE_PUSH = 1;
+    public static final int FLAG_EN_PASSANT = 2;
+    public static final int FLAG_CASTLE = 4;
+    public static final int FLAG_NULL = 8;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PIECE_MASK = 0xF;
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURE_SHIFT = 16;
+    private static final int PROMOTION_SHIFT = 20;
+    private static final int FLAG_SHIFT = 24;
+
+    // dummy move that only passes the turn
+    public static final int NULL_MOVE = encode(0, 0, Piece.NONE, Piece.NONE, Piece.NONE, FLAG_NULL);
 
-    public void setCastle(char rookCode, long rookMove) {
-        this.isCastle = true;
-        this.rookCode = rookCode;
-        this.rookMove = rookMove;
+    private Move() {}
+
+    /**
+     * @param from          int starting square
+     * @param to            int ending square
+     * @param pieceMoving   int piece index of main moving piece
+     * @param capturedPiece int piece index of captured piece (Piece.NONE if no capture)
+     * @param promotion     int piece index of promoted piece (Piece.NONE if no promotion)
+     * @param flags         int of move flags
+     * @return              int of packed move
+     */
+    public static int encode(int from, int to, int pieceMoving, int capturedPiece, int promotion, int flags) {
+        return from | (to << TO_SHIFT) | (pieceMoving << PIECE_SHIFT) | (capturedPiece << CAPTURE_SHIFT) | (promotion << PROMOTION_SHIFT) | (flags << FLAG_SHIFT);
     }
 
     /**
-     * @param enPassant long of pawn susceptible to en passant
+     * @param move  int of packed move
+     * @return      int of starting square
+     */
+    public static int getFrom(int move) { return move & SQUARE_MASK; }
+
+    /**
+     * @param move  int of packed move
+     * @return      int of ending square
      */
-    public void setEnPassantFlag(long enPassant) { this.enPassantFlag = enPassant; }
+    public static int getTo(int move) { return (move >>> TO_SHIFT) & SQUARE_MASK; }
 
     /**
-     * @return  long of en passant flag at end of current move
+     * @param move  int of packed move
+     * @return      int piece index of piece that moved
      */
-    public long getEnPassantFlag() { return this.enPassantFlag; }
+    public static int getMovingPiece(int move) { return (move >>> PIECE_SHIFT) & PIECE_MASK; }
 
     /**
-     * @return  char of piece that moved
+     * @param move  int of packed move
+     * @return      int piece index of captured piece, Piece.NONE if no capture
      */
-    public char getMovingPiece() { return this.pieceMoving; }
+    public static int getCapturedPiece(int move) { return (move >>> CAPTURE_SHIFT) & PIECE_MASK; }
 
     /**
-     * @return  long of move in bitboard format
+     * @param move  int of packed move
+     * @return      int piece index of promoted piece, Piece.NONE if no promotion
      */
-    public long getMove() { return this.move; }
+    public static int getPromotion(int move) { return (move >>> PROMOTION_SHIFT) & PIECE_MASK; }
 
     /**
-     * @return  boolean of if move involved a capture
+     * @param move  int of packed move
+     * @return      int of move flags
      */
-    public boolean getIsCapture() { return this.isCapture; }
+    public static int getFlags(int move) { return move >>> FLAG_SHIFT; }
 
     /**
-     * @return  char of captured piece
+     * @param move  int of packed move
+     * @return      long of move in bitboard format (starting position | ending position)
      */
-    public char getCapturedPiece() { return this.capturedPiece; }
+    public static long getMove(int move) { return (1L << getFrom(move)) | (1L << getTo(move)); }
 
     /**
-     * @return  long of captured piece position
+     * @param move  int of packed move
+     * @return      boolean of if move involved a capture
      */
-    public long getCapturedPiecePosition() { return this.capturedPiecePosition; }
+    public static boolean getIsCapture(int move) { return getCapturedPiece(move) != Piece.NONE; }
 
     /**
-     * @return  boolean of if move was a dummy move
+     * @param move  int of packed move
+     * @return      long of captured piece position, 0 if no capture
      */
-    public boolean getIsNullMove() { return this.isNullMove; }
+    public static long getCapturedPiecePosition(int move) {
+        if (!getIsCapture(move)) return 0L;
+        int to = getTo(move);
+        if (!getIsEnPassant(move)) return 1L << to;
+        // en passant captures the pawn behind the ending square
+        return (Piece.isWhite(getMovingPiece(move))) ? 1L << (to - 8) : 1L << (to + 8);
+    }
 
-    public boolean getIsCastle() { return this.isCastle; }
+    /**
+     * @param move  int of packed move
+     * @return      boolean of if move is a promotion
+     */
+    public static boolean getIsPromotion(int move) { return getPromotion(move) != Piece.NONE; }
 
-    public char getRookCode() { return this.rookCode; }
+    /**
+     * @param move  int of packed move
+     * @return      boolean of if move is a double pawn push
+     */
+    public static boolean getIsDoublePush(int move) { return (getFlags(move) & FLAG_DOUBLE_PUSH) != 0; }
 
-    public long getRookMove() { return this.rookMove; }
+    /**
+     * @param move  int of packed move
+     * @return      boolean of if move is an en passant capture
+     */
+    public static boolean getIsEnPassant(int move) { return (getFlags(move) & FLAG_EN_PASSANT) != 0; }
+
+    /**
+     * @param move  int of packed move
+     * @return      boolean of if move is a castle
+     */
+    public static boolean getIsCastle(int move) { return (getFlags(move) & FLAG_CASTLE) != 0; }
+
+    /**
+     * @param move  int of packed move
+     * @return      boolean of if move was a dummy move
+     */
+    public static boolean getIsNullMove(int move) { return (getFlags(move) & FLAG_NULL) != 0; }
+
+    /**
+     * @param move  int of packed move
+     * @return      int piece index of the rook moved by a castle
+     */
+    public static int getRookCode(int move) { return Piece.isWhite(getMovingPiece(move)) ? Piece.WHITE_ROOK : Piece.BLACK_ROOK; }
+
+    /**
+     * @param move  int of packed move
+     * @return      long of rook move (starting position | ending position) of a castle, 0 if not a castle
+     */
+    public static long getRookMove(int move) {
+        if (!getIsCastle(move)) return 0L;
+        int to = getTo(move);
+        // king side castle moves the rook from the h file to the f file, queen side from the a file to the d file
+        return (to > getFrom(move)) ? (1L << (to + 1)) | (1L << (to - 1)) : (1L << (to - 2)) | (1L << (to + 1));
+    }
+
+    /**
+     * @param move  int of packed move
+     * @return      String of move in coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        if (getIsNullMove(move)) return "0000";
+        StringBuilder str = new StringBuilder(5);
+        str.append((char) ('a' + (getFrom(move) & 7))).append((char) ('1' + (getFrom(move) >>> 3)));
+        str.append((char) ('a' + (getTo(move) & 7))).append((char) ('1' + (getTo(move) >>> 3)));
+        if (getIsPromotion(move)) str.append(Character.toLowerCase(Piece.getCode(getPromotion(move))));
+        return str.toString();
+    }
 }
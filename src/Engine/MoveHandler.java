@@ -1,5 +1,4 @@
 package Engine;
-import java.util.*;
 
 public class MoveHandler {
 
@@ -17,6 +16,16 @@ public class MoveHandler {
     public static final int[] bishopCompass = new int[] { -7, 7, -9, 9 };
     public static final int[] queenCompass = new int[] { -1, 1, -8, 8, -7, 7, -9, 9 };
 
+    /**
+     *  upper bound of legal moves in any position, size of move buffers
+     */
+    public static final int MAX_MOVES = 256;
+
+    // move generation modes
+    public static final int GENERATE_ALL = 0;
+    public static final int GENERATE_CAPTURES = 1;
+    public static final int GENERATE_QUIETS = 2;
+
     /**
      * @param chessboard    Chessboard object of current chessboard
      * @param userString    String that user has entered that represents the intended move
@@ -80,7 +89,7 @@ public class MoveHandler {
      * @return                  long of knight's moves
      */
     public static long generateKnightMoves(Chessboard chessboard, boolean isWhitePiece, long startingPosition) {
-        return PCMBB.KNIGHT_MOVE_MAP.get(startingPosition);
+        return PCMBB.getKnightMoves(startingPosition);
     }
 
     /**
@@ -113,7 +122,7 @@ public class MoveHandler {
 
         // check for en passant
         long potentialEnPassant = chessboard.getEnPassantFlag();
-        if (PCMBB.RANK_COORDINATES_MAP.get(startingPosition) == PCMBB.RANK_COORDINATES_MAP.get(potentialEnPassant)) {
+        if (potentialEnPassant != 0L && PCMBB.getRankIndex(startingPosition) == PCMBB.getRankIndex(potentialEnPassant)) {
             if ((startingPosition << 1) == potentialEnPassant) {
                 if (isWhitePiece) {
                     potentialAttacks |= (startingPosition << 9);
@@ -142,11 +151,11 @@ public class MoveHandler {
         long fullBoard = chessboard.getFullBitboard();
         switch (pieceCode) {
             case 'b':
-                return PCMBB.getBishopAttacks(PCMBB.BIN_TO_INDEX_MAP.get(startingPosition), fullBoard);
+                return PCMBB.getBishopAttacks(Long.numberOfTrailingZeros(startingPosition), fullBoard);
             case 'r':
-                return PCMBB.getRookAttacks(PCMBB.BIN_TO_INDEX_MAP.get(startingPosition), fullBoard);
+                return PCMBB.getRookAttacks(Long.numberOfTrailingZeros(startingPosition), fullBoard);
             default:
-                return PCMBB.getQueenAttacks(PCMBB.BIN_TO_INDEX_MAP.get(startingPosition), fullBoard);
+                return PCMBB.getQueenAttacks(Long.numberOfTrailingZeros(startingPosition), fullBoard);
         }
     }
 
@@ -194,19 +203,18 @@ public class MoveHandler {
         long allAttacks = 0L, criticalAttacks = 0L, criticalAttackers = 0L;
 
         // obtain king information to check for checks
-        long kingPosition = (isWhitePiece) ? chessboard.getPiecesPosition('k') : chessboard.getPiecesPosition('K');
-        int kingRank = PCMBB.RANK_COORDINATES_MAP.get(kingPosition) - 1, kingFile = PCMBB.FILE_COORDINATES_MAP.get(kingPosition) - 'A';
+        long kingPosition = (isWhitePiece) ? chessboard.getPiecesPosition(Piece.BLACK_KING) : chessboard.getPiecesPosition(Piece.WHITE_KING);
+        int kingRank = PCMBB.getRankIndex(kingPosition), kingFile = PCMBB.getFileIndex(kingPosition);
         long rankMask = PCMBB.getRankMask(kingRank), fileMask = PCMBB.getFileMask(kingFile);
         long topLeftDiagonal = PCMBB.getTopLeftDiagonal(kingRank, kingFile), topRightDiagonal = PCMBB.getTopRightDiagonal(kingRank, kingFile);
-        long[] masks = new long[] { rankMask, fileMask, topLeftDiagonal, topRightDiagonal };
 
         // for checking if double check
         int count = 0;
 
         for (char pieceCode : pieceCodes) {
             long pieces = chessboard.getPiecesPosition(pieceCode);
-            List<Long> piecesPositions = PCMBB.getIndividualPositions(pieces);
-            for (long piece : piecesPositions) {
+            for (; pieces != 0L; pieces = PCMBB.popLowestPosition(pieces)) {
+                long piece = PCMBB.getLowestPosition(pieces);
                 long attack = generatePieceAttackingSquares(chessboard, isWhitePiece, piece, pieceCode);
                 allAttacks |= attack;
 
@@ -223,11 +231,15 @@ public class MoveHandler {
                 if (Character.toLowerCase(pieceCode) == 'p' || Character.toLowerCase(pieceCode) == 'n') continue;
 
                 // mask is essentially a long that represents the row / file / diagonal
-                for (long mask : masks) {
-                    // for sliding pieces, we check if the piece sees the king on the mask
-                    if ((mask & piece) == 0L) continue;
-                    criticalAttacks |= (mask & attack);
-                    break;
+                // for sliding pieces, we check if the piece sees the king on the mask
+                if ((rankMask & piece) != 0L) {
+                    criticalAttacks |= (rankMask & attack);
+                } else if ((fileMask & piece) != 0L) {
+                    criticalAttacks |= (fileMask & attack);
+                } else if ((topLeftDiagonal & piece) != 0L) {
+                    criticalAttacks |= (topLeftDiagonal & attack);
+                } else if ((topRightDiagonal & piece) != 0L) {
+                    criticalAttacks |= (topRightDiagonal & attack);
                 }
             }
         }
@@ -249,49 +261,206 @@ public class MoveHandler {
      * @return                  long of all legal moves (considers checks, double checks, pins, etc)
      */
     public static long generateLegalMoves(Chessboard chessboard, boolean isWhitePiece, long startingPosition, char pieceCode) {
-        // check for double check
-        // if king under double check, the king has to move, no other piece can move
-        if (chessboard.isKingInDoubleCheck() && Character.toLowerCase(pieceCode) != 'k') return 0L;
+        // legal moves of a single piece are taken from the legal move generator restricted to its square
+        if (chessboard.getIsWhiteTurn() != isWhitePiece) return 0L;
+        int[] moves = new int[MAX_MOVES];
+        int count = generateLegalMoves(chessboard, moves, GENERATE_ALL, startingPosition);
+        long legalMoves = 0L;
+        for (int i = 0; i < count; i++) legalMoves |= 1L << Move.getTo(moves[i]);
+        return legalMoves;
+    }
 
-        long potentialMoves;
-        switch (Character.toLowerCase(pieceCode)) {
-            case 'k':
-                potentialMoves = generateKingMoves(chessboard, isWhitePiece, startingPosition);
-                break;
-            case 'n':
-                potentialMoves = generateKnightMoves(chessboard, isWhitePiece, startingPosition);
-                break;
-            case 'p':
-                potentialMoves = generatePawnMoves(chessboard, isWhitePiece, startingPosition);
-                break;
-            default:
-                potentialMoves = generateSlidingMoves(chessboard, isWhitePiece, startingPosition, pieceCode);
-                break;
+    /**
+     * generates every legal move of the side to move into a caller-supplied buffer, allocates nothing
+     * @param chessboard    Chessboard of chessboard in game
+     * @param moves         int[] buffer of at least MAX_MOVES packed moves (see Move), reused across calls
+     * @return              int of number of legal moves written into the buffer
+     */
+    public static int generateAllLegalMoves(Chessboard chessboard, int[] moves) {
+        return generateLegalMoves(chessboard, moves, GENERATE_ALL, -1L);
+    }
+
+    /**
+     * @param chessboard    Chessboard of chessboard in game
+     * @param move          int of packed move, e.g. a hash move or killer move from another position
+     * @param buffer        int[] buffer of at least MAX_MOVES moves, overwritten
+     * @return              boolean of whether the move is legal in the position
+     */
+    public static boolean isLegalMove(Chessboard chessboard, int move, int[] buffer) {
+        if (move == Move.NONE || Move.getIsNullMove(move)) return false;
+        int from = Move.getFrom(move);
+        if (chessboard.getPieceAt(from) != Move.getMovingPiece(move)) return false;
+        int count = generateLegalMoves(chessboard, buffer, GENERATE_ALL, 1L << from);
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == move) return true;
         }
-        
-        // potential moves generated cannot clash with same-coloured pieces
-        long sameColourBoard = chessboard.getSameColouredBoard(isWhitePiece);
-        potentialMoves &= ~sameColourBoard;
-
-        // check if king is underattack, moves can only be in the line of attack or a capture of the attacking piece
-
-        // check for pinned piece
-        // kings cannot be a pinned piece
-        // remove the piece and perform a null move check if the king is still in check
-        if (Character.toLowerCase(pieceCode) != 'k') {
-            chessboard.performMove(pieceCode, startingPosition, 0L);
-            chessboard.performNullMove();
-            boolean pinnedPiece = chessboard.isKingInCheck();
-            // undo two moves as we need to also undo the nullMove
-            chessboard.undoMove();
-            chessboard.undoMove();
-            
-            // if not pinned piece, then it can move anywhere else, so -1 which has a binary string of 111...111
-            long blockingPositions = (pinnedPiece) ? chessboard.getCriticalAttackMap() : -1;
-            potentialMoves &= blockingPositions;
+        return false;
+    }
+
+    /**
+     * generates legal moves of the side to move into a caller-supplied buffer, allocates nothing
+     * checkers, the check-block mask and pinned pieces are computed once per position from the magic lookups
+     * instead of making and undoing every candidate move
+     * captures and quiet moves can be generated separately, so that a search that cuts off on a capture never generates quiet moves
+     * GENERATE_CAPTURES: captures, en passant and all promotions. GENERATE_QUIETS: every other move, including castling
+     * @param chessboard    Chessboard of chessboard in game
+     * @param moves         int[] buffer of at least MAX_MOVES packed moves (see Move), reused across calls
+     * @param mode          int of moves to generate (GENERATE_ALL, GENERATE_CAPTURES, GENERATE_QUIETS)
+     * @param fromMask      long of starting positions of the pieces to generate moves for, -1 for all pieces
+     * @return              int of number of legal moves written into the buffer
+     */
+    public static int generateLegalMoves(Chessboard chessboard, int[] moves, int mode, long fromMask) {
+        boolean isWhitePiece = chessboard.getIsWhiteTurn();
+        int us = (isWhitePiece) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+        int them = (isWhitePiece) ? Piece.BLACK_OFFSET : Piece.WHITE_OFFSET;
+        long ownBoard = chessboard.getSameColouredBoard(isWhitePiece);
+        long enemyBoard = chessboard.getDiffColouredBoard(isWhitePiece);
+        long fullBoard = chessboard.getFullBitboard();
+        long kingPosition = chessboard.getPiecesPosition(us + Piece.KING);
+        int kingSquare = Long.numberOfTrailingZeros(kingPosition);
+        int count = 0;
+        // target squares of non-pawn moves of the requested mode
+        long modeMask = (mode == GENERATE_CAPTURES) ? enemyBoard : (mode == GENERATE_QUIETS) ? ~fullBoard : -1L;
+        boolean generateKing = (kingPosition & fromMask) != 0L;
+
+        // king moves: squares attacked by the opposition are computed without our king, so the king cannot step back along a checking ray
+        long attackedSquares = (generateKing) ? chessboard.generateAttackedSquares(!isWhitePiece, fullBoard ^ kingPosition) : 0L;
+        if (generateKing) {
+            long kingTargets = PCMBB.getKingMoves(kingSquare) & ~ownBoard & ~attackedSquares & modeMask;
+            count = addMoves(chessboard, moves, count, us + Piece.KING, kingSquare, kingTargets, enemyBoard);
         }
 
-        return potentialMoves;
+        // double check, only the king can move
+        long checkers = chessboard.getCheckers();
+        if (Long.bitCount(checkers) > 1) return count;
+
+        // single check, other pieces can only capture the checker or block its ray
+        long checkMask = (checkers == 0L) ? -1L : checkers | PCMBB.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+
+        // pinned pieces: own pieces that are the only piece between our king and an opposing slider
+        long pinned = 0L;
+        long rookSliders = chessboard.getPiecesPosition(them + Piece.ROOK) | chessboard.getPiecesPosition(them + Piece.QUEEN);
+        long bishopSliders = chessboard.getPiecesPosition(them + Piece.BISHOP) | chessboard.getPiecesPosition(them + Piece.QUEEN);
+        long snipers = (PCMBB.getRookAttacks(kingSquare, enemyBoard) & rookSliders) | (PCMBB.getBishopAttacks(kingSquare, enemyBoard) & bishopSliders);
+        for (; snipers != 0L; snipers = PCMBB.popLowestPosition(snipers)) {
+            long blockers = PCMBB.BETWEEN[kingSquare][PCMBB.getLowestSquare(snipers)] & fullBoard;
+            if (Long.bitCount(blockers) == 1) pinned |= blockers & ownBoard;
+        }
+
+        // knights, bishops, rooks and queens. a pinned knight can never move
+        for (int pieceType = Piece.QUEEN; pieceType <= Piece.KNIGHT; pieceType++) {
+            long pieces = chessboard.getPiecesPosition(us + pieceType) & fromMask;
+            if (pieceType == Piece.KNIGHT) pieces &= ~pinned;
+            for (; pieces != 0L; pieces = PCMBB.popLowestPosition(pieces)) {
+                int square = PCMBB.getLowestSquare(pieces);
+                long targets;
+                switch (pieceType) {
+                    case Piece.QUEEN:
+                        targets = PCMBB.getQueenAttacks(square, fullBoard);
+                        break;
+                    case Piece.ROOK:
+                        targets = PCMBB.getRookAttacks(square, fullBoard);
+                        break;
+                    case Piece.BISHOP:
+                        targets = PCMBB.getBishopAttacks(square, fullBoard);
+                        break;
+                    default:
+                        targets = PCMBB.getKnightMoves(square);
+                        break;
+                }
+                targets &= ~ownBoard & checkMask & modeMask;
+                if ((pinned & (1L << square)) != 0L) targets &= PCMBB.LINE[kingSquare][square];
+                count = addMoves(chessboard, moves, count, us + pieceType, square, targets, enemyBoard);
+            }
+        }
+
+        // pawns
+        int pawnIndex = us + Piece.PAWN;
+        long doublePushRank = (isWhitePiece) ? PCMBB.getRankMask(2) : PCMBB.getRankMask(5);
+        long enPassantPawn = chessboard.getEnPassantFlag();
+        long enPassantTarget = (isWhitePiece) ? enPassantPawn << 8 : enPassantPawn >>> 8;
+        long promotionRank = (isWhitePiece) ? PCMBB.getRankMask(7) : PCMBB.getRankMask(0);
+        // pushes onto the last rank are promotions, and are generated with the captures
+        long pushMask = (mode == GENERATE_CAPTURES) ? promotionRank : (mode == GENERATE_QUIETS) ? ~promotionRank : -1L;
+        long captureMask = (mode == GENERATE_QUIETS) ? 0L : -1L;
+        for (long pawns = chessboard.getPiecesPosition(pawnIndex) & fromMask; pawns != 0L; pawns = PCMBB.popLowestPosition(pawns)) {
+            int square = PCMBB.getLowestSquare(pawns);
+            long position = PCMBB.getLowestPosition(pawns);
+            long pinLine = ((pinned & position) != 0L) ? PCMBB.LINE[kingSquare][square] : -1L;
+
+            long singlePush = ((isWhitePiece) ? position << 8 : position >>> 8) & ~fullBoard;
+            long doublePush = ((isWhitePiece) ? (singlePush & doublePushRank) << 8 : (singlePush & doublePushRank) >>> 8) & ~fullBoard;
+            long captures = PCMBB.getPawnAttacks(square, isWhitePiece) & enemyBoard & captureMask;
+            long targets = ((singlePush & pushMask) | captures) & checkMask & pinLine;
+            count = addPawnMoves(chessboard, moves, count, pawnIndex, square, targets, enemyBoard);
+
+            doublePush &= checkMask & pinLine & pushMask;
+            if (doublePush != 0L) {
+                moves[count++] = Move.encode(square, Long.numberOfTrailingZeros(doublePush), pawnIndex, Piece.NONE, Piece.NONE, Move.FLAG_DOUBLE_PUSH);
+            }
+
+            // en passant removes two pieces from the capturing rank, so its legality is tested on the resulting occupancy
+            if (mode != GENERATE_QUIETS && enPassantPawn != 0L && (PCMBB.getPawnAttacks(square, isWhitePiece) & enPassantTarget) != 0L) {
+                long occupancyAfter = fullBoard ^ position ^ enPassantPawn ^ enPassantTarget;
+                long remainingAttackers = chessboard.attackersTo(kingSquare, occupancyAfter) & enemyBoard & occupancyAfter;
+                if (remainingAttackers == 0L) {
+                    moves[count++] = Move.encode(square, Long.numberOfTrailingZeros(enPassantTarget), pawnIndex, them + Piece.PAWN, Piece.NONE, Move.FLAG_EN_PASSANT);
+                }
+            }
+        }
+
+        // castling: not out of, through or into check, and the squares between king and rook are empty
+        if (checkers == 0L && generateKing && mode != GENERATE_CAPTURES) {
+            if (isWhitePiece) {
+                if ((chessboard.getCastlingRights() & Chessboard.WHITE_KING_SIDE_CASTLE) != 0 && (fullBoard & 0x60L) == 0L && (attackedSquares & 0x60L) == 0L) {
+                    moves[count++] = Move.encode(4, 6, Piece.WHITE_KING, Piece.NONE, Piece.NONE, Move.FLAG_CASTLE);
+                }
+                if ((chessboard.getCastlingRights() & Chessboard.WHITE_QUEEN_SIDE_CASTLE) != 0 && (fullBoard & 0x0EL) == 0L && (attackedSquares & 0x0CL) == 0L) {
+                    moves[count++] = Move.encode(4, 2, Piece.WHITE_KING, Piece.NONE, Piece.NONE, Move.FLAG_CASTLE);
+                }
+            } else {
+                if ((chessboard.getCastlingRights() & Chessboard.BLACK_KING_SIDE_CASTLE) != 0 && (fullBoard & (0x60L << 56)) == 0L && (attackedSquares & (0x60L << 56)) == 0L) {
+                    moves[count++] = Move.encode(60, 62, Piece.BLACK_KING, Piece.NONE, Piece.NONE, Move.FLAG_CASTLE);
+                }
+                if ((chessboard.getCastlingRights() & Chessboard.BLACK_QUEEN_SIDE_CASTLE) != 0 && (fullBoard & (0x0EL << 56)) == 0L && (attackedSquares & (0x0CL << 56)) == 0L) {
+                    moves[count++] = Move.encode(60, 58, Piece.BLACK_KING, Piece.NONE, Piece.NONE, Move.FLAG_CASTLE);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * writes a move for every target square of a non-pawn piece
+     * @return  int of new number of moves in the buffer
+     */
+    private static int addMoves(Chessboard chessboard, int[] moves, int count, int pieceIndex, int from, long targets, long enemyBoard) {
+        for (; targets != 0L; targets = PCMBB.popLowestPosition(targets)) {
+            int to = PCMBB.getLowestSquare(targets);
+            int capturedIndex = ((enemyBoard & (1L << to)) != 0L) ? chessboard.getPieceAt(to) : Piece.NONE;
+            moves[count++] = Move.encode(from, to, pieceIndex, capturedIndex, Piece.NONE, 0);
+        }
+        return count;
+    }
+
+    /**
+     * writes a move for every target square of a pawn, a move onto the last rank is written once per promotion piece
+     * @return  int of new number of moves in the buffer
+     */
+    private static int addPawnMoves(Chessboard chessboard, int[] moves, int count, int pawnIndex, int from, long targets, long enemyBoard) {
+        int colourOffset = pawnIndex - Piece.PAWN;
+        for (; targets != 0L; targets = PCMBB.popLowestPosition(targets)) {
+            int to = PCMBB.getLowestSquare(targets);
+            int capturedIndex = ((enemyBoard & (1L << to)) != 0L) ? chessboard.getPieceAt(to) : Piece.NONE;
+            if (to >= 56 || to < 8) {
+                for (int promotion = Piece.QUEEN; promotion <= Piece.KNIGHT; promotion++) {
+                    moves[count++] = Move.encode(from, to, pawnIndex, capturedIndex, colourOffset + promotion, 0);
+                }
+            } else {
+                moves[count++] = Move.encode(from, to, pawnIndex, capturedIndex, Piece.NONE, 0);
+            }
+        }
+        return count;
     }
 
     /**
@@ -334,9 +503,8 @@ public class MoveHandler {
             // check that if the move is performed, it will block the check
             // i.e. if i generate all the attacking squares again after the move is made, the king is not under attack
             chessboard.performMove(pieceCode, startingPosition, endingPosition);
-            chessboard.performNullMove();
-            boolean kingStillInCheck = chessboard.isKingInCheck();
-            chessboard.undoMove();
+            int kingSquare = Long.numberOfTrailingZeros(chessboard.getPiecesPosition(Piece.getIndex(Piece.KING, isWhitePiece)));
+            boolean kingStillInCheck = chessboard.isSquareAttacked(kingSquare, !isWhitePiece);
             chessboard.undoMove();
             // fails if double check or piece attacking king is a knight or pawn and it is not captured
             if (kingStillInCheck) {
@@ -0,0 +1,177 @@
+package Engine;
+
+public class MovePicker {
+
+    /**
+     * staged move ordering for the search
+     * moves are handed out one at a time in stages, and every stage is only generated once the previous one is used up,
+     * so a cutoff on the hash move or a capture never pays for generating the quiet moves
+     *
+     * stages:
+     * hash move: best move of the transposition table entry, if it is legal in the position
+     * captures: captures and promotions, best first by MVV-LVA (most valuable victim, then least valuable attacker)
+     *           captures that lose material by static exchange evaluation are put aside until the bad captures stage
+     * killers: the two quiet moves that last caused a cutoff at the same ply, if they are legal in the position
+     * quiets: remaining quiet moves, best first by butterfly history (cutoffs by side, starting square and ending square)
+     * bad captures: the losing captures, in MVV-LVA order
+     *
+     * a quiescence picker only hands out the captures stage, and leaves the losing captures to the quiescence search
+     *
+     * every stage is sorted lazily (selection of the best remaining move), most nodes only use the first few moves
+     * a picker owns its buffers and is reused for every node at its ply, it allocates nothing
+     */
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_KILLERS = 3;
+    private static final int STAGE_GENERATE_QUIETS = 4;
+    private static final int STAGE_QUIETS = 5;
+    private static final int STAGE_BAD_CAPTURES = 6;
+    private static final int STAGE_DONE = 7;
+
+    private final int[] moves = new int[MoveHandler.MAX_MOVES];
+    private final int[] scores = new int[MoveHandler.MAX_MOVES];
+    private final int[] legalityBuffer = new int[MoveHandler.MAX_MOVES];
+    private final int[] badCaptures = new int[MoveHandler.MAX_MOVES];
+    private Chessboard chessboard;
+    private int[][][] history;
+    private int hashMove, firstKiller, secondKiller;
+    private int stage, index, count, killerIndex;
+    private int badCaptureCount, badCaptureIndex;
+    private boolean capturesOnly;
+
+    /**
+     * prepares the picker for a new node
+     * @param chessboard    Chessboard of position of the node
+     * @param hashMove      int of packed hash move, Move.NONE if none
+     * @param firstKiller   int of packed first killer move of the ply, Move.NONE if none
+     * @param secondKiller  int of packed second killer move of the ply, Move.NONE if none
+     * @param history       int[2][64][64] of butterfly history scores, indexed by side (0 for white), starting square and ending square
+     */
+    public void init(Chessboard chessboard, int hashMove, int firstKiller, int secondKiller, int[][][] history) {
+        this.chessboard = chessboard;
+        this.history = history;
+        this.hashMove = (MoveHandler.isLegalMove(chessboard, hashMove, this.legalityBuffer)) ? hashMove : Move.NONE;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.capturesOnly = false;
+        this.stage = STAGE_HASH_MOVE;
+        this.index = 0;
+        this.count = 0;
+        this.killerIndex = 0;
+        this.badCaptureCount = 0;
+        this.badCaptureIndex = 0;
+    }
+
+    /**
+     * prepares the picker for a quiescence node, which only searches captures and promotions
+     * @param chessboard    Chessboard of position of the node
+     */
+    public void initQuiescence(Chessboard chessboard) {
+        this.chessboard = chessboard;
+        this.hashMove = Move.NONE;
+        this.capturesOnly = true;
+        this.stage = STAGE_GENERATE_CAPTURES;
+        this.index = 0;
+        this.count = 0;
+    }
+
+    /**
+     * @return  int of packed next move to search, Move.NONE once every legal move was handed out
+     */
+    @SuppressWarnings("fallthrough")
+    public int nextMove() {
+        switch (this.stage) {
+            case STAGE_HASH_MOVE:
+                this.stage = STAGE_GENERATE_CAPTURES;
+                if (this.hashMove != Move.NONE) return this.hashMove;
+                // fall through
+            case STAGE_GENERATE_CAPTURES:
+                this.count = MoveHandler.generateLegalMoves(this.chessboard, this.moves, MoveHandler.GENERATE_CAPTURES, -1L);
+                for (int i = 0; i < this.count; i++) this.scores[i] = scoreCapture(this.moves[i]);
+                this.index = 0;
+                this.stage = STAGE_CAPTURES;
+                // fall through
+            case STAGE_CAPTURES:
+                while (this.index < this.count) {
+                    int move = selectBest();
+                    if (move == this.hashMove) continue;
+                    if (this.capturesOnly || StaticExchange.seeGreaterOrEqual(this.chessboard, move, 0)) return move;
+                    this.badCaptures[this.badCaptureCount++] = move;
+                }
+                if (this.capturesOnly) {
+                    this.stage = STAGE_DONE;
+                    return Move.NONE;
+                }
+                this.stage = STAGE_KILLERS;
+                // fall through
+            case STAGE_KILLERS:
+                while (this.killerIndex < 2) {
+                    int killer = (this.killerIndex++ == 0) ? this.firstKiller : this.secondKiller;
+                    if (killer != this.hashMove && isQuietKiller(killer)) return killer;
+                }
+                this.stage = STAGE_GENERATE_QUIETS;
+                // fall through
+            case STAGE_GENERATE_QUIETS:
+                this.count = MoveHandler.generateLegalMoves(this.chessboard, this.moves, MoveHandler.GENERATE_QUIETS, -1L);
+                int side = (this.chessboard.getIsWhiteTurn()) ? 0 : 1;
+                for (int i = 0; i < this.count; i++) this.scores[i] = this.history[side][Move.getFrom(this.moves[i])][Move.getTo(this.moves[i])];
+                this.index = 0;
+                this.stage = STAGE_QUIETS;
+                // fall through
+            case STAGE_QUIETS:
+                while (this.index < this.count) {
+                    int move = selectBest();
+                    if (move != this.hashMove && move != this.firstKiller && move != this.secondKiller) return move;
+                }
+                this.stage = STAGE_BAD_CAPTURES;
+                // fall through
+            case STAGE_BAD_CAPTURES:
+                if (this.badCaptureIndex < this.badCaptureCount) return this.badCaptures[this.badCaptureIndex++];
+                this.stage = STAGE_DONE;
+                // fall through
+            default:
+                return Move.NONE;
+        }
+    }
+
+    /**
+     * swaps the best scored remaining move of the current stage to the front of the remaining moves
+     * @return  int of packed best remaining move
+     */
+    private int selectBest() {
+        int best = this.index;
+        for (int i = this.index + 1; i < this.count; i++) {
+            if (this.scores[i] > this.scores[best]) best = i;
+        }
+        int move = this.moves[best];
+        this.moves[best] = this.moves[this.index];
+        this.scores[best] = this.scores[this.index];
+        this.moves[this.index] = move;
+        this.index++;
+        return move;
+    }
+
+    /**
+     * killers come from sibling positions, so they are only searched if they are still a legal quiet move here
+     */
+    private boolean isQuietKiller(int killer) {
+        if (killer == Move.NONE) return false;
+        if ((this.chessboard.getFullBitboard() & (1L << Move.getTo(killer))) != 0L) return false;
+        return MoveHandler.isLegalMove(this.chessboard, killer, this.legalityBuffer);
+    }
+
+    /**
+     * @param move  int of packed capture or promotion
+     * @return      int of MVV-LVA score, promotions add the value of the promoted piece
+     */
+    public static int scoreCapture(int move) {
+        int score = 0;
+        if (Move.getIsCapture(move)) {
+            score += Evaluation.PIECE_VALUES[Piece.getType(Move.getCapturedPiece(move))] * 8;
+            score -= Evaluation.PIECE_VALUES[Piece.getType(Move.getMovingPiece(move))] / 8;
+        }
+        if (Move.getIsPromotion(move)) score += Evaluation.PIECE_VALUES[Piece.getType(Move.getPromotion(move))];
+        return score;
+    }
+}
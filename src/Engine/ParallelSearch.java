@@ -0,0 +1,200 @@
+package Engine;
+
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ParallelSearch {
+
+    /**
+     * Lazy SMP: every thread runs its own iterative deepening search of the same position, on its own copy of the chessboard and
+     * with its own move buffers and heuristics, and all threads share one transposition table
+     * threads communicate only through the table: results of one thread cut off and order the search of the others
+     * helper threads start at different depths (see Search.setDepthOffset), so they fill the table ahead of the main thread
+     *
+     * the main thread runs on the calling thread and decides the result. when it finishes, the helpers are stopped and joined,
+     * so no helper is still running when search returns
+     */
+    private final TranspositionTable transpositionTable;
+    private final Search mainSearch;
+    private Search[] helpers;
+    private Chessboard[] helperBoards;
+    private Future<?>[] helperFutures;
+    private ExecutorService helperPool;
+    private Tablebases tablebases;
+
+    /**
+     * @param transpositionTable    TranspositionTable shared by all threads
+     * @param threadCount           int of number of threads including the calling thread (at least 1)
+     */
+    public ParallelSearch(TranspositionTable transpositionTable, int threadCount) {
+        this.transpositionTable = transpositionTable;
+        this.mainSearch = new Search(transpositionTable);
+        setThreadCount(threadCount);
+    }
+
+    /**
+     * must not be called while a search is running
+     * @param threadCount   int of number of threads including the calling thread (at least 1)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) throw new IllegalArgumentException("thread count must be at least 1: ".concat(Integer.toString(threadCount)));
+        shutdown();
+        int helperCount = threadCount - 1;
+        this.helpers = new Search[helperCount];
+        this.helperBoards = new Chessboard[helperCount];
+        this.helperFutures = new Future<?>[helperCount];
+        for (int i = 0; i < helperCount; i++) {
+            this.helpers[i] = new Search(this.transpositionTable);
+            this.helpers[i].setInfoOutput(null);
+            this.helpers[i].setParameters(this.mainSearch.getParameters());
+            this.helpers[i].setTablebases(this.tablebases);
+            // every other helper starts one ply deeper
+            this.helpers[i].setDepthOffset((i + 1) & 1);
+        }
+        this.mainSearch.setHelpers(this.helpers);
+        this.helperPool = (helperCount == 0) ? null : Executors.newFixedThreadPool(helperCount, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return  int of number of threads including the calling thread
+     */
+    public int getThreadCount() { return this.helpers.length + 1; }
+
+    /**
+     * @param infoOutput    PrintStream of where the info line of every iteration of the main thread is printed, null for none
+     */
+    public void setInfoOutput(PrintStream infoOutput) { this.mainSearch.setInfoOutput(infoOutput); }
+
+    /**
+     * must not be called while a search is running
+     * @param tablebases    Tablebases of endgame tables probed by all threads, null for none
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+        this.mainSearch.setTablebases(tablebases);
+        for (Search helper : this.helpers) helper.setTablebases(tablebases);
+    }
+
+    /**
+     * @return  SearchParameters of selective search, shared by all threads
+     */
+    public SearchParameters getParameters() { return this.mainSearch.getParameters(); }
+
+    /**
+     * @param chessboard        Chessboard of position to search, restored to the same position on return
+     * @param maxDepth          int of maximum depth in plies
+     * @param maxNodes          long of maximum nodes of the main thread, 0 for no limit
+     * @param timeLimitMillis   long of maximum time in milliseconds, 0 for no limit
+     * @return                  int of packed best move of the main thread, Move.NONE if there are no legal moves
+     */
+    public int search(Chessboard chessboard, int maxDepth, long maxNodes, long timeLimitMillis) {
+        resetStop();
+        return runSearch(chessboard, maxDepth, maxNodes, timeLimitMillis);
+    }
+
+    /**
+     * clears the stop flags and the time limit ahead of runSearch, so that a stop or a setTimeLimit arriving before the search
+     * thread starts is not lost
+     * a front-end searching on its own thread calls resetStop on its thread, then runSearch on the search thread
+     */
+    public void resetStop() {
+        this.mainSearch.resetStop();
+        for (Search helper : this.helpers) helper.resetStop();
+    }
+
+    /**
+     * same as search, but keeps the stop flags as they are, and with timeLimitMillis 0 keeps the time limit (see resetStop)
+     */
+    public int runSearch(Chessboard chessboard, int maxDepth, long maxNodes, long timeLimitMillis) {
+        for (int i = 0; i < this.helpers.length; i++) {
+            if (this.helperBoards[i] == null) this.helperBoards[i] = new Chessboard(chessboard);
+            else this.helperBoards[i].copyFrom(chessboard);
+            Search helper = this.helpers[i];
+            Chessboard helperBoard = this.helperBoards[i];
+            this.helperFutures[i] = this.helperPool.submit(() -> helper.runSearch(helperBoard, Search.MAX_PLY, 0L, 0L));
+        }
+        try {
+            return this.mainSearch.runSearch(chessboard, maxDepth, maxNodes, timeLimitMillis);
+        } finally {
+            for (Search helper : this.helpers) helper.stop();
+            for (Future<?> helperFuture : this.helperFutures) joinHelper(helperFuture);
+        }
+    }
+
+    /**
+     * @return  int of number of helper threads still running a search, 0 whenever no search is running
+     */
+    public int getRunningHelpers() {
+        int running = 0;
+        for (Future<?> helperFuture : this.helperFutures) running += (helperFuture == null || helperFuture.isDone()) ? 0 : 1;
+        return running;
+    }
+
+    private static void joinHelper(Future<?> helperFuture) {
+        try {
+            helperFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("search helper failed", e.getCause());
+        }
+    }
+
+    /**
+     * stops the running search as soon as possible. safe to call from any thread
+     */
+    public void stop() {
+        this.mainSearch.stop();
+        for (Search helper : this.helpers) helper.stop();
+    }
+
+    /**
+     * sets the time limit of the running search, counted from now. safe to call from any thread
+     * @param timeLimitMillis   long of maximum time in milliseconds, 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) { this.mainSearch.setTimeLimit(timeLimitMillis); }
+
+    /**
+     * stops the helper threads for good. the search can still be used after setThreadCount
+     */
+    public void shutdown() {
+        if (this.helperPool != null) this.helperPool.shutdownNow();
+        this.helperPool = null;
+    }
+
+    /**
+     * @return  int of packed best move of the last search
+     */
+    public int getBestMove() { return this.mainSearch.getBestMove(); }
+
+    /**
+     * @return  int of score of the best move of the last search, from the view of the side to move
+     */
+    public int getBestScore() { return this.mainSearch.getBestScore(); }
+
+    /**
+     * @return  int of depth of the last completed iteration of the main thread
+     */
+    public int getCompletedDepth() { return this.mainSearch.getCompletedDepth(); }
+
+    /**
+     * @return  String of principal variation of the main thread
+     */
+    public String getPrincipalVariation() { return this.mainSearch.getPrincipalVariation(); }
+
+    /**
+     * @return  long of nodes searched by all threads in the last search
+     */
+    public long getNodes() {
+        long nodes = this.mainSearch.getNodes();
+        for (Search helper : this.helpers) nodes += helper.getNodes();
+        return nodes;
+    }
+}
@@ -0,0 +1,115 @@
+package Engine;
+
+import java.util.Arrays;
+
+public class PawnHashTable {
+
+    /**
+     * cache of pawn structure evaluations, keyed only by the white and black pawn bitboards
+     * pawn structure changes on few moves, so most positions of a search share the pawn skeleton of an evaluated position
+     *
+     * entries are stored in parallel primitive arrays, indexed by a hash of the two pawn bitboards. both bitboards are stored,
+     * so a hit is exact and never returns the evaluation of another skeleton
+     * the table is not shared between threads, every search owns its own
+     *
+     * score: midgame and endgame pawn structure scores from the view of white, packed with Evaluation.packScore
+     * shields: pawn shield scores of the four castled king wings (see Evaluation.evaluatePawns)
+     */
+    public static final int DEFAULT_SIZE_BITS = 14;
+
+    // pawns can never stand on the first rank, so a white pawn board of all ones marks an empty entry
+    private static final long EMPTY = -1L;
+
+    private final long[] whitePawns;
+    private final long[] blackPawns;
+    private final int[] scores;
+    private final long[] shields;
+    private final int indexMask;
+    private long probes, hits;
+
+    /**
+     * @param sizeBits  int of log2 of number of entries
+     */
+    public PawnHashTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        this.whitePawns = new long[size];
+        this.blackPawns = new long[size];
+        this.scores = new int[size];
+        this.shields = new long[size];
+        this.indexMask = size - 1;
+        clear();
+    }
+
+    /**
+     * empties every entry and resets the statistics
+     */
+    public void clear() {
+        Arrays.fill(this.whitePawns, EMPTY);
+        this.probes = 0L;
+        this.hits = 0L;
+    }
+
+    /**
+     * @param whitePawns    long of white pawn bitboard
+     * @param blackPawns    long of black pawn bitboard
+     * @return              int of index of the entry of the pawn skeleton
+     */
+    public int getIndex(long whitePawns, long blackPawns) {
+        long hash = whitePawns * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(blackPawns * 0xC2B2AE3D27D4EB4FL, 31);
+        return (int) (hash ^ (hash >>> 32)) & this.indexMask;
+    }
+
+    /**
+     * @param index         int of index from getIndex
+     * @param whitePawns    long of white pawn bitboard
+     * @param blackPawns    long of black pawn bitboard
+     * @return              boolean of whether the entry holds the evaluation of the pawn skeleton
+     */
+    public boolean probe(int index, long whitePawns, long blackPawns) {
+        this.probes++;
+        if (this.whitePawns[index] != whitePawns || this.blackPawns[index] != blackPawns) return false;
+        this.hits++;
+        return true;
+    }
+
+    /**
+     * @param index         int of index from getIndex
+     * @param whitePawns    long of white pawn bitboard
+     * @param blackPawns    long of black pawn bitboard
+     * @param score         int of packed pawn structure score
+     * @param shields       long of packed pawn shield scores
+     */
+    public void store(int index, long whitePawns, long blackPawns, int score, long shields) {
+        this.whitePawns[index] = whitePawns;
+        this.blackPawns[index] = blackPawns;
+        this.scores[index] = score;
+        this.shields[index] = shields;
+    }
+
+    /**
+     * @param index int of index of a matching entry
+     * @return      int of packed pawn structure score
+     */
+    public int getScore(int index) { return this.scores[index]; }
+
+    /**
+     * @param index int of index of a matching entry
+     * @return      long of packed pawn shield scores
+     */
+    public long getShields(int index) { return this.shields[index]; }
+
+    /**
+     * @return  long of number of probes since the last clear
+     */
+    public long getProbes() { return this.probes; }
+
+    /**
+     * @return  long of number of probes that hit since the last clear
+     */
+    public long getHits() { return this.hits; }
+
+    /**
+     * @return  double of fraction of probes that hit since the last clear
+     */
+    public double getHitRate() { return (this.probes == 0L) ? 0.0 : (double) this.hits / this.probes; }
+}
@@ -0,0 +1,87 @@
+package Engine;
+
+public class Perft {
+
+    /**
+     * perft = performance test, move path enumeration
+     * counts all leaf nodes of the legal move tree up to a given depth
+     * node counts are compared against well known reference values, which makes perft the correctness gate of move generation
+     * the time taken per node is the throughput baseline of make / unmake and move generation
+     */
+
+    /**
+     * @param chessboard    Chessboard of position to enumerate, restored to the same position on return
+     * @param depth         int of depth in plies
+     * @return              long of leaf node count at depth
+     */
+    public static long perft(Chessboard chessboard, int depth) {
+        if (depth == 0) return 1L;
+        // one move buffer per ply, so the enumeration itself allocates nothing
+        return perft(chessboard, depth, new int[depth][MoveHandler.MAX_MOVES]);
+    }
+
+    /**
+     * @param chessboard    Chessboard of position to enumerate, restored to the same position on return
+     * @param depth         int of depth in plies (at least 1)
+     * @param moveBuffers   int[depth][] of move buffers, indexed by remaining depth - 1
+     * @return              long of leaf node count at depth
+     */
+    private static long perft(Chessboard chessboard, int depth, int[][] moveBuffers) {
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        // every generated move is legal, so the last ply only needs the count
+        if (depth == 1) return count;
+        long nodes = 0L;
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            nodes += perft(chessboard, depth - 1, moveBuffers);
+            chessboard.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * prints the node count below each root move, in the format [move]: [nodes], e.g. e2e4: 20
+     * used to find the move that a perft mismatch originates from
+     * @param chessboard    Chessboard of position to enumerate, restored to the same position on return
+     * @param depth         int of depth in plies (at least 1)
+     * @return              long of leaf node count at depth
+     */
+    public static long divide(Chessboard chessboard, int depth) {
+        int[] moves = new int[MoveHandler.MAX_MOVES];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        long nodes = 0L;
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            long childNodes = perft(chessboard, depth - 1);
+            chessboard.undoMove();
+            System.out.println(Move.toString(moves[i]).concat(": ").concat(Long.toString(childNodes)));
+            nodes += childNodes;
+        }
+        System.out.println("Nodes searched: ".concat(Long.toString(nodes)));
+        return nodes;
+    }
+
+    /**
+     * @param chessboard    Chessboard of position to enumerate
+     * @param depth         int of depth in plies
+     * @return              String report of node count, elapsed time and nodes per second
+     */
+    public static String report(Chessboard chessboard, int depth) {
+        long startTime = System.nanoTime();
+        long nodes = perft(chessboard, depth);
+        long elapsed = System.nanoTime() - startTime;
+        return formatReport(depth, nodes, elapsed);
+    }
+
+    /**
+     * @param depth     int of depth in plies
+     * @param nodes     long of leaf node count
+     * @param elapsed   long of elapsed time in nanoseconds
+     * @return          String report of node count, elapsed time and nodes per second
+     */
+    public static String formatReport(int depth, long nodes, long elapsed) {
+        long nodesPerSecond = (elapsed > 0L) ? (long) (nodes * 1e9 / elapsed) : 0L;
+        return String.format("depth %d: %d nodes in %.3f ms (%d nps)", depth, nodes, elapsed / 1e6, nodesPerSecond);
+    }
+}
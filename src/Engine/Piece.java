@@ -0,0 +1,81 @@
+package Engine;
+
+public final class Piece {
+
+    /**
+     * piece indices used by the primitive bitboard store in Chessboard
+     * index = colour offset + piece type, where white pieces come first
+     * the order of the types follows PCMBB.whitePieceCodes / PCMBB.blackPieceCodes
+     *
+     * 0 -> K, 1 -> Q, 2 -> R, 3 -> B, 4 -> N, 5 -> P
+     * 6 -> k, 7 -> q, 8 -> r, 9 -> b, 10 -> n, 11 -> p
+     */
+    public static final int KING = 0;
+    public static final int QUEEN = 1;
+    public static final int ROOK = 2;
+    public static final int BISHOP = 3;
+    public static final int KNIGHT = 4;
+    public static final int PAWN = 5;
+
+    public static final int WHITE_OFFSET = 0;
+    public static final int BLACK_OFFSET = 6;
+
+    public static final int WHITE_KING = 0, WHITE_QUEEN = 1, WHITE_ROOK = 2, WHITE_BISHOP = 3, WHITE_KNIGHT = 4, WHITE_PAWN = 5;
+    public static final int BLACK_KING = 6, BLACK_QUEEN = 7, BLACK_ROOK = 8, BLACK_BISHOP = 9, BLACK_KNIGHT = 10, BLACK_PAWN = 11;
+
+    // number of piece indices, also used as the "no piece" marker
+    public static final int COUNT = 12;
+    public static final int NONE = 12;
+
+    public static final char[] PIECE_CODES = new char[] { 'K', 'Q', 'R', 'B', 'N', 'P', 'k', 'q', 'r', 'b', 'n', 'p' };
+
+    private static final int[] CODE_TO_INDEX = new int[128];
+
+    static {
+        for (int i = 0; i < 128; i++) CODE_TO_INDEX[i] = NONE;
+        for (int i = 0; i < COUNT; i++) CODE_TO_INDEX[PIECE_CODES[i]] = i;
+    }
+
+    private Piece() {}
+
+    /**
+     * @param pieceCode char of piece code (upper case for white, lower case for black)
+     * @return          int piece index, or Piece.NONE if the code is not a piece
+     */
+    public static int getIndex(char pieceCode) {
+        return (pieceCode < 128) ? CODE_TO_INDEX[pieceCode] : NONE;
+    }
+
+    /**
+     * @param pieceIndex    int piece index
+     * @return              char of piece code, ' ' for Piece.NONE
+     */
+    public static char getCode(int pieceIndex) {
+        return (pieceIndex < COUNT) ? PIECE_CODES[pieceIndex] : ' ';
+    }
+
+    /**
+     * @param pieceType     int piece type (Piece.KING to Piece.PAWN)
+     * @param isWhitePiece  boolean of piece colour
+     * @return              int piece index
+     */
+    public static int getIndex(int pieceType, boolean isWhitePiece) {
+        return (isWhitePiece) ? pieceType : pieceType + BLACK_OFFSET;
+    }
+
+    /**
+     * @param pieceIndex    int piece index
+     * @return              int piece type (Piece.KING to Piece.PAWN)
+     */
+    public static int getType(int pieceIndex) {
+        return (pieceIndex < BLACK_OFFSET) ? pieceIndex : pieceIndex - BLACK_OFFSET;
+    }
+
+    /**
+     * @param pieceIndex    int piece index
+     * @return              boolean of if piece is white
+     */
+    public static boolean isWhite(int pieceIndex) {
+        return pieceIndex < BLACK_OFFSET;
+    }
+}
@@ -0,0 +1,519 @@
+package Engine;
+
+import java.io.PrintStream;
+
+public class Search {
+
+    /**
+     * iterative deepening negamax alpha-beta search with principal variation search and aspiration windows
+     *
+     * every iteration searches the full tree to one more ply, the transposition table carries the best moves of the previous
+     * iteration so they are searched first. the first move of a node is searched with the full window, every other move with a
+     * null window around alpha, and only re-searched with the full window if it beats alpha
+     * from ASPIRATION_MIN_DEPTH on, the root is searched with a window around the previous score, widened on a fail
+     *
+     * the search stops on the depth, node or time limit, or when stop is called from another thread. only completed iterations
+     * are used, so a stopped search returns the best move of the last completed iteration
+     * no new iteration is started after half of the time limit, as it would rarely complete in the remaining half
+     *
+     * at depth 0 a quiescence search resolves captures until the position is quiet, so that the evaluation is never taken in
+     * the middle of an exchange. captures that cannot raise the score to alpha (delta pruning) or that lose material by static
+     * exchange evaluation are skipped. a side in check searches every evasion instead
+     *
+     * selective search (see SearchParameters), only at nodes searched with a null window and not in check:
+     * reverse futility pruning and null move pruning cut off nodes whose static evaluation is far enough above beta,
+     * futility pruning skips quiet moves that cannot bring a static evaluation far below alpha back up to it,
+     * late move reductions search quiet moves late in the move order less deep, and re-search them if they beat alpha
+     *
+     * moves are ordered by a staged MovePicker per ply: hash move, captures by MVV-LVA, killer moves, then quiet moves by history
+     * killer moves and history scores belong to this Search, so every thread of a parallel search keeps its own
+     *
+     * move pickers and the principal variation table are allocated once per Search, the hot loop allocates nothing
+     *
+     * with endgame tables set (see Tablebases), every node below the root whose position is in a table returns its exact
+     * score at once: a draw, or a mate at the distance of the table, if that mate comes before the fifty move rule
+     */
+    public static final int MAX_PLY = 128;
+
+    // scores: mate in n plies is MATE - n, every score beyond MATE_BOUND is a mate score
+    public static final int INFINITY = 32000;
+    public static final int MATE = 30000;
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+    public static final int DRAW = 0;
+
+    private static final int ASPIRATION_MIN_DEPTH = 5;
+    private static final int ASPIRATION_WINDOW = 25;
+    // limits are checked once every 1024 nodes, System.nanoTime is too slow for every node
+    private static final long LIMIT_CHECK_MASK = 1023L;
+    // history scores stay within +-HISTORY_MAX, so that old cutoffs fade as new ones come in
+    private static final int HISTORY_MAX = 16384;
+    // margin of delta pruning, for positional gains that come with a capture
+    private static final int DELTA_MARGIN = 200;
+
+    private final TranspositionTable transpositionTable;
+    private final PawnHashTable pawnHashTable = new PawnHashTable(PawnHashTable.DEFAULT_SIZE_BITS);
+    private final MovePicker[] movePickers = new MovePicker[MAX_PLY];
+    private final int[][] quietsSearched = new int[MAX_PLY][MoveHandler.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64];
+    private final int[] rootMoves = new int[MoveHandler.MAX_MOVES];
+    private final int[][] principalVariation = new int[MAX_PLY][MAX_PLY];
+    private final int[] principalVariationLength = new int[MAX_PLY];
+    private final int[] rootVariation = new int[MAX_PLY];
+    private int rootVariationLength;
+
+    private Chessboard chessboard;
+    private volatile boolean stopped;
+    private long nodes;
+    private long maxNodes;
+    private long startTime;
+    private volatile long deadline, iterationDeadline;
+    private int bestMove, bestScore, completedDepth;
+    private PrintStream infoOutput = System.out;
+    private SearchParameters parameters = new SearchParameters();
+    private int depthOffset;
+    private Search[] helpers = new Search[0];
+    private Tablebases tablebases;
+
+    /**
+     * @param transpositionTable    TranspositionTable shared by every search of this Search
+     */
+    public Search(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        for (int i = 0; i < MAX_PLY; i++) this.movePickers[i] = new MovePicker();
+    }
+
+    /**
+     * @param infoOutput    PrintStream of where the info line of every iteration is printed, null for none
+     */
+    public void setInfoOutput(PrintStream infoOutput) { this.infoOutput = infoOutput; }
+
+    /**
+     * helper threads of a parallel search start iterative deepening deeper than the main thread, so that threads do not all
+     * search the same depth at the same time (see ParallelSearch)
+     * @param depthOffset   int of plies added to the first iteration
+     */
+    public void setDepthOffset(int depthOffset) { this.depthOffset = depthOffset; }
+
+    /**
+     * @param helpers   Search[] of helper searches whose nodes are added to the info lines of this search
+     */
+    void setHelpers(Search[] helpers) { this.helpers = helpers; }
+
+    /**
+     * @param tablebases    Tablebases of endgame tables to probe, null for none, can be shared by searches that run at the same time
+     */
+    public void setTablebases(Tablebases tablebases) { this.tablebases = tablebases; }
+
+    /**
+     * @param parameters    SearchParameters of selective search, can be shared by searches that run at the same time
+     */
+    public void setParameters(SearchParameters parameters) { this.parameters = parameters; }
+
+    /**
+     * @return  SearchParameters of selective search
+     */
+    public SearchParameters getParameters() { return this.parameters; }
+
+    /**
+     * stops the running search as soon as possible. safe to call from any thread
+     */
+    public void stop() { this.stopped = true; }
+
+    /**
+     * sets the time limit of the running search, counted from now. safe to call from any thread, e.g. when a ponder search
+     * turns into a timed search
+     * @param timeLimitMillis   long of maximum time in milliseconds, 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        long now = System.nanoTime();
+        this.iterationDeadline = (timeLimitMillis > 0L) ? now + timeLimitMillis * 500000L : Long.MAX_VALUE;
+        this.deadline = (timeLimitMillis > 0L) ? now + timeLimitMillis * 1000000L : Long.MAX_VALUE;
+    }
+
+    /**
+     * clears the stop flag and the time limit before the search is started on another thread (see runSearch)
+     */
+    void resetStop() {
+        this.stopped = false;
+        setTimeLimit(0L);
+    }
+
+    /**
+     * @return  boolean of whether the search was stopped before its depth limit
+     */
+    public boolean isStopped() { return this.stopped; }
+
+    /**
+     * @return  int of packed best move of the last search, Move.NONE if there are no legal moves
+     */
+    public int getBestMove() { return this.bestMove; }
+
+    /**
+     * @return  int of score of the best move of the last search, from the view of the side to move
+     */
+    public int getBestScore() { return this.bestScore; }
+
+    /**
+     * @return  int of depth of the last completed iteration
+     */
+    public int getCompletedDepth() { return this.completedDepth; }
+
+    /**
+     * @return  long of nodes searched by the last search
+     */
+    public long getNodes() { return this.nodes; }
+
+    /**
+     * @return  PawnHashTable of pawn structure cache of this search, for hit rate statistics
+     */
+    public PawnHashTable getPawnHashTable() { return this.pawnHashTable; }
+
+    /**
+     * @return  String of principal variation of the last completed iteration in coordinate notation, separated by spaces
+     */
+    public String getPrincipalVariation() {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < this.rootVariationLength; i++) {
+            if (i > 0) str.append(' ');
+            str.append(Move.toString(this.rootVariation[i]));
+        }
+        return str.toString();
+    }
+
+    /**
+     * @param chessboard        Chessboard of position to search, restored to the same position on return
+     * @param maxDepth          int of maximum depth in plies
+     * @param maxNodes          long of maximum nodes, 0 for no limit
+     * @param timeLimitMillis   long of maximum time in milliseconds, 0 for no limit
+     * @return                  int of packed best move, Move.NONE if there are no legal moves
+     */
+    public int search(Chessboard chessboard, int maxDepth, long maxNodes, long timeLimitMillis) {
+        resetStop();
+        return runSearch(chessboard, maxDepth, maxNodes, timeLimitMillis);
+    }
+
+    /**
+     * same as search, but keeps the stop flag as it is, and without a time limit of its own also keeps the time limit. a
+     * parallel search clears both before handing the search to another thread, so that a stop or a ponderhit (setTimeLimit)
+     * arriving before that thread starts is not lost
+     */
+    int runSearch(Chessboard chessboard, int maxDepth, long maxNodes, long timeLimitMillis) {
+        this.chessboard = chessboard;
+        this.nodes = 0L;
+        this.maxNodes = (maxNodes > 0L) ? maxNodes : Long.MAX_VALUE;
+        this.startTime = System.nanoTime();
+        if (timeLimitMillis > 0L) setTimeLimit(timeLimitMillis);
+        this.bestMove = Move.NONE;
+        this.bestScore = 0;
+        this.completedDepth = 0;
+        this.rootVariationLength = 0;
+        this.transpositionTable.newSearch();
+        // killers are specific to the previous position, history is kept but weighs half as much
+        for (int[] plyKillers : this.killers) plyKillers[0] = plyKillers[1] = Move.NONE;
+        for (int[][] sideHistory : this.history) {
+            for (int[] fromHistory : sideHistory) {
+                for (int to = 0; to < 64; to++) fromHistory[to] /= 2;
+            }
+        }
+
+        int score = 0;
+        for (int depth = 1 + this.depthOffset; depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+            int alpha = -INFINITY, beta = INFINITY;
+            int delta = ASPIRATION_WINDOW;
+            if (depth >= ASPIRATION_MIN_DEPTH) {
+                alpha = Math.max(score - delta, -INFINITY);
+                beta = Math.min(score + delta, INFINITY);
+            }
+            while (true) {
+                score = negamax(depth, alpha, beta, 0, true);
+                if (this.stopped) break;
+                if (score <= alpha) alpha = Math.max(score - delta, -INFINITY);
+                else if (score >= beta) beta = Math.min(score + delta, INFINITY);
+                else break;
+                delta *= 2;
+            }
+            if (this.stopped) break;
+            this.completedDepth = depth;
+            this.bestScore = score;
+            this.rootVariationLength = this.principalVariationLength[0];
+            System.arraycopy(this.principalVariation[0], 0, this.rootVariation, 0, this.rootVariationLength);
+            if (this.rootVariationLength > 0) this.bestMove = this.rootVariation[0];
+            printInfo();
+            // no legal moves at the root
+            if (this.rootVariationLength == 0) break;
+            if (System.nanoTime() >= this.iterationDeadline) break;
+        }
+
+        // stopped before the first iteration completed, fall back to any legal move
+        if (this.bestMove == Move.NONE && MoveHandler.generateAllLegalMoves(chessboard, this.rootMoves) > 0) {
+            this.bestMove = this.rootMoves[0];
+        }
+        return this.bestMove;
+    }
+
+    /**
+     * @param depth     int of remaining depth in plies
+     * @param alpha     int of lower bound of the window
+     * @param beta      int of upper bound of the window
+     * @param ply       int of distance from the root in plies
+     * @param pvNode    boolean of whether the node is searched with a full window
+     * @return          int of score of the position for the side to move
+     */
+    private int negamax(int depth, int alpha, int beta, int ply, boolean pvNode) {
+        this.principalVariationLength[ply] = ply;
+        if ((++this.nodes & LIMIT_CHECK_MASK) == 0L) checkLimits();
+        if (this.stopped) return 0;
+        if (ply > 0 && (this.chessboard.getHalfMoveClock() >= 100 || this.chessboard.isRepetition())) return DRAW;
+        if (ply > 0 && this.tablebases != null) {
+            int code = this.tablebases.probe(this.chessboard);
+            if (code == Tablebase.DRAW) return DRAW;
+            if (code != Tablebases.NO_RESULT) {
+                int distance = Tablebase.getDistance(code);
+                if (ply + distance < MAX_PLY && this.chessboard.getHalfMoveClock() + distance <= 100) {
+                    return (Tablebase.isWin(code)) ? MATE - ply - distance : -MATE + ply + distance;
+                }
+            }
+        }
+        if (depth <= 0) return quiescence(alpha, beta, ply);
+        if (ply >= MAX_PLY - 1) return Evaluation.evaluate(this.chessboard, this.pawnHashTable);
+
+        long key = this.chessboard.getZobristKey();
+        long entry = this.transpositionTable.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != TranspositionTable.NO_ENTRY) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (!pvNode && TranspositionTable.getDepth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) return score;
+            }
+        }
+
+        boolean inCheck = this.chessboard.isKingInCheck();
+        int staticEvaluation = (inCheck) ? -INFINITY : Evaluation.evaluate(this.chessboard, this.pawnHashTable);
+        SearchParameters parameters = this.parameters;
+
+        if (!pvNode && !inCheck) {
+            // reverse futility pruning: far enough above beta that no move of the remaining plies is expected to lose it all
+            if (depth <= parameters.getReverseFutilityMaxDepth() && Math.abs(beta) < MATE_BOUND
+                && staticEvaluation - parameters.getReverseFutilityMargin() * depth >= beta) return staticEvaluation;
+
+            // null move pruning: passing the turn and still failing high means a real move would fail high too
+            // not after another null move, and not without pieces, where passing could be the only thing that does not lose (zugzwang)
+            if (depth >= parameters.getNullMoveMinDepth() && staticEvaluation >= beta
+                && !Move.getIsNullMove(this.chessboard.getLastMove()) && hasPieces(this.chessboard.getIsWhiteTurn())) {
+                this.chessboard.performNullMove();
+                int score = -negamax(depth - 1 - parameters.getNullMoveReduction(depth), -beta, -beta + 1, ply + 1, false);
+                this.chessboard.undoMove();
+                if (this.stopped) return 0;
+                // mate scores found after passing are not proven
+                if (score >= beta) return (score > MATE_BOUND) ? beta : score;
+            }
+        }
+        boolean futilityPruning = !pvNode && !inCheck && depth <= parameters.getFutilityMaxDepth()
+            && staticEvaluation + parameters.getFutilityMargin() * depth <= alpha;
+
+        MovePicker movePicker = this.movePickers[ply];
+        movePicker.init(this.chessboard, hashMove, this.killers[ply][0], this.killers[ply][1], this.history);
+        int[] quiets = this.quietsSearched[ply];
+        int quietCount = 0;
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int moveCount = 0;
+        for (int move = movePicker.nextMove(); move != Move.NONE; move = movePicker.nextMove()) {
+            boolean isQuiet = !Move.getIsCapture(move) && !Move.getIsPromotion(move);
+            this.chessboard.performMove(move);
+            boolean givesCheck = this.chessboard.isKingInCheck();
+            // futility pruning: quiet moves that do not check cannot close the gap to alpha
+            if (futilityPruning && isQuiet && !givesCheck && moveCount > 0) {
+                this.chessboard.undoMove();
+                continue;
+            }
+            int score;
+            if (moveCount++ == 0) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1, pvNode);
+            } else {
+                // late move reductions: quiet moves late in the order are unlikely to be best, search them less deep first
+                int reduction = 0;
+                if (depth >= parameters.getLmrMinDepth() && moveCount > parameters.getLmrMinMoves() && isQuiet && !inCheck && !givesCheck) {
+                    reduction = parameters.getLateMoveReduction(depth, moveCount);
+                    if (pvNode) reduction--;
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+                score = -negamax(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, false);
+                if (score > alpha && reduction > 0) score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                if (score > alpha && score < beta) score = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+            }
+            this.chessboard.undoMove();
+            if (this.stopped) return 0;
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        if (isQuiet) updateQuietHeuristics(ply, move, depth, quiets, quietCount);
+                        break;
+                    }
+                }
+            }
+            if (isQuiet) quiets[quietCount++] = move;
+        }
+        if (moveCount == 0) return (this.chessboard.isKingInCheck()) ? -MATE + ply : DRAW;
+
+        int bound = (bestScore >= beta) ? TranspositionTable.LOWER_BOUND
+            : (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        this.transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * @param alpha     int of lower bound of the window
+     * @param beta      int of upper bound of the window
+     * @param ply       int of distance from the root in plies
+     * @return          int of score of the position for the side to move, once no more profitable captures are left
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        this.principalVariationLength[ply] = ply;
+        if ((++this.nodes & LIMIT_CHECK_MASK) == 0L) checkLimits();
+        if (this.stopped) return 0;
+        if (ply >= MAX_PLY - 1) return Evaluation.evaluate(this.chessboard, this.pawnHashTable);
+
+        boolean inCheck = this.chessboard.isKingInCheck();
+        int standPat = -INFINITY;
+        int bestScore = -INFINITY;
+        MovePicker movePicker = this.movePickers[ply];
+        if (inCheck) {
+            movePicker.init(this.chessboard, Move.NONE, Move.NONE, Move.NONE, this.history);
+        } else {
+            // the side to move can decline every capture, so the evaluation is a lower bound of the score
+            standPat = Evaluation.evaluate(this.chessboard, this.pawnHashTable);
+            if (standPat >= beta) return standPat;
+            if (standPat > alpha) alpha = standPat;
+            bestScore = standPat;
+            movePicker.initQuiescence(this.chessboard);
+        }
+
+        int moveCount = 0;
+        for (int move = movePicker.nextMove(); move != Move.NONE; move = movePicker.nextMove()) {
+            moveCount++;
+            if (!inCheck) {
+                int gain = (Move.getIsCapture(move)) ? Evaluation.PIECE_VALUES[Piece.getType(Move.getCapturedPiece(move))] : 0;
+                if (!Move.getIsPromotion(move) && standPat + gain + DELTA_MARGIN <= alpha) continue;
+                if (!StaticExchange.seeGreaterOrEqual(this.chessboard, move, 0)) continue;
+            }
+            this.chessboard.performMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            this.chessboard.undoMove();
+            if (this.stopped) return 0;
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) break;
+                }
+            }
+        }
+        if (inCheck && moveCount == 0) return -MATE + ply;
+        return bestScore;
+    }
+
+    /**
+     * sets the stop flag once the node or time limit is reached
+     */
+    private void checkLimits() {
+        if (this.nodes >= this.maxNodes || System.nanoTime() >= this.deadline) this.stopped = true;
+    }
+
+    /**
+     * @param isWhite   boolean of side to check
+     * @return          boolean of whether the side has any piece other than pawns and the king
+     */
+    private boolean hasPieces(boolean isWhite) {
+        int offset = (isWhite) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+        return (this.chessboard.getPiecesPosition(offset + Piece.QUEEN) | this.chessboard.getPiecesPosition(offset + Piece.ROOK)
+            | this.chessboard.getPiecesPosition(offset + Piece.BISHOP) | this.chessboard.getPiecesPosition(offset + Piece.KNIGHT)) != 0L;
+    }
+
+    /**
+     * a quiet move caused a cutoff: it becomes the first killer of the ply, its history score rises
+     * and the history scores of the quiet moves searched before it fall
+     * @param ply           int of distance from the root in plies
+     * @param move          int of packed quiet move that caused the cutoff
+     * @param depth         int of remaining depth, deeper cutoffs weigh more
+     * @param quiets        int[] of quiet moves searched before the cutoff
+     * @param quietCount    int of number of quiet moves searched before the cutoff
+     */
+    private void updateQuietHeuristics(int ply, int move, int depth, int[] quiets, int quietCount) {
+        int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[][] sideHistory = this.history[(this.chessboard.getIsWhiteTurn()) ? 0 : 1];
+        int bonus = Math.min(depth * depth, HISTORY_MAX / 8);
+        updateHistory(sideHistory, move, bonus);
+        for (int i = 0; i < quietCount; i++) updateHistory(sideHistory, quiets[i], -bonus);
+    }
+
+    private static void updateHistory(int[][] sideHistory, int move, int bonus) {
+        int[] fromHistory = sideHistory[Move.getFrom(move)];
+        int to = Move.getTo(move);
+        fromHistory[to] += bonus - fromHistory[to] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        int[] variation = this.principalVariation[ply];
+        int[] childVariation = this.principalVariation[ply + 1];
+        int childLength = this.principalVariationLength[ply + 1];
+        variation[ply] = move;
+        System.arraycopy(childVariation, ply + 1, variation, ply + 1, childLength - ply - 1);
+        this.principalVariationLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    /**
+     * mate scores are stored relative to the node instead of the root, so that an entry is valid at any ply
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score > MATE_BOUND) return score + ply;
+        if (score < -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score > MATE_BOUND) return score - ply;
+        if (score < -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    /**
+     * prints the result of the last completed iteration as a UCI info line
+     */
+    private void printInfo() {
+        if (this.infoOutput == null) return;
+        long elapsed = System.nanoTime() - this.startTime;
+        long totalNodes = this.nodes;
+        for (Search helper : this.helpers) totalNodes += helper.nodes;
+        long nodesPerSecond = (elapsed > 0L) ? (long) (totalNodes * 1e9 / elapsed) : 0L;
+        this.infoOutput.println("info depth " + this.completedDepth + " score " + formatScore(this.bestScore)
+            + " nodes " + totalNodes + " nps " + nodesPerSecond + " time " + elapsed / 1000000L
+            + " hashfull " + this.transpositionTable.hashfull() + " pv " + getPrincipalVariation());
+    }
+
+    /**
+     * @param score int of score from the view of the side to move
+     * @return      String of score in UCI format, cp [centipawns] or mate [moves] (negative if getting mated)
+     */
+    public static String formatScore(int score) {
+        if (score > MATE_BOUND) return "mate " + (MATE - score + 1) / 2;
+        if (score < -MATE_BOUND) return "mate " + -(MATE + score) / 2;
+        return "cp " + score;
+    }
+}
@@ -0,0 +1,147 @@
+package Engine;
+
+public class SearchParameters {
+
+    /**
+     * tunable parameters of the selective search (see Search)
+     *
+     * null move pruning: if the side to move passes and a reduced search still fails high, the node is cut off.
+     * the reduction is nullMoveReduction + depth / nullMoveDepthDivisor, from nullMoveMinDepth on
+     * reverse futility pruning: at depth up to reverseFutilityMaxDepth, a node whose static evaluation beats beta by
+     * reverseFutilityMargin per ply is cut off
+     * futility pruning: at depth up to futilityMaxDepth, quiet moves are skipped if the static evaluation plus
+     * futilityMargin per ply cannot reach alpha
+     * late move reductions: from lmrMinDepth on, quiet moves after the first lmrMinMoves are searched with a reduction of
+     * lmrBase / 100 + ln(depth) * ln(move number) * 100 / lmrDivisor plies, and re-searched at full depth if they beat alpha
+     *
+     * parameters can be set by name (see NAMES), so a front-end can expose them as options
+     */
+    public static final String[] NAMES = new String[] {
+        "NullMoveMinDepth", "NullMoveReduction", "NullMoveDepthDivisor",
+        "ReverseFutilityMaxDepth", "ReverseFutilityMargin",
+        "FutilityMaxDepth", "FutilityMargin",
+        "LmrMinDepth", "LmrMinMoves", "LmrBase", "LmrDivisor",
+    };
+
+    private int nullMoveMinDepth = 3;
+    private int nullMoveReduction = 3;
+    private int nullMoveDepthDivisor = 4;
+    private int reverseFutilityMaxDepth = 6;
+    private int reverseFutilityMargin = 80;
+    private int futilityMaxDepth = 3;
+    private int futilityMargin = 120;
+    private int lmrMinDepth = 3;
+    private int lmrMinMoves = 3;
+    private int lmrBase = 75;
+    private int lmrDivisor = 225;
+
+    // reductions indexed by depth and move number, recomputed when a late move reduction parameter changes
+    private final int[][] lateMoveReductions = new int[Search.MAX_PLY][MoveHandler.MAX_MOVES];
+
+    public SearchParameters() {
+        updateLateMoveReductions();
+    }
+
+    /**
+     * @param name  String of parameter name (see NAMES)
+     * @param value int of new value
+     * @return      boolean of whether the name is a parameter
+     */
+    public boolean setParameter(String name, int value) {
+        switch (name) {
+            case "NullMoveMinDepth": this.nullMoveMinDepth = value; break;
+            case "NullMoveReduction": this.nullMoveReduction = value; break;
+            case "NullMoveDepthDivisor": this.nullMoveDepthDivisor = Math.max(1, value); break;
+            case "ReverseFutilityMaxDepth": this.reverseFutilityMaxDepth = value; break;
+            case "ReverseFutilityMargin": this.reverseFutilityMargin = value; break;
+            case "FutilityMaxDepth": this.futilityMaxDepth = value; break;
+            case "FutilityMargin": this.futilityMargin = value; break;
+            case "LmrMinDepth": this.lmrMinDepth = value; break;
+            case "LmrMinMoves": this.lmrMinMoves = value; break;
+            case "LmrBase": this.lmrBase = value; updateLateMoveReductions(); break;
+            case "LmrDivisor": this.lmrDivisor = Math.max(1, value); updateLateMoveReductions(); break;
+            default: return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param name  String of parameter name (see NAMES)
+     * @return      int of current value
+     */
+    public int getParameter(String name) {
+        switch (name) {
+            case "NullMoveMinDepth": return this.nullMoveMinDepth;
+            case "NullMoveReduction": return this.nullMoveReduction;
+            case "NullMoveDepthDivisor": return this.nullMoveDepthDivisor;
+            case "ReverseFutilityMaxDepth": return this.reverseFutilityMaxDepth;
+            case "ReverseFutilityMargin": return this.reverseFutilityMargin;
+            case "FutilityMaxDepth": return this.futilityMaxDepth;
+            case "FutilityMargin": return this.futilityMargin;
+            case "LmrMinDepth": return this.lmrMinDepth;
+            case "LmrMinMoves": return this.lmrMinMoves;
+            case "LmrBase": return this.lmrBase;
+            case "LmrDivisor": return this.lmrDivisor;
+            default: throw new IllegalArgumentException("unknown search parameter: ".concat(name));
+        }
+    }
+
+    private void updateLateMoveReductions() {
+        for (int depth = 1; depth < Search.MAX_PLY; depth++) {
+            for (int moveNumber = 1; moveNumber < MoveHandler.MAX_MOVES; moveNumber++) {
+                double reduction = this.lmrBase / 100.0 + Math.log(depth) * Math.log(moveNumber) * 100.0 / this.lmrDivisor;
+                this.lateMoveReductions[depth][moveNumber] = (int) reduction;
+            }
+        }
+    }
+
+    /**
+     * @return  int of minimum remaining depth of null move pruning
+     */
+    public int getNullMoveMinDepth() { return this.nullMoveMinDepth; }
+
+    /**
+     * @param depth int of remaining depth in plies
+     * @return      int of depth reduction of the null move search
+     */
+    public int getNullMoveReduction(int depth) { return this.nullMoveReduction + depth / this.nullMoveDepthDivisor; }
+
+    /**
+     * @return  int of maximum remaining depth of reverse futility pruning
+     */
+    public int getReverseFutilityMaxDepth() { return this.reverseFutilityMaxDepth; }
+
+    /**
+     * @return  int of reverse futility margin per ply
+     */
+    public int getReverseFutilityMargin() { return this.reverseFutilityMargin; }
+
+    /**
+     * @return  int of maximum remaining depth of futility pruning
+     */
+    public int getFutilityMaxDepth() { return this.futilityMaxDepth; }
+
+    /**
+     * @return  int of futility margin per ply
+     */
+    public int getFutilityMargin() { return this.futilityMargin; }
+
+    /**
+     * @return  int of minimum remaining depth of late move reductions
+     */
+    public int getLmrMinDepth() { return this.lmrMinDepth; }
+
+    /**
+     * @return  int of number of moves searched without reduction
+     */
+    public int getLmrMinMoves() { return this.lmrMinMoves; }
+
+    /**
+     * @param depth         int of remaining depth in plies
+     * @param moveNumber    int of number of the move in the node, starting at 1
+     * @return              int of depth reduction of the move
+     */
+    public int getLateMoveReduction(int depth, int moveNumber) {
+        return this.lateMoveReductions[Math.min(depth, Search.MAX_PLY - 1)][Math.min(moveNumber, MoveHandler.MAX_MOVES - 1)];
+    }
+}
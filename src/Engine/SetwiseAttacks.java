@@ -0,0 +1,296 @@
+package Engine;
+
+public class SetwiseAttacks {
+
+    /**
+     * set-wise attack generation: the attacks of all pieces of one kind are computed at once with shifts of the whole set,
+     * instead of one table lookup per piece (see Chessboard.generateAttackedSquares, which returns the same squares)
+     *
+     * sliding attacks use Kogge-Stone occluded fills: in log2(7) = 3 doubling steps, the sliders are propagated through the
+     * empty squares in one direction, and one more shift gives the attacked squares, blockers included
+     * east-going directions mask out the A file (and west-going the H file) so that nothing wraps around the board edge
+     *
+     * every step is branch-free and independent of the number of pieces, so the same code runs over arrays of boards
+     * (see AttackBatch): each loop does one step for every board, which C2 compiles to SIMD instructions (SuperWord)
+     */
+    private static final long NOT_A_FILE = 0xFEFEFEFEFEFEFEFEL;
+    private static final long NOT_H_FILE = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NOT_AB_FILE = 0xFCFCFCFCFCFCFCFCL;
+    private static final long NOT_GH_FILE = 0x3F3F3F3F3F3F3F3FL;
+
+    /**
+     * @param chessboard    Chessboard of position
+     * @param byWhite       boolean of if attacks are of white pieces
+     * @param occupancy     long of board occupancy that blocks sliding pieces
+     * @return              long of all squares attacked by the given colour
+     */
+    public static long getAttackedSquares(Chessboard chessboard, boolean byWhite, long occupancy) {
+        int offset = (byWhite) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+        long queens = chessboard.getPiecesPosition(offset + Piece.QUEEN);
+        long pawns = chessboard.getPiecesPosition(offset + Piece.PAWN);
+        return getRookAttacks(chessboard.getPiecesPosition(offset + Piece.ROOK) | queens, occupancy)
+            | getBishopAttacks(chessboard.getPiecesPosition(offset + Piece.BISHOP) | queens, occupancy)
+            | getKnightAttacks(chessboard.getPiecesPosition(offset + Piece.KNIGHT))
+            | getKingAttacks(chessboard.getPiecesPosition(offset + Piece.KING))
+            | ((byWhite) ? getWhitePawnAttacks(pawns) : getBlackPawnAttacks(pawns));
+    }
+
+    /**
+     * @param rooks     long of positions of rook-like sliders (rooks and queens)
+     * @param occupancy long of board occupancy that blocks sliding pieces
+     * @return          long of all squares attacked along ranks and files
+     */
+    public static long getRookAttacks(long rooks, long occupancy) {
+        long empty = ~occupancy;
+        return northAttacks(rooks, empty) | southAttacks(rooks, empty) | eastAttacks(rooks, empty) | westAttacks(rooks, empty);
+    }
+
+    /**
+     * @param bishops   long of positions of bishop-like sliders (bishops and queens)
+     * @param occupancy long of board occupancy that blocks sliding pieces
+     * @return          long of all squares attacked along diagonals
+     */
+    public static long getBishopAttacks(long bishops, long occupancy) {
+        long empty = ~occupancy;
+        return northEastAttacks(bishops, empty) | northWestAttacks(bishops, empty) | southEastAttacks(bishops, empty) | southWestAttacks(bishops, empty);
+    }
+
+    /**
+     * @param knights   long of knight positions
+     * @return          long of all squares attacked by the knights
+     */
+    public static long getKnightAttacks(long knights) {
+        long east = (knights << 1) & NOT_A_FILE, west = (knights >>> 1) & NOT_H_FILE;
+        long eastEast = (knights << 2) & NOT_AB_FILE, westWest = (knights >>> 2) & NOT_GH_FILE;
+        long oneFile = east | west, twoFiles = eastEast | westWest;
+        return (oneFile << 16) | (oneFile >>> 16) | (twoFiles << 8) | (twoFiles >>> 8);
+    }
+
+    /**
+     * @param kings long of king positions
+     * @return      long of all squares attacked by the kings
+     */
+    public static long getKingAttacks(long kings) {
+        long row = kings | ((kings << 1) & NOT_A_FILE) | ((kings >>> 1) & NOT_H_FILE);
+        return (row | (row << 8) | (row >>> 8)) & ~kings;
+    }
+
+    /**
+     * @param pawns long of white pawn positions
+     * @return      long of all squares attacked by the pawns
+     */
+    public static long getWhitePawnAttacks(long pawns) { return ((pawns << 7) & NOT_H_FILE) | ((pawns << 9) & NOT_A_FILE); }
+
+    /**
+     * @param pawns long of black pawn positions
+     * @return      long of all squares attacked by the pawns
+     */
+    public static long getBlackPawnAttacks(long pawns) { return ((pawns >>> 9) & NOT_H_FILE) | ((pawns >>> 7) & NOT_A_FILE); }
+
+    /*
+     * occluded fills, one per direction
+     * @param sliders   long of slider positions
+     * @param empty     long of empty squares
+     * @return          long of squares attacked in the direction, including the first blocker
+     */
+
+    private static long northAttacks(long sliders, long empty) {
+        sliders |= empty & (sliders << 8);
+        empty &= empty << 8;
+        sliders |= empty & (sliders << 16);
+        empty &= empty << 16;
+        sliders |= empty & (sliders << 32);
+        return sliders << 8;
+    }
+
+    private static long southAttacks(long sliders, long empty) {
+        sliders |= empty & (sliders >>> 8);
+        empty &= empty >>> 8;
+        sliders |= empty & (sliders >>> 16);
+        empty &= empty >>> 16;
+        sliders |= empty & (sliders >>> 32);
+        return sliders >>> 8;
+    }
+
+    private static long eastAttacks(long sliders, long empty) {
+        empty &= NOT_A_FILE;
+        sliders |= empty & (sliders << 1);
+        empty &= empty << 1;
+        sliders |= empty & (sliders << 2);
+        empty &= empty << 2;
+        sliders |= empty & (sliders << 4);
+        return (sliders << 1) & NOT_A_FILE;
+    }
+
+    private static long westAttacks(long sliders, long empty) {
+        empty &= NOT_H_FILE;
+        sliders |= empty & (sliders >>> 1);
+        empty &= empty >>> 1;
+        sliders |= empty & (sliders >>> 2);
+        empty &= empty >>> 2;
+        sliders |= empty & (sliders >>> 4);
+        return (sliders >>> 1) & NOT_H_FILE;
+    }
+
+    private static long northEastAttacks(long sliders, long empty) {
+        empty &= NOT_A_FILE;
+        sliders |= empty & (sliders << 9);
+        empty &= empty << 9;
+        sliders |= empty & (sliders << 18);
+        empty &= empty << 18;
+        sliders |= empty & (sliders << 36);
+        return (sliders << 9) & NOT_A_FILE;
+    }
+
+    private static long northWestAttacks(long sliders, long empty) {
+        empty &= NOT_H_FILE;
+        sliders |= empty & (sliders << 7);
+        empty &= empty << 7;
+        sliders |= empty & (sliders << 14);
+        empty &= empty << 14;
+        sliders |= empty & (sliders << 28);
+        return (sliders << 7) & NOT_H_FILE;
+    }
+
+    private static long southEastAttacks(long sliders, long empty) {
+        empty &= NOT_A_FILE;
+        sliders |= empty & (sliders >>> 7);
+        empty &= empty >>> 7;
+        sliders |= empty & (sliders >>> 14);
+        empty &= empty >>> 14;
+        sliders |= empty & (sliders >>> 28);
+        return (sliders >>> 7) & NOT_A_FILE;
+    }
+
+    private static long southWestAttacks(long sliders, long empty) {
+        empty &= NOT_H_FILE;
+        sliders |= empty & (sliders >>> 9);
+        empty &= empty >>> 9;
+        sliders |= empty & (sliders >>> 18);
+        empty &= empty >>> 18;
+        sliders |= empty & (sliders >>> 36);
+        return (sliders >>> 9) & NOT_H_FILE;
+    }
+
+    /**
+     * attack maps of many boards at once, stored structure-of-arrays: lane i of every array belongs to board i
+     * compute runs every fill step as a loop over all lanes, so the JIT can process several boards per SIMD instruction
+     * lanes are reused between batches, so computing attack maps of a stream of positions allocates nothing
+     */
+    public static final class AttackBatch {
+        private final long[] rookSliders, bishopSliders, knights, kings, whitePawns, blackPawns, empty, attacks;
+        private final long[] fill, propagator;
+        private int size;
+
+        /**
+         * @param capacity  int of maximum number of boards in the batch
+         */
+        public AttackBatch(int capacity) {
+            this.rookSliders = new long[capacity];
+            this.bishopSliders = new long[capacity];
+            this.knights = new long[capacity];
+            this.kings = new long[capacity];
+            this.whitePawns = new long[capacity];
+            this.blackPawns = new long[capacity];
+            this.empty = new long[capacity];
+            this.attacks = new long[capacity];
+            this.fill = new long[capacity];
+            this.propagator = new long[capacity];
+        }
+
+        /**
+         * @return  int of number of boards in the batch
+         */
+        public int size() { return this.size; }
+
+        /**
+         * @return  int of maximum number of boards in the batch
+         */
+        public int capacity() { return this.attacks.length; }
+
+        /**
+         * empties the batch
+         */
+        public void clear() { this.size = 0; }
+
+        /**
+         * adds the pieces of one side of a board to the batch
+         * @param chessboard    Chessboard of position
+         * @param byWhite       boolean of if attacks are of white pieces
+         * @return              int of lane of the board, to read its attacks with getAttacks after compute
+         */
+        public int add(Chessboard chessboard, boolean byWhite) {
+            if (this.size == this.attacks.length) throw new IllegalStateException("attack batch is full");
+            int offset = (byWhite) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+            long queens = chessboard.getPiecesPosition(offset + Piece.QUEEN);
+            long pawns = chessboard.getPiecesPosition(offset + Piece.PAWN);
+            int lane = this.size++;
+            this.rookSliders[lane] = chessboard.getPiecesPosition(offset + Piece.ROOK) | queens;
+            this.bishopSliders[lane] = chessboard.getPiecesPosition(offset + Piece.BISHOP) | queens;
+            this.knights[lane] = chessboard.getPiecesPosition(offset + Piece.KNIGHT);
+            this.kings[lane] = chessboard.getPiecesPosition(offset + Piece.KING);
+            this.whitePawns[lane] = (byWhite) ? pawns : 0L;
+            this.blackPawns[lane] = (byWhite) ? 0L : pawns;
+            this.empty[lane] = ~chessboard.getFullBitboard();
+            return lane;
+        }
+
+        /**
+         * @param lane  int of lane returned by add
+         * @return      long of all squares attacked by the side added in the lane, valid after compute
+         */
+        public long getAttacks(int lane) { return this.attacks[lane]; }
+
+        /**
+         * computes the attack maps of every board in the batch
+         */
+        public void compute() {
+            int count = this.size;
+            for (int i = 0; i < count; i++) {
+                this.attacks[i] = getKnightAttacks(this.knights[i]) | getKingAttacks(this.kings[i])
+                    | getWhitePawnAttacks(this.whitePawns[i]) | getBlackPawnAttacks(this.blackPawns[i]);
+            }
+            fill(this.rookSliders, 8, -1L, count);
+            fill(this.rookSliders, -8, -1L, count);
+            fill(this.rookSliders, 1, NOT_A_FILE, count);
+            fill(this.rookSliders, -1, NOT_H_FILE, count);
+            fill(this.bishopSliders, 9, NOT_A_FILE, count);
+            fill(this.bishopSliders, 7, NOT_H_FILE, count);
+            fill(this.bishopSliders, -7, NOT_A_FILE, count);
+            fill(this.bishopSliders, -9, NOT_H_FILE, count);
+        }
+
+        /**
+         * one occluded fill direction for every lane, accumulated into attacks
+         * every step is a separate loop with a constant shift, the loop shape SuperWord vectorises
+         * @param sliders   long[] of slider positions per lane
+         * @param shift     int of square offset of one step of the direction (positive is a left shift)
+         * @param wrapMask  long of squares a step may land on without wrapping around the board edge
+         * @param count     int of number of lanes
+         */
+        private void fill(long[] sliders, int shift, long wrapMask, int count) {
+            long[] fill = this.fill, propagator = this.propagator, empty = this.empty;
+            for (int i = 0; i < count; i++) {
+                fill[i] = sliders[i];
+                propagator[i] = empty[i] & wrapMask;
+            }
+            if (shift > 0) {
+                for (int step = shift; step < 8 * shift; step <<= 1) {
+                    for (int i = 0; i < count; i++) {
+                        fill[i] |= propagator[i] & (fill[i] << step);
+                        propagator[i] &= propagator[i] << step;
+                    }
+                }
+                for (int i = 0; i < count; i++) this.attacks[i] |= (fill[i] << shift) & wrapMask;
+            } else {
+                for (int step = -shift; step < -8 * shift; step <<= 1) {
+                    for (int i = 0; i < count; i++) {
+                        fill[i] |= propagator[i] & (fill[i] >>> step);
+                        propagator[i] &= propagator[i] >>> step;
+                    }
+                }
+                for (int i = 0; i < count; i++) this.attacks[i] |= (fill[i] >>> -shift) & wrapMask;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package Engine;
+
+public abstract class SlidingAttacks {
+
+    /**
+     * backend of rook and bishop attack lookups, queen attacks are the union of both
+     * every backend returns the same attacks, they only trade table memory against arithmetic:
+     * fixed: magic bitboards with one fixed shift for all squares, 4096 rook and 512 bishop entries per square (about 2.3 MB)
+     * fancy: magic bitboards with a shift and offset per square into one shared table (about 840 KB)
+     * hyperbola: no attack tables, attacks along each line are computed with hyperbola quintessence subtraction
+     *
+     * the backend used by PCMBB is chosen once when PCMBB is initialised, from the system property BACKEND_PROPERTY,
+     * so the lookup call site only ever sees one implementation and the JIT inlines it
+     */
+    public static final String BACKEND_PROPERTY = "engine.sliders";
+    public static final String FIXED_MAGIC = "fixed";
+    public static final String FANCY_MAGIC = "fancy";
+    public static final String HYPERBOLA = "hyperbola";
+    public static final String DEFAULT_BACKEND = FANCY_MAGIC;
+    public static final String[] BACKENDS = new String[] { FIXED_MAGIC, FANCY_MAGIC, HYPERBOLA };
+
+    /**
+     * @param name  String of backend name (FIXED_MAGIC, FANCY_MAGIC, HYPERBOLA)
+     * @return      SlidingAttacks of a new backend with its tables built
+     */
+    public static SlidingAttacks create(String name) {
+        switch (name) {
+            case FIXED_MAGIC:
+                return new FixedMagicAttacks();
+            case FANCY_MAGIC:
+                return new FancyMagicAttacks();
+            case HYPERBOLA:
+                return new HyperbolaAttacks();
+            default:
+                throw new IllegalArgumentException("unknown sliding attacks backend: ".concat(name));
+        }
+    }
+
+    /**
+     * @return  String of backend name
+     */
+    public abstract String getName();
+
+    /**
+     * @return  long of bytes of attack tables held by the backend
+     */
+    public abstract long getTableBytes();
+
+    /**
+     * @param square        int index of piece coordinate
+     * @param occupancy     long of the board
+     * @return              long of all rook attacks for rook at square and occupancy
+     */
+    public abstract long getRookAttacks(int square, long occupancy);
+
+    /**
+     * @param square        int index of piece coordinate
+     * @param occupancy     long of the board
+     * @return              long of all bishop attacks for bishop at square and occupancy
+     */
+    public abstract long getBishopAttacks(int square, long occupancy);
+
+    /**
+     * @param square        int index of piece coordinate
+     * @param occupancy     long of the board
+     * @return              long of all queen attacks for queen at square and occupancy
+     */
+    public long getQueenAttacks(int square, long occupancy) { return getBishopAttacks(square, occupancy) | getRookAttacks(square, occupancy); }
+
+    /**
+     * enumerates the subsets of a mask (carry-rippler), e.g. every blocker configuration of a magic mask
+     * @param mask      long of mask
+     * @param subset    long of current subset, start with 0
+     * @return          long of next subset, 0 after the last one
+     */
+    static long nextSubset(long mask, long subset) { return (subset - mask) & mask; }
+}
@@ -0,0 +1,82 @@
+package Engine;
+
+public class StaticExchange {
+
+    /**
+     * static exchange evaluation (SEE): the material outcome of the capture sequence on one square, where both sides always
+     * recapture with their least valuable attacker and may stop capturing whenever that is better for them
+     *
+     * pieces are removed from the occupancy as they capture, and the rook and bishop attacks of the square are looked up again
+     * with the new occupancy, so sliders behind a capturing piece (x-rays) join the sequence
+     * pins are not considered, a pinned piece is counted as an attacker
+     */
+
+    /**
+     * @param chessboard    Chessboard of position before the move
+     * @param move          int of packed move
+     * @param threshold     int of material gain to compare against
+     * @return              boolean of whether the exchange started by the move wins at least threshold material
+     */
+    public static boolean seeGreaterOrEqual(Chessboard chessboard, int move, int threshold) {
+        // promotions, en passant and castling are treated as even exchanges
+        if (Move.getIsPromotion(move) || Move.getIsEnPassant(move) || Move.getIsCastle(move)) return 0 >= threshold;
+
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        // balance of the exchange for the side making the move, assuming the last capture is not recaptured
+        int balance = ((Move.getIsCapture(move)) ? getValue(Move.getCapturedPiece(move)) : 0) - threshold;
+        if (balance < 0) return false;
+        // assuming the moving piece is lost for nothing
+        balance = getValue(Move.getMovingPiece(move)) - balance;
+        if (balance <= 0) return true;
+
+        long occupancy = chessboard.getFullBitboard() ^ (1L << from) ^ (1L << to);
+        boolean whiteToCapture = Piece.isWhite(Move.getMovingPiece(move));
+        long attackers = chessboard.attackersTo(to, occupancy);
+        long diagonalSliders = chessboard.getPiecesPosition(Piece.WHITE_BISHOP) | chessboard.getPiecesPosition(Piece.BLACK_BISHOP)
+            | chessboard.getPiecesPosition(Piece.WHITE_QUEEN) | chessboard.getPiecesPosition(Piece.BLACK_QUEEN);
+        long straightSliders = chessboard.getPiecesPosition(Piece.WHITE_ROOK) | chessboard.getPiecesPosition(Piece.BLACK_ROOK)
+            | chessboard.getPiecesPosition(Piece.WHITE_QUEEN) | chessboard.getPiecesPosition(Piece.BLACK_QUEEN);
+        // result: true if the side that made the move is winning the exchange so far
+        boolean result = true;
+
+        while (true) {
+            whiteToCapture = !whiteToCapture;
+            attackers &= occupancy;
+            long ownAttackers = attackers & chessboard.getSameColouredBoard(whiteToCapture);
+            if (ownAttackers == 0L) break;
+            result = !result;
+
+            // least valuable attacker captures next
+            int offset = (whiteToCapture) ? Piece.WHITE_OFFSET : Piece.BLACK_OFFSET;
+            int attackerType = Piece.PAWN;
+            long attacker = 0L;
+            for (; attackerType >= Piece.KING; attackerType--) {
+                attacker = ownAttackers & chessboard.getPiecesPosition(offset + attackerType);
+                if (attacker != 0L) break;
+            }
+            // a king can only capture if the square is no longer defended
+            if (attackerType == Piece.KING) {
+                return ((attackers & ~chessboard.getSameColouredBoard(whiteToCapture)) != 0L) ? !result : result;
+            }
+
+            balance = Evaluation.PIECE_VALUES[attackerType] - balance;
+            // the side to capture is ahead even if it loses the capturing piece, so it stops the exchange here
+            if (balance < ((result) ? 1 : 0)) break;
+            occupancy ^= PCMBB.getLowestPosition(attacker);
+            if (attackerType == Piece.PAWN || attackerType == Piece.BISHOP || attackerType == Piece.QUEEN) {
+                attackers |= PCMBB.getBishopAttacks(to, occupancy) & diagonalSliders;
+            }
+            if (attackerType == Piece.ROOK || attackerType == Piece.QUEEN) {
+                attackers |= PCMBB.getRookAttacks(to, occupancy) & straightSliders;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param pieceIndex    int of piece index
+     * @return              int of exchange value of the piece
+     */
+    private static int getValue(int pieceIndex) { return Evaluation.PIECE_VALUES[Piece.getType(pieceIndex)]; }
+}
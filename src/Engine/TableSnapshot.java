@@ -0,0 +1,138 @@
+package Engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class TableSnapshot {
+
+    /**
+     * binary snapshot of the precomputed PCMBB tables, so that start-up maps a file instead of generating the tables
+     * written once with: App tables [path], read by PCMBB from the path in the system property PATH_PROPERTY
+     *
+     * file layout (native byte order):
+     * header: int FILE_MAGIC, int FORMAT_VERSION, long content key, long payload length in bytes, long CRC32 of the payload
+     * payload: longs of the step tables (STEP_TABLE_COUNT tables of 64), the rook and bishop masks, BETWEEN, LINE, and the
+     * fancy magic attack table (see FancyMagicAttacks)
+     *
+     * the file is mapped read-only with FileChannel.map, so its pages come from the OS page cache shared by every process
+     * using it. the tables are copied out of the mapping into the usual arrays, because array lookups are faster than
+     * LongBuffer lookups on the hot path, and the copy is a bulk memory copy instead of a generation
+     *
+     * a file is stale if its magic, version, content key, length or checksum does not match, and PCMBB then generates the
+     * tables as if there were no file. the content key is the CRC32 of the class files of GENERATORS, which hold the code
+     * and the constants (magic numbers, bits, move sets) every table is generated from, so any change to the generation
+     * makes older files stale without a version bump. a different compiler may also change the key, which only costs one
+     * generation
+     */
+    public static final String PATH_PROPERTY = "engine.tables";
+    public static final String DEFAULT_PATH = "pcmbb.tables";
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int FILE_MAGIC = 0x42544543;
+    private static final int HEADER_BYTES = 32;
+    // king, knight, white pawn moves, white pawn attacks, black pawn moves, black pawn attacks, rook masks, bishop masks
+    static final int STEP_TABLE_COUNT = 8;
+    // classes whose code or constants generate the tables in the snapshot or lay them out in the file, BETWEEN and LINE
+    // come from the sliding attacks of whichever backend wrote the file
+    private static final Class<?>[] GENERATORS = new Class<?>[] {
+        PCMBB.class, SlidingAttacks.class, FancyMagicAttacks.class, FixedMagicAttacks.class, HyperbolaAttacks.class, TableSnapshot.class,
+    };
+
+    /**
+     * @return  long of number of longs in the payload
+     */
+    private static long getPayloadLongs() { return (STEP_TABLE_COUNT * 64L) + (2L * 64 * 64) + FancyMagicAttacks.getTableSize(); }
+
+    /**
+     * @return  long of key of the table contents, the CRC32 of the class files of GENERATORS
+     * @throws IOException if a class file cannot be read
+     */
+    private static long getContentKey() throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        for (Class<?> generator : GENERATORS) {
+            String resource = generator.getSimpleName().concat(".class");
+            try (InputStream classFile = generator.getResourceAsStream(resource)) {
+                if (classFile == null) throw new IOException("cannot read class file ".concat(generator.getName()));
+                int count;
+                while ((count = classFile.read(buffer)) > 0) crc.update(buffer, 0, count);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @return  Path of snapshot file from PATH_PROPERTY, or DEFAULT_PATH in the working directory
+     */
+    public static Path getPath() { return Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH)); }
+
+    /**
+     * maps and validates a snapshot file
+     * @param path  Path of snapshot file
+     * @return      LongBuffer of the payload, positioned at the first step table, null if the file is missing or stale
+     */
+    public static LongBuffer load(Path path) {
+        if (!Files.isRegularFile(path)) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long payloadBytes = getPayloadLongs() * Long.BYTES;
+            if (channel.size() != HEADER_BYTES + payloadBytes) return null;
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            mapped.order(ByteOrder.nativeOrder());
+            if (mapped.getInt(0) != FILE_MAGIC || mapped.getInt(4) != FORMAT_VERSION || mapped.getLong(8) != getContentKey()) return null;
+            if (mapped.getLong(16) != payloadBytes) return null;
+            ByteBuffer payload = mapped.position(HEADER_BYTES).slice().order(ByteOrder.nativeOrder());
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (mapped.getLong(24) != crc.getValue()) return null;
+            return payload.asLongBuffer();
+        } catch (IOException | RuntimeException e) {
+            // an unreadable snapshot is treated like a missing one
+            return null;
+        }
+    }
+
+    /**
+     * writes the snapshot of the current tables. the file is written next to path and then moved over it, so a process
+     * starting at the same time maps either the old file or the complete new one
+     * @param path  Path of snapshot file
+     */
+    public static void write(Path path) throws IOException {
+        long[][] stepTables = new long[][] {
+            PCMBB.KING_ATTACKS, PCMBB.KNIGHT_ATTACKS, PCMBB.WHITE_PAWN_MOVES, PCMBB.WHITE_PAWN_ATTACKS,
+            PCMBB.BLACK_PAWN_MOVES, PCMBB.BLACK_PAWN_ATTACKS, PCMBB.ROOK_MASK, PCMBB.BISHOP_MASK,
+        };
+        ByteBuffer payload = ByteBuffer.allocate((int) (getPayloadLongs() * Long.BYTES)).order(ByteOrder.nativeOrder());
+        LongBuffer longs = payload.asLongBuffer();
+        for (long[] table : stepTables) longs.put(table);
+        for (long[] between : PCMBB.BETWEEN) longs.put(between);
+        for (long[] line : PCMBB.LINE) longs.put(line);
+        longs.put(new FancyMagicAttacks().getAttackTable());
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+        header.putInt(FILE_MAGIC).putInt(FORMAT_VERSION).putLong(getContentKey()).putLong(payload.capacity()).putLong(crc.getValue());
+        header.flip();
+
+        Path absolutePath = path.toAbsolutePath();
+        Path temporaryPath = absolutePath.resolveSibling(absolutePath.getFileName().toString().concat(".tmp"));
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            while (payload.hasRemaining()) channel.write(payload);
+            channel.force(true);
+        }
+        Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,271 @@
+package Engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class Tablebase {
+
+    /**
+     * endgame table of one material, e.g. KQK or KBNK: the distance to mate of every position with the side to move
+     * generated by TablebaseGenerator, probed through Tablebases
+     *
+     * pieces are the non-king pieces of the material, at most two, sorted by piece index (white pieces first)
+     * a position is indexed by side to move, white king, black king and the squares of the pieces in order:
+     * index = ((side * kingSquares + white king) * 64 + black king) * 64 + square of first piece ...
+     * symmetry: the board is mirrored so that the white king is on files a - d, and without pawns also on ranks 1 - 4, which
+     * leaves 32 or 16 white king squares. the diagonal symmetry is not used, so no position is its own mirror image and every
+     * position has exactly one index, which keeps the move counting of the generator exact
+     *
+     * every position has a code of width bits, bit-packed into longs: 0 for a draw (or an illegal position), otherwise the
+     * distance to mate in plies + 1. the distance is odd for a win of the side to move and even for a loss, so an even code
+     * is a win and an odd code a loss (1 is checkmated)
+     *
+     * file layout (native byte order): int FILE_MAGIC, int FORMAT_VERSION, int first piece, int second piece (Piece.NONE if
+     * absent), int width, int max distance, long entry count, long CRC32 of the payload, then the packed codes
+     * a file is mapped read-only and probed in place, so tables are shared through the OS page cache and cost no heap
+     */
+    public static final int DRAW = 0;
+    public static final int FORMAT_VERSION = 1;
+    public static final String FILE_EXTENSION = ".tbl";
+
+    private static final int FILE_MAGIC = 0x54424C31;
+    private static final int HEADER_BYTES = 40;
+
+    private final int firstPiece;
+    private final int secondPiece;
+    private final int pieceCount;
+    private final int kingSquares;
+    private final int entryCount;
+    private final int width;
+    private final long codeMask;
+    private final int maxDistance;
+    private final LongBuffer codes;
+
+    /**
+     * @param firstPiece    int of piece index of first non-king piece, Piece.NONE if none
+     * @param secondPiece   int of piece index of second non-king piece, Piece.NONE if none, not below firstPiece
+     * @param width         int of bits per code
+     * @param maxDistance   int of longest distance to mate in plies
+     * @param codes         LongBuffer of packed codes
+     */
+    Tablebase(int firstPiece, int secondPiece, int width, int maxDistance, LongBuffer codes) {
+        this.firstPiece = firstPiece;
+        this.secondPiece = secondPiece;
+        this.pieceCount = getPieceCount(firstPiece, secondPiece);
+        this.kingSquares = getKingSquares(firstPiece, secondPiece);
+        this.entryCount = getEntryCount(firstPiece, secondPiece);
+        this.width = width;
+        this.codeMask = (1L << width) - 1;
+        this.maxDistance = maxDistance;
+        this.codes = codes;
+    }
+
+    /**
+     * @return  int of number of non-king pieces of a material
+     */
+    static int getPieceCount(int firstPiece, int secondPiece) {
+        return ((firstPiece == Piece.NONE) ? 0 : 1) + ((secondPiece == Piece.NONE) ? 0 : 1);
+    }
+
+    /**
+     * @return  int of number of white king squares of a material, 32 with pawns and 16 without
+     */
+    static int getKingSquares(int firstPiece, int secondPiece) {
+        boolean hasPawns = (firstPiece != Piece.NONE && Piece.getType(firstPiece) == Piece.PAWN)
+            || (secondPiece != Piece.NONE && Piece.getType(secondPiece) == Piece.PAWN);
+        return (hasPawns) ? 32 : 16;
+    }
+
+    /**
+     * @return  int of number of positions of a material
+     */
+    static int getEntryCount(int firstPiece, int secondPiece) {
+        return 2 * getKingSquares(firstPiece, secondPiece) * 64 << (6 * getPieceCount(firstPiece, secondPiece));
+    }
+
+    /**
+     * @param firstPiece    int of piece index of first non-king piece, Piece.NONE if none
+     * @param secondPiece   int of piece index of second non-king piece, Piece.NONE if none
+     * @return              String of material name, e.g. KQKR
+     */
+    public static String getName(int firstPiece, int secondPiece) {
+        StringBuilder white = new StringBuilder("K"), black = new StringBuilder("K");
+        for (int piece : new int[] { firstPiece, secondPiece }) {
+            if (piece == Piece.NONE) continue;
+            (Piece.isWhite(piece) ? white : black).append(Character.toUpperCase(Piece.getCode(piece)));
+        }
+        return white.append(black).toString();
+    }
+
+    public String getName() { return getName(this.firstPiece, this.secondPiece); }
+
+    /**
+     * @return  int of piece index of first non-king piece, Piece.NONE if none
+     */
+    public int getFirstPiece() { return this.firstPiece; }
+
+    /**
+     * @return  int of piece index of second non-king piece, Piece.NONE if none
+     */
+    public int getSecondPiece() { return this.secondPiece; }
+
+    /**
+     * @return  int of number of positions in the table
+     */
+    public int getEntryCount() { return this.entryCount; }
+
+    /**
+     * @return  int of longest distance to mate in the table, in plies
+     */
+    public int getMaxDistance() { return this.maxDistance; }
+
+    /**
+     * @return  int of size of the packed codes in bytes
+     */
+    public long getSizeBytes() { return (long) this.codes.capacity() * Long.BYTES; }
+
+    /**
+     * @param whiteKing     int of square of white king
+     * @param blackKing     int of square of black king
+     * @param firstSquare   int of square of first piece, ignored if there is none
+     * @param secondSquare  int of square of second piece, ignored if there is none
+     * @param isWhiteTurn   boolean of whether white is to move
+     * @return              int of index of the position
+     */
+    public int getIndex(int whiteKing, int blackKing, int firstSquare, int secondSquare, boolean isWhiteTurn) {
+        // mirroring files is xor 7 and mirroring ranks is xor 56, on every square at once
+        int flip = ((whiteKing & 7) > 3) ? 7 : 0;
+        if (this.kingSquares == 16 && (whiteKing >>> 3) > 3) flip |= 56;
+        int king = whiteKing ^ flip;
+        int index = ((isWhiteTurn) ? 0 : this.kingSquares) + ((king >>> 3) << 2) + (king & 7);
+        index = (index << 6) | (blackKing ^ flip);
+        if (this.pieceCount > 0) index = (index << 6) | (firstSquare ^ flip);
+        if (this.pieceCount > 1) index = (index << 6) | (secondSquare ^ flip);
+        return index;
+    }
+
+    /**
+     * inverse of getIndex
+     * @param index     int of index of a position
+     * @param squares   int[] to fill with white king, black king and piece squares
+     * @return          boolean of whether white is to move
+     */
+    boolean getPosition(int index, int[] squares) {
+        for (int i = this.pieceCount + 1; i >= 1; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        int king = index % this.kingSquares;
+        squares[0] = ((king >>> 2) << 3) | (king & 3);
+        return index < this.kingSquares;
+    }
+
+    /**
+     * @param index int of index of a position
+     * @return      int of code of the position, DRAW or distance to mate + 1
+     */
+    public int getCode(int index) {
+        long bit = (long) index * this.width;
+        int word = (int) (bit >>> 6), offset = (int) (bit & 63);
+        long value = this.codes.get(word) >>> offset;
+        if (offset + this.width > 64) value |= this.codes.get(word + 1) << (64 - offset);
+        return (int) (value & this.codeMask);
+    }
+
+    /**
+     * @param code  int of code other than DRAW
+     * @return      boolean of whether the side to move wins
+     */
+    public static boolean isWin(int code) { return (code & 1) == 0; }
+
+    /**
+     * @param code  int of code other than DRAW
+     * @return      int of distance to mate in plies
+     */
+    public static int getDistance(int code) { return code - 1; }
+
+    /**
+     * @param codes byte[] of code of every position
+     * @param width int of bits per code
+     * @return      long[] of packed codes
+     */
+    static long[] pack(byte[] codes, int width) {
+        long[] packed = new long[(int) (((long) codes.length * width + 63) >>> 6) + 1];
+        for (int i = 0; i < codes.length; i++) {
+            long value = codes[i] & 0xFF;
+            long bit = (long) i * width;
+            int word = (int) (bit >>> 6), offset = (int) (bit & 63);
+            packed[word] |= value << offset;
+            if (offset + width > 64) packed[word + 1] |= value >>> (64 - offset);
+        }
+        return packed;
+    }
+
+    /**
+     * maps and validates a table file
+     * @param path          Path of table file
+     * @param firstPiece    int of expected first piece
+     * @param secondPiece   int of expected second piece
+     * @return              Tablebase probing the mapped file, null if the file is missing or stale
+     */
+    static Tablebase load(Path path, int firstPiece, int secondPiece) {
+        if (!Files.isRegularFile(path)) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() <= HEADER_BYTES) return null;
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            mapped.order(ByteOrder.nativeOrder());
+            if (mapped.getInt(0) != FILE_MAGIC || mapped.getInt(4) != FORMAT_VERSION) return null;
+            if (mapped.getInt(8) != firstPiece || mapped.getInt(12) != secondPiece) return null;
+            int width = mapped.getInt(16), maxDistance = mapped.getInt(20);
+            long entryCount = mapped.getLong(24);
+            long payloadLongs = ((entryCount * width + 63) >>> 6) + 1;
+            if (width < 1 || width > 8 || entryCount != getEntryCount(firstPiece, secondPiece)) return null;
+            if (channel.size() != HEADER_BYTES + payloadLongs * Long.BYTES) return null;
+            ByteBuffer payload = mapped.position(HEADER_BYTES).slice().order(ByteOrder.nativeOrder());
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (mapped.getLong(32) != crc.getValue()) return null;
+            return new Tablebase(firstPiece, secondPiece, width, maxDistance, payload.asLongBuffer());
+        } catch (IOException | RuntimeException e) {
+            // an unreadable table is treated like a missing one
+            return null;
+        }
+    }
+
+    /**
+     * writes the table next to path and then moves it over path, so a process loading it at the same time maps either the
+     * old file or the complete new one
+     * @param path  Path of table file
+     */
+    void write(Path path) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(this.codes.capacity() * Long.BYTES).order(ByteOrder.nativeOrder());
+        payload.asLongBuffer().put(this.codes.duplicate().clear());
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+        header.putInt(FILE_MAGIC).putInt(FORMAT_VERSION).putInt(this.firstPiece).putInt(this.secondPiece);
+        header.putInt(this.width).putInt(this.maxDistance).putLong(this.entryCount).putLong(crc.getValue());
+        header.flip();
+
+        Path absolutePath = path.toAbsolutePath();
+        Files.createDirectories(absolutePath.getParent());
+        Path temporaryPath = absolutePath.resolveSibling(absolutePath.getFileName().toString().concat(".tmp"));
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            while (payload.hasRemaining()) channel.write(payload);
+            channel.force(true);
+        }
+        Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
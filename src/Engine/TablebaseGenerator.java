@@ -0,0 +1,343 @@
+package Engine;
+
+import java.nio.LongBuffer;
+
+public class TablebaseGenerator {
+
+    /**
+     * retrograde analysis of one material (see Tablebase), in memory
+     *
+     * first every index is decoded and checked: squares must be distinct, pawns off the back ranks, and the side not to move
+     * not in check. for every legal position the legal moves are generated: checkmates are losses in 0 and stalemates draws,
+     * moves that stay in the material are counted, and captures and promotions, which leave the material, are probed in the
+     * tables of the materials they reach (generated before, see Tablebases.generate)
+     *
+     * then positions are resolved one distance at a time. from every position resolved at the previous distance, un-moves
+     * (the moves of the side that just moved, played backwards, without captures or promotions) give its predecessors:
+     * a predecessor of a loss in n - 1 is a win in n, and a predecessor of a win in n - 1 has one more move that loses,
+     * so it is a loss once all of its moves lose. captures and promotions into a lost position resolve at their own distance
+     * whatever is left unresolved when no distance adds a position is a draw
+     *
+     * moves and un-moves use the PCMBB attack tables, and both are generated on squares of the pieces rather than on a
+     * Chessboard, as most positions of a table are never reached from a game
+     */
+    private static final byte UNKNOWN = 0, ILLEGAL = 1, WIN = 2, LOSS = 3, DRAWN = 4;
+    // distances are stored in bytes, and a code is distance + 1
+    private static final int MAX_DISTANCE = 254;
+
+    private final Tablebase layout;
+    private final Tablebases successors;
+    // piece index of every slot: white king, black king, then the pieces of the material
+    private final int[] pieces;
+    private final int entryCount;
+    // per position: state, distance (while unknown: distance of the quickest capture or promotion that wins, 0 if none),
+    // moves not yet known to lose, and distance of the longest loss among the moves known to lose
+    private final byte[] states;
+    private final byte[] distances;
+    private final byte[] remaining;
+    private final byte[] lossDistances;
+    private final int[] squares = new int[4];
+    private final int[] moveSquares = new int[4];
+    private int maxPendingDistance;
+
+    private TablebaseGenerator(int firstPiece, int secondPiece, Tablebases successors) {
+        this.layout = new Tablebase(firstPiece, secondPiece, 1, 0, null);
+        this.successors = successors;
+        int pieceCount = Tablebase.getPieceCount(firstPiece, secondPiece);
+        this.pieces = new int[2 + pieceCount];
+        this.pieces[0] = Piece.WHITE_KING;
+        this.pieces[1] = Piece.BLACK_KING;
+        if (pieceCount > 0) this.pieces[2] = firstPiece;
+        if (pieceCount > 1) this.pieces[3] = secondPiece;
+        this.entryCount = Tablebase.getEntryCount(firstPiece, secondPiece);
+        this.states = new byte[this.entryCount];
+        this.distances = new byte[this.entryCount];
+        this.remaining = new byte[this.entryCount];
+        this.lossDistances = new byte[this.entryCount];
+    }
+
+    /**
+     * @param firstPiece    int of piece index of first non-king piece, Piece.NONE if none
+     * @param secondPiece   int of piece index of second non-king piece, Piece.NONE if none, not below firstPiece
+     * @param successors    Tablebases holding the materials reached by captures and promotions
+     * @return              Tablebase of the material, with its codes in memory
+     */
+    static Tablebase generate(int firstPiece, int secondPiece, Tablebases successors) {
+        return new TablebaseGenerator(firstPiece, secondPiece, successors).run(firstPiece, secondPiece);
+    }
+
+    private Tablebase run(int firstPiece, int secondPiece) {
+        for (int index = 0; index < this.entryCount; index++) {
+            boolean isWhiteTurn = this.layout.getPosition(index, this.squares);
+            if (!isLegal(isWhiteTurn)) {
+                this.states[index] = ILLEGAL;
+            } else {
+                initialise(index, isWhiteTurn);
+            }
+        }
+
+        for (int distance = 1; ; distance++) {
+            if (distance > MAX_DISTANCE) throw new IllegalStateException("distance to mate beyond " + MAX_DISTANCE + " plies");
+            boolean resolved = false;
+            for (int index = 0; index < this.entryCount; index++) {
+                byte state = this.states[index];
+                if (state == UNKNOWN) {
+                    if ((this.distances[index] & 0xFF) == distance) {
+                        resolve(index, WIN, distance);
+                        resolved = true;
+                    } else if (this.remaining[index] == 0 && (this.lossDistances[index] & 0xFF) == distance) {
+                        resolve(index, LOSS, distance);
+                        resolved = true;
+                    }
+                } else if ((state == WIN || state == LOSS) && (this.distances[index] & 0xFF) == distance - 1) {
+                    resolved |= resolvePredecessors(index, state == LOSS, distance);
+                }
+            }
+            if (!resolved && distance > this.maxPendingDistance) break;
+        }
+
+        byte[] codes = new byte[this.entryCount];
+        int maxDistance = 0, maxCode = 1;
+        for (int index = 0; index < this.entryCount; index++) {
+            if (this.states[index] != WIN && this.states[index] != LOSS) continue;
+            int distance = this.distances[index] & 0xFF;
+            codes[index] = (byte) (distance + 1);
+            maxDistance = Math.max(maxDistance, distance);
+            maxCode = Math.max(maxCode, distance + 1);
+        }
+        int width = 32 - Integer.numberOfLeadingZeros(maxCode);
+        return new Tablebase(firstPiece, secondPiece, width, maxDistance, LongBuffer.wrap(Tablebase.pack(codes, width)));
+    }
+
+    private void resolve(int index, byte state, int distance) {
+        this.states[index] = state;
+        this.distances[index] = (byte) distance;
+    }
+
+    /**
+     * @return  boolean of whether the position in squares is legal: distinct squares, no pawn on a back rank, and the side
+     *          not to move not in check
+     */
+    private boolean isLegal(boolean isWhiteTurn) {
+        long occupancy = getOccupancy(this.squares);
+        if (Long.bitCount(occupancy) != this.pieces.length) return false;
+        for (int slot = 2; slot < this.pieces.length; slot++) {
+            int rank = this.squares[slot] >>> 3;
+            if (Piece.getType(this.pieces[slot]) == Piece.PAWN && (rank == 0 || rank == 7)) return false;
+        }
+        return !isAttacked(this.squares, occupancy, this.squares[(isWhiteTurn) ? 1 : 0], isWhiteTurn, -1);
+    }
+
+    /**
+     * generates the moves of a legal position, finds checkmate and stalemate, counts the moves that stay in the material
+     * and probes the captures and promotions that leave it
+     */
+    private void initialise(int index, boolean isWhiteTurn) {
+        long occupancy = getOccupancy(this.squares);
+        int kingSlot = (isWhiteTurn) ? 0 : 1;
+        int moveCount = 0, inTableMoves = 0, notLosingExits = 0, winDistance = 0, lossDistance = 0;
+        for (int slot = 0; slot < this.pieces.length; slot++) {
+            int piece = this.pieces[slot];
+            if (Piece.isWhite(piece) != isWhiteTurn) continue;
+            int from = this.squares[slot];
+            boolean isPawn = Piece.getType(piece) == Piece.PAWN;
+            long targets = (isPawn) ? getPawnTargets(from, isWhiteTurn, occupancy) : getAttacks(piece, from, occupancy) & ~getColourOccupancy(isWhiteTurn);
+            for (; targets != 0L; targets = PCMBB.popLowestPosition(targets)) {
+                int to = PCMBB.getLowestSquare(targets);
+                int captured = getSlotAt(to);
+                System.arraycopy(this.squares, 0, this.moveSquares, 0, this.pieces.length);
+                this.moveSquares[slot] = to;
+                long moveOccupancy = (occupancy & ~(1L << from)) | (1L << to);
+                if (isAttacked(this.moveSquares, moveOccupancy, this.moveSquares[kingSlot], !isWhiteTurn, captured)) continue;
+
+                boolean isPromotion = isPawn && (to >>> 3 == 0 || to >>> 3 == 7);
+                if (captured < 0 && !isPromotion) {
+                    moveCount++;
+                    inTableMoves++;
+                    continue;
+                }
+                // a capture is one move, a promotion one move per promoted piece
+                for (int type = Piece.QUEEN; type <= Piece.KNIGHT; type++) {
+                    int movedPiece = (isPromotion) ? Piece.getIndex(type, isWhiteTurn) : piece;
+                    moveCount++;
+                    int code = probeExit(slot, movedPiece, captured, !isWhiteTurn);
+                    if (code == Tablebase.DRAW) {
+                        notLosingExits++;
+                    } else if (Tablebase.isWin(code)) {
+                        lossDistance = Math.max(lossDistance, Tablebase.getDistance(code) + 1);
+                    } else {
+                        notLosingExits++;
+                        int distance = Tablebase.getDistance(code) + 1;
+                        winDistance = (winDistance == 0) ? distance : Math.min(winDistance, distance);
+                    }
+                    if (!isPromotion) break;
+                }
+            }
+        }
+
+        if (moveCount == 0) {
+            boolean inCheck = isAttacked(this.squares, occupancy, this.squares[kingSlot], !isWhiteTurn, -1);
+            resolve(index, (inCheck) ? LOSS : DRAWN, 0);
+            return;
+        }
+        this.distances[index] = (byte) winDistance;
+        this.remaining[index] = (byte) (inTableMoves + notLosingExits);
+        this.lossDistances[index] = (byte) lossDistance;
+        this.maxPendingDistance = Math.max(this.maxPendingDistance, Math.max(winDistance, lossDistance));
+    }
+
+    /**
+     * plays every un-move of the side that moved into a position resolved at distance - 1, and resolves or counts down
+     * the unresolved predecessors
+     * @param index     int of index of the resolved position
+     * @param isLoss    boolean of whether the resolved position is lost for its side to move
+     * @param distance  int of distance being resolved
+     * @return          boolean of whether a predecessor was resolved
+     */
+    private boolean resolvePredecessors(int index, boolean isLoss, int distance) {
+        boolean isWhiteTurn = this.layout.getPosition(index, this.squares);
+        boolean moverIsWhite = !isWhiteTurn;
+        long occupancy = getOccupancy(this.squares);
+        boolean resolved = false;
+        for (int slot = 0; slot < this.pieces.length; slot++) {
+            int piece = this.pieces[slot];
+            if (Piece.isWhite(piece) != moverIsWhite) continue;
+            int to = this.squares[slot];
+            long origins = (Piece.getType(piece) == Piece.PAWN) ? getPawnOrigins(to, moverIsWhite, occupancy) : getAttacks(piece, to, occupancy) & ~occupancy;
+            for (; origins != 0L; origins = PCMBB.popLowestPosition(origins)) {
+                System.arraycopy(this.squares, 0, this.moveSquares, 0, this.pieces.length);
+                this.moveSquares[slot] = PCMBB.getLowestSquare(origins);
+                int predecessor = this.layout.getIndex(this.moveSquares[0], this.moveSquares[1], this.moveSquares[2], this.moveSquares[3], moverIsWhite);
+                if (this.states[predecessor] != UNKNOWN) continue;
+                if (isLoss) {
+                    resolve(predecessor, WIN, distance);
+                    resolved = true;
+                    continue;
+                }
+                this.remaining[predecessor]--;
+                if ((this.lossDistances[predecessor] & 0xFF) < distance) this.lossDistances[predecessor] = (byte) distance;
+                if (this.remaining[predecessor] == 0 && (this.lossDistances[predecessor] & 0xFF) == distance) {
+                    resolve(predecessor, LOSS, distance);
+                    resolved = true;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @param slot          int of slot of the moving piece, already on its square in moveSquares
+     * @param movedPiece    int of piece index of the moving piece after the move (the promoted piece for a promotion)
+     * @param captured      int of slot of the captured piece, -1 if none
+     * @param isWhiteTurn   boolean of side to move after the move
+     * @return              int of code of the position after the move, in the table of its material
+     */
+    private int probeExit(int slot, int movedPiece, int captured, boolean isWhiteTurn) {
+        int firstPiece = Piece.NONE, firstSquare = 0, secondPiece = Piece.NONE, secondSquare = 0;
+        for (int i = 2; i < this.pieces.length; i++) {
+            if (i == captured) continue;
+            int piece = (i == slot) ? movedPiece : this.pieces[i];
+            if (firstPiece == Piece.NONE) {
+                firstPiece = piece;
+                firstSquare = this.moveSquares[i];
+            } else if (piece < firstPiece) {
+                secondPiece = firstPiece;
+                secondSquare = firstSquare;
+                firstPiece = piece;
+                firstSquare = this.moveSquares[i];
+            } else {
+                secondPiece = piece;
+                secondSquare = this.moveSquares[i];
+            }
+        }
+        int code = this.successors.probe(this.moveSquares[0], this.moveSquares[1], firstPiece, firstSquare, secondPiece, secondSquare, isWhiteTurn);
+        if (code == Tablebases.NO_RESULT) {
+            throw new IllegalStateException("missing table ".concat(Tablebase.getName(firstPiece, secondPiece)));
+        }
+        return code;
+    }
+
+    /**
+     * @return  boolean of whether square is attacked by a piece of the colour byWhite, other than the piece in skippedSlot
+     */
+    private boolean isAttacked(int[] pieceSquares, long occupancy, int square, boolean byWhite, int skippedSlot) {
+        long target = 1L << square;
+        for (int slot = 0; slot < this.pieces.length; slot++) {
+            if (slot == skippedSlot || Piece.isWhite(this.pieces[slot]) != byWhite) continue;
+            if ((getAttacks(this.pieces[slot], pieceSquares[slot], occupancy) & target) != 0L) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return  long of squares attacked by a piece on square
+     */
+    private static long getAttacks(int piece, int square, long occupancy) {
+        switch (Piece.getType(piece)) {
+            case Piece.KING: return PCMBB.KING_ATTACKS[square];
+            case Piece.QUEEN: return PCMBB.getQueenAttacks(square, occupancy);
+            case Piece.ROOK: return PCMBB.getRookAttacks(square, occupancy);
+            case Piece.BISHOP: return PCMBB.getBishopAttacks(square, occupancy);
+            case Piece.KNIGHT: return PCMBB.KNIGHT_ATTACKS[square];
+            default: return (Piece.isWhite(piece)) ? PCMBB.WHITE_PAWN_ATTACKS[square] : PCMBB.BLACK_PAWN_ATTACKS[square];
+        }
+    }
+
+    /**
+     * @return  long of squares a pawn on square moves to: pushes onto empty squares and captures of the other colour
+     */
+    private long getPawnTargets(int square, boolean isWhite, long occupancy) {
+        int forward = (isWhite) ? 8 : -8;
+        int startRank = (isWhite) ? 1 : 6;
+        long targets = 0L;
+        long single = 1L << (square + forward);
+        if ((occupancy & single) == 0L) {
+            targets |= single;
+            long push = 1L << (square + 2 * forward);
+            if (square >>> 3 == startRank && (occupancy & push) == 0L) targets |= push;
+        }
+        long attacks = (isWhite) ? PCMBB.WHITE_PAWN_ATTACKS[square] : PCMBB.BLACK_PAWN_ATTACKS[square];
+        return targets | (attacks & getColourOccupancy(!isWhite));
+    }
+
+    /**
+     * @return  long of squares a pawn now on square pushed from, the empty squares behind it off its back rank
+     */
+    private static long getPawnOrigins(int square, boolean isWhite, long occupancy) {
+        int backward = (isWhite) ? -8 : 8;
+        int rank = square >>> 3;
+        int startRank = (isWhite) ? 1 : 6;
+        int doublePushRank = (isWhite) ? 3 : 4;
+        long origins = 0L;
+        if (rank == startRank) return 0L;
+        long single = 1L << (square + backward);
+        if ((occupancy & single) != 0L) return 0L;
+        origins |= single;
+        if (rank == doublePushRank && (occupancy & (1L << (square + 2 * backward))) == 0L) origins |= 1L << (square + 2 * backward);
+        return origins;
+    }
+
+    private long getOccupancy(int[] pieceSquares) {
+        long occupancy = 0L;
+        for (int slot = 0; slot < this.pieces.length; slot++) occupancy |= 1L << pieceSquares[slot];
+        return occupancy;
+    }
+
+    private long getColourOccupancy(boolean isWhite) {
+        long occupancy = 0L;
+        for (int slot = 0; slot < this.pieces.length; slot++) {
+            if (Piece.isWhite(this.pieces[slot]) == isWhite) occupancy |= 1L << this.squares[slot];
+        }
+        return occupancy;
+    }
+
+    /**
+     * @return  int of slot of the piece on square in squares, -1 if empty
+     */
+    private int getSlotAt(int square) {
+        for (int slot = 0; slot < this.pieces.length; slot++) {
+            if (this.squares[slot] == square) return slot;
+        }
+        return -1;
+    }
+}
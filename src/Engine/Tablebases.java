@@ -0,0 +1,289 @@
+package Engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Tablebases {
+
+    /**
+     * endgame tables of every material with up to MAX_PIECES pieces (kings included), generated in-process by retrograde
+     * analysis (see TablebaseGenerator), written to a directory as one file per material, and mapped from there for probing
+     * generate with: App tablebases [directory] [materials | all], read by UCI from the option Tablebase Path
+     *
+     * a table is stored for one side of a material only (e.g. KQKR, not KRKQ), the other side is probed with the colours
+     * swapped and the board mirrored vertically. tables are looked up by the sorted pieces of the material in a flat array,
+     * so probe allocates nothing and costs one index computation and one read of a mapped long
+     *
+     * positions with castling rights or a possible en passant capture are not in the tables and are never probed. en passant
+     * captures are not generated either, and a table with pawns on both sides (KPKP) would miss the en passant defence after
+     * every double pawn push of its own positions, so such materials are neither generated nor loaded (see isSupported)
+     * distances ignore the fifty move rule, Search only uses results whose mate comes before it
+     */
+    public static final String PATH_PROPERTY = "engine.tablebases";
+    public static final String DEFAULT_PATH = "tablebases";
+    public static final int MAX_PIECES = 4;
+    public static final String[] DEFAULT_MATERIALS = { "KQK", "KRK", "KPK", "KBNK" };
+    public static final int NO_RESULT = -1;
+
+    private static final int SLOT_COUNT = (Piece.NONE + 1) * (Piece.NONE + 1);
+
+    private final Path directory;
+    private final Tablebase[] tables = new Tablebase[SLOT_COUNT];
+
+    /**
+     * @param directory Path of directory of table files
+     */
+    public Tablebases(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return  Path of table directory from PATH_PROPERTY, or DEFAULT_PATH in the working directory
+     */
+    public static Path getDefaultPath() { return Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH)); }
+
+    /**
+     * @return  Path of directory of table files
+     */
+    public Path getDirectory() { return this.directory; }
+
+    /**
+     * @param firstPiece    int of piece index of first piece, Piece.NONE if none
+     * @param secondPiece   int of piece index of second piece, Piece.NONE if none, not below firstPiece
+     * @return              int of slot of the material in tables
+     */
+    private static int getSlot(int firstPiece, int secondPiece) { return firstPiece * (Piece.NONE + 1) + secondPiece; }
+
+    /**
+     * @param pieceIndex    int of piece index, or Piece.NONE
+     * @return              int of piece index of the same piece of the other colour, Piece.NONE for Piece.NONE
+     */
+    private static int swapColour(int pieceIndex) {
+        if (pieceIndex == Piece.NONE) return Piece.NONE;
+        return (Piece.isWhite(pieceIndex)) ? pieceIndex + Piece.BLACK_OFFSET : pieceIndex - Piece.BLACK_OFFSET;
+    }
+
+    /**
+     * parses a material name such as KQK or KRKP, the pieces after the first K are white and after the second K black
+     * @param material  String of material name
+     * @return          int[] of { first piece, second piece } sorted, Piece.NONE for missing pieces
+     */
+    public static int[] parseMaterial(String material) {
+        int secondKing = material.indexOf('K', 1);
+        if (!material.startsWith("K") || secondKing < 0 || material.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("invalid material: ".concat(material));
+        }
+        int[] pieces = { Piece.NONE, Piece.NONE };
+        int count = 0;
+        for (int i = 1; i < material.length(); i++) {
+            if (i == secondKing) continue;
+            int type = "KQRBNP".indexOf(material.charAt(i));
+            if (type <= Piece.KING) throw new IllegalArgumentException("invalid material: ".concat(material));
+            pieces[count++] = Piece.getIndex(type, i < secondKing);
+        }
+        if (pieces[0] > pieces[1]) pieces = new int[] { pieces[1], pieces[0] };
+        return pieces;
+    }
+
+    /**
+     * @param firstPiece    int of piece index of first piece, Piece.NONE if none
+     * @param secondPiece   int of piece index of second piece, Piece.NONE if none
+     * @return              boolean of whether the material can have a table, false with pawns on both sides
+     */
+    public static boolean isSupported(int firstPiece, int secondPiece) {
+        if (firstPiece == Piece.NONE || secondPiece == Piece.NONE) return true;
+        return Piece.getType(firstPiece) != Piece.PAWN || Piece.getType(secondPiece) != Piece.PAWN
+            || Piece.isWhite(firstPiece) == Piece.isWhite(secondPiece);
+    }
+
+    /**
+     * the side of a material that is stored: of the material and its colour swapped version, the one whose sorted pieces
+     * come first, which puts the stronger side on white for most materials (KQKR, KRKP, KPK)
+     * @return  int[] of { first piece, second piece } of the stored side
+     */
+    static int[] getStoredMaterial(int firstPiece, int secondPiece) {
+        int swappedFirst = swapColour(firstPiece), swappedSecond = swapColour(secondPiece);
+        if (swappedFirst > swappedSecond) {
+            int piece = swappedFirst;
+            swappedFirst = swappedSecond;
+            swappedSecond = piece;
+        }
+        if (swappedFirst < firstPiece || (swappedFirst == firstPiece && swappedSecond < secondPiece)) {
+            return new int[] { swappedFirst, swappedSecond };
+        }
+        return new int[] { firstPiece, secondPiece };
+    }
+
+    /**
+     * @return  String[] of the stored side of every supported material with up to MAX_PIECES pieces, KK included, fewer
+     *          pieces first
+     */
+    public static String[] getAllMaterials() {
+        List<String> materials = new ArrayList<>();
+        materials.add(Tablebase.getName(Piece.NONE, Piece.NONE));
+        for (int firstPiece = 1; firstPiece < Piece.NONE; firstPiece++) {
+            if (firstPiece == Piece.BLACK_KING) continue;
+            int[] stored = getStoredMaterial(firstPiece, Piece.NONE);
+            String name = Tablebase.getName(stored[0], stored[1]);
+            if (!materials.contains(name)) materials.add(name);
+        }
+        for (int firstPiece = 1; firstPiece < Piece.NONE; firstPiece++) {
+            for (int secondPiece = firstPiece; secondPiece < Piece.NONE; secondPiece++) {
+                if (firstPiece == Piece.BLACK_KING || secondPiece == Piece.BLACK_KING) continue;
+                if (!isSupported(firstPiece, secondPiece)) continue;
+                int[] stored = getStoredMaterial(firstPiece, secondPiece);
+                String name = Tablebase.getName(stored[0], stored[1]);
+                if (!materials.contains(name)) materials.add(name);
+            }
+        }
+        return materials.toArray(new String[0]);
+    }
+
+    /**
+     * @param material  String of material name, either side
+     * @return          Tablebase of the material, null if it is neither loaded nor generated
+     */
+    public Tablebase get(String material) {
+        int[] pieces = parseMaterial(material);
+        int[] stored = getStoredMaterial(pieces[0], pieces[1]);
+        return this.tables[getSlot(stored[0], stored[1])];
+    }
+
+    /**
+     * @return  int of number of loaded or generated tables
+     */
+    public int getTableCount() {
+        int count = 0;
+        for (Tablebase table : this.tables) count += (table == null) ? 0 : 1;
+        return count;
+    }
+
+    /**
+     * maps the file of every supported material found in the directory, materials without a valid file are left out
+     * @return  int of number of tables loaded
+     */
+    public int loadAll() {
+        int count = 0;
+        for (String material : getAllMaterials()) {
+            int[] pieces = parseMaterial(material);
+            Tablebase table = Tablebase.load(getPath(material), pieces[0], pieces[1]);
+            if (table == null) continue;
+            this.tables[getSlot(pieces[0], pieces[1])] = table;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param material  String of material name of the stored side
+     * @return          Path of table file of the material
+     */
+    private Path getPath(String material) { return this.directory.resolve(material.concat(Tablebase.FILE_EXTENSION)); }
+
+    /**
+     * makes a material available: maps its file if it is valid, otherwise generates it and writes its file
+     * the materials reached by captures and promotions are made available first, as the generator probes them
+     * @param material  String of material name, either side, with pawns on at most one side
+     * @param write     boolean of whether generated tables are written to the directory
+     * @return          Tablebase of the material
+     */
+    public Tablebase generate(String material, boolean write) throws IOException {
+        int[] pieces = parseMaterial(material);
+        if (!isSupported(pieces[0], pieces[1])) {
+            throw new IllegalArgumentException("en passant is not generated, no table for pawns on both sides: ".concat(material));
+        }
+        int[] stored = getStoredMaterial(pieces[0], pieces[1]);
+        int slot = getSlot(stored[0], stored[1]);
+        if (this.tables[slot] != null) return this.tables[slot];
+        String name = Tablebase.getName(stored[0], stored[1]);
+        Tablebase table = Tablebase.load(getPath(name), stored[0], stored[1]);
+        if (table == null) {
+            for (String successor : getSuccessorMaterials(stored[0], stored[1])) generate(successor, write);
+            table = TablebaseGenerator.generate(stored[0], stored[1], this);
+            if (write) table.write(getPath(name));
+        }
+        this.tables[slot] = table;
+        return table;
+    }
+
+    /**
+     * @return  List of material names reached from a material by a capture or a promotion
+     */
+    private static List<String> getSuccessorMaterials(int firstPiece, int secondPiece) {
+        List<String> successors = new ArrayList<>();
+        int[] pieces = { firstPiece, secondPiece };
+        for (int i = 0; i < 2; i++) {
+            if (pieces[i] == Piece.NONE) continue;
+            int other = pieces[1 - i];
+            successors.add(Tablebase.getName(other, Piece.NONE));
+            if (Piece.getType(pieces[i]) != Piece.PAWN) continue;
+            for (int type = Piece.QUEEN; type <= Piece.KNIGHT; type++) {
+                int promoted = Piece.getIndex(type, Piece.isWhite(pieces[i]));
+                successors.add(Tablebase.getName(Math.min(promoted, other), Math.max(promoted, other)));
+                // a promotion that captures the other piece
+                if (other != Piece.NONE) successors.add(Tablebase.getName(promoted, Piece.NONE));
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * @param chessboard    Chessboard of position
+     * @return              int of code of the position (see Tablebase), NO_RESULT if the position is not in a table
+     */
+    public int probe(Chessboard chessboard) {
+        if (Long.bitCount(chessboard.getFullBitboard()) > MAX_PIECES || chessboard.getCastlingRights() != 0) return NO_RESULT;
+        // an en passant square only matters if a pawn of the side to move stands beside the pawn that moved two squares
+        long enPassantFlag = chessboard.getEnPassantFlag();
+        if (enPassantFlag != 0L) {
+            long capturers = chessboard.getPiecesPosition((chessboard.getIsWhiteTurn()) ? Piece.WHITE_PAWN : Piece.BLACK_PAWN);
+            long beside = ((enPassantFlag << 1) & ~PCMBB.getFileMask(0)) | ((enPassantFlag >>> 1) & ~PCMBB.getFileMask(7));
+            if ((capturers & beside) != 0L) return NO_RESULT;
+        }
+        int firstPiece = Piece.NONE, firstSquare = 0, secondPiece = Piece.NONE, secondSquare = 0;
+        for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) {
+            if (Piece.getType(pieceIndex) == Piece.KING) continue;
+            for (long pieces = chessboard.getPiecesPosition(pieceIndex); pieces != 0L; pieces = PCMBB.popLowestPosition(pieces)) {
+                if (firstPiece == Piece.NONE) {
+                    firstPiece = pieceIndex;
+                    firstSquare = PCMBB.getLowestSquare(pieces);
+                } else {
+                    secondPiece = pieceIndex;
+                    secondSquare = PCMBB.getLowestSquare(pieces);
+                }
+            }
+        }
+        int whiteKing = PCMBB.getLowestSquare(chessboard.getPiecesPosition(Piece.WHITE_KING));
+        int blackKing = PCMBB.getLowestSquare(chessboard.getPiecesPosition(Piece.BLACK_KING));
+        return probe(whiteKing, blackKing, firstPiece, firstSquare, secondPiece, secondSquare, chessboard.getIsWhiteTurn());
+    }
+
+    /**
+     * @param whiteKing     int of square of white king
+     * @param blackKing     int of square of black king
+     * @param firstPiece    int of piece index of first piece, Piece.NONE if none
+     * @param firstSquare   int of square of first piece
+     * @param secondPiece   int of piece index of second piece, Piece.NONE if none, not below firstPiece
+     * @param secondSquare  int of square of second piece
+     * @param isWhiteTurn   boolean of whether white is to move
+     * @return              int of code of the position (see Tablebase), NO_RESULT if its material has no table
+     */
+    int probe(int whiteKing, int blackKing, int firstPiece, int firstSquare, int secondPiece, int secondSquare, boolean isWhiteTurn) {
+        Tablebase table = this.tables[getSlot(firstPiece, secondPiece)];
+        if (table != null) return table.getCode(table.getIndex(whiteKing, blackKing, firstSquare, secondSquare, isWhiteTurn));
+
+        // the other side of the material: colours swapped, ranks mirrored (xor 56), the other side to move
+        int swappedFirst = swapColour(firstPiece), swappedSecond = swapColour(secondPiece);
+        if (swappedFirst > swappedSecond) {
+            table = this.tables[getSlot(swappedSecond, swappedFirst)];
+            if (table == null) return NO_RESULT;
+            return table.getCode(table.getIndex(blackKing ^ 56, whiteKing ^ 56, secondSquare ^ 56, firstSquare ^ 56, !isWhiteTurn));
+        }
+        table = this.tables[getSlot(swappedFirst, swappedSecond)];
+        if (table == null) return NO_RESULT;
+        return table.getCode(table.getIndex(blackKing ^ 56, whiteKing ^ 56, firstSquare ^ 56, secondSquare ^ 56, !isWhiteTurn));
+    }
+}
@@ -0,0 +1,36 @@
+package Engine;
+
+public class TimeManager {
+
+    /**
+     * time allocation of a move from the clock state sent with the UCI go command
+     * the remaining time is split over the moves left until the next time control (movestogo, or an estimate of
+     * DEFAULT_MOVES_TO_GO in sudden death), and most of the increment is spent on top
+     * a single move never gets more than half of the remaining time, except the last move before the time control
+     * the move overhead is kept back for the latency between the engine and the GUI
+     * a clock that was sent but has run out (0 or negative, as some GUIs send) still gets a minimal emergency limit from the
+     * increment, only a clock that was not sent at all (NO_CLOCK) leaves the search unlimited
+     */
+    public static final long NO_CLOCK = Long.MIN_VALUE;
+    public static final int DEFAULT_MOVE_OVERHEAD = 30;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final int MAX_MOVES_TO_GO = 50;
+
+    /**
+     * @param time          long of remaining time of the side to move in milliseconds, NO_CLOCK if not given
+     * @param increment     long of increment per move in milliseconds
+     * @param movesToGo     int of moves until the next time control, 0 for sudden death
+     * @param moveTime      long of exact time per move in milliseconds, 0 if not given
+     * @param moveOverhead  int of time kept back per move in milliseconds
+     * @return              long of time limit of the search in milliseconds, 0 for no limit
+     */
+    public static long getTimeLimit(long time, long increment, int movesToGo, long moveTime, int moveOverhead) {
+        if (moveTime > 0L) return Math.max(1L, moveTime - moveOverhead);
+        if (time == NO_CLOCK) return 0L;
+        if (time <= 0L) return Math.max(1L, increment / 2 - moveOverhead);
+        int moves = (movesToGo > 0) ? Math.min(movesToGo, MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long limit = time / moves + increment * 3 / 4;
+        long maxLimit = (movesToGo == 1) ? time : time / 2;
+        return Math.max(1L, Math.min(limit, maxLimit) - moveOverhead);
+    }
+}
@@ -0,0 +1,218 @@
+package Engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class TranspositionTable {
+
+    /**
+     * transposition table of search results, keyed by the Zobrist key of the position
+     *
+     * storage is off-heap (direct ByteBuffers), so the size of the table adds nothing to the heap or to garbage collection
+     * direct memory is limited by -XX:MaxDirectMemorySize (by default the maximum heap size), which must cover the table
+     * a single ByteBuffer is limited to 2 GB, so the table is split into chunks of whole buckets
+     *
+     * bucket: 64 bytes (one cache line) of BUCKET_SIZE slots, the bucket of a key is chosen from its upper 32 bits
+     * slot: 16 bytes, long (key ^ data) followed by long data
+     *
+     * data layout:
+     * bits  0 - 27: packed move (see Move), Move.NONE if no move
+     * bits 28 - 43: score (signed 16 bits)
+     * bits 44 - 51: depth (0 to 255)
+     * bits 52 - 53: bound (UPPER_BOUND, LOWER_BOUND, EXACT)
+     * bits 54 - 59: generation of the search that stored the entry
+     *
+     * lock-free sharing between search threads: the two longs of a slot are written without any lock, so a reader can see the
+     * key of one write together with the data of another. storing key ^ data means such a torn slot fails the key check and is
+     * treated as a miss, instead of returning data of a different position
+     * bound is never 0 for a stored entry, so data of 0 is free to mean "no entry"
+     */
+    public static final long NO_ENTRY = 0L;
+
+    public static final int UPPER_BOUND = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    public static final int DEFAULT_SIZE_MB = 16;
+    // 2^32 buckets, so that the bucket index of a key stays within the unsigned product in getBucket
+    public static final int MAX_SIZE_MB = 1 << 18;
+
+    private static final int SLOT_BYTES = 16;
+    private static final int BUCKET_SIZE = 4;
+    private static final int BUCKET_BYTES = SLOT_BYTES * BUCKET_SIZE;
+    // 2^24 buckets of 64 bytes = 1 GB per chunk
+    private static final int CHUNK_BUCKET_BITS = 24;
+    private static final long CHUNK_BUCKET_MASK = (1L << CHUNK_BUCKET_BITS) - 1;
+
+    private static final long MOVE_MASK = 0xFFFFFFFL;
+    private static final int SCORE_SHIFT = 28;
+    private static final int DEPTH_SHIFT = 44;
+    private static final int BOUND_SHIFT = 52;
+    private static final int GENERATION_SHIFT = 54;
+    private static final int GENERATION_MASK = 0x3F;
+
+    private ByteBuffer[] chunks;
+    private long bucketCount;
+    private int sizeMB;
+    private volatile int generation;
+
+    /**
+     * @param sizeMB    int of table size in MB (1 to MAX_SIZE_MB)
+     */
+    public TranspositionTable(int sizeMB) {
+        resize(sizeMB);
+    }
+
+    /**
+     * reallocates the table with a new size, all entries are lost. must not be called while a search is using the table
+     * @param sizeMB    int of table size in MB (1 to MAX_SIZE_MB)
+     */
+    public void resize(int sizeMB) {
+        if (sizeMB < 1 || sizeMB > MAX_SIZE_MB) throw new IllegalArgumentException("transposition table size out of range (MB): ".concat(Integer.toString(sizeMB)));
+        this.sizeMB = sizeMB;
+        this.bucketCount = ((long) sizeMB << 20) / BUCKET_BYTES;
+        int chunkCount = (int) ((this.bucketCount + CHUNK_BUCKET_MASK) >>> CHUNK_BUCKET_BITS);
+        // drop the previous chunks before allocating. their memory is only freed once the garbage collector has run their
+        // cleaners, so a resize can briefly hold both tables: -XX:MaxDirectMemorySize must cover the old and the new size
+        this.chunks = null;
+        ByteBuffer[] newChunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long buckets = Math.min(1L << CHUNK_BUCKET_BITS, this.bucketCount - ((long) i << CHUNK_BUCKET_BITS));
+            newChunks[i] = ByteBuffer.allocateDirect((int) (buckets * BUCKET_BYTES)).order(ByteOrder.nativeOrder());
+        }
+        this.chunks = newChunks;
+        this.generation = 0;
+    }
+
+    /**
+     * empties every slot. must not be called while a search is using the table
+     */
+    public void clear() {
+        for (ByteBuffer chunk : this.chunks) {
+            for (int i = 0; i < chunk.capacity(); i += 8) chunk.putLong(i, 0L);
+        }
+        this.generation = 0;
+    }
+
+    /**
+     * marks the start of a new search, entries of older searches are replaced first
+     */
+    public void newSearch() { this.generation = (this.generation + 1) & GENERATION_MASK; }
+
+    /**
+     * @return  int of table size in MB
+     */
+    public int getSizeMB() { return this.sizeMB; }
+
+    /**
+     * @param key   long of Zobrist key
+     * @return      long of packed data of the entry of key, NO_ENTRY if there is none
+     */
+    public long probe(long key) {
+        ByteBuffer chunk = getChunk(key);
+        int offset = getBucketOffset(key);
+        for (int i = 0; i < BUCKET_SIZE; i++, offset += SLOT_BYTES) {
+            long data = chunk.getLong(offset + 8);
+            if ((chunk.getLong(offset) ^ data) == key && data != NO_ENTRY) return data;
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * stores a search result. an entry of the same key is overwritten unless it is from a deeper search of the same generation,
+     * otherwise the entry with the lowest depth, counting entries of older searches as shallower, is replaced
+     * @param key   long of Zobrist key
+     * @param move  int of packed best move, Move.NONE if none (the previous move of the key is kept)
+     * @param score int of score, must fit in 16 signed bits
+     * @param depth int of depth searched, 0 to 255
+     * @param bound int of bound type (UPPER_BOUND, LOWER_BOUND, EXACT)
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        ByteBuffer chunk = getChunk(key);
+        int bucketOffset = getBucketOffset(key);
+        int currentGeneration = this.generation;
+        int replaceOffset = bucketOffset;
+        int replaceValue = Integer.MAX_VALUE;
+        for (int i = 0, offset = bucketOffset; i < BUCKET_SIZE; i++, offset += SLOT_BYTES) {
+            long data = chunk.getLong(offset + 8);
+            if ((chunk.getLong(offset) ^ data) == key && data != NO_ENTRY) {
+                if (bound != EXACT && getGeneration(data) == currentGeneration && depth + 2 < getDepth(data)) return;
+                if (move == Move.NONE) move = getMove(data);
+                replaceOffset = offset;
+                break;
+            }
+            // older generations age by 8 plies per search, wrapping around with the generation counter
+            int age = (currentGeneration - getGeneration(data)) & GENERATION_MASK;
+            int value = (data == NO_ENTRY) ? Integer.MIN_VALUE : getDepth(data) - 8 * age;
+            if (value < replaceValue) {
+                replaceValue = value;
+                replaceOffset = offset;
+            }
+        }
+        long data = (move & MOVE_MASK)
+            | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+            | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) currentGeneration << GENERATION_SHIFT);
+        chunk.putLong(replaceOffset, key ^ data);
+        chunk.putLong(replaceOffset + 8, data);
+    }
+
+    /**
+     * samples the first 1000 buckets, as the UCI hashfull info
+     * @return  int of permille of slots used by the current search
+     */
+    public int hashfull() {
+        int used = 0, sampled = 0;
+        int currentGeneration = this.generation;
+        for (long bucket = 0; bucket < Math.min(1000L, this.bucketCount); bucket++) {
+            ByteBuffer chunk = this.chunks[(int) (bucket >>> CHUNK_BUCKET_BITS)];
+            int offset = (int) ((bucket & CHUNK_BUCKET_MASK) * BUCKET_BYTES);
+            for (int i = 0; i < BUCKET_SIZE; i++, offset += SLOT_BYTES, sampled++) {
+                long data = chunk.getLong(offset + 8);
+                if (data != NO_ENTRY && getGeneration(data) == currentGeneration) used++;
+            }
+        }
+        return (sampled == 0) ? 0 : used * 1000 / sampled;
+    }
+
+    /**
+     * @param key   long of Zobrist key
+     * @return      long of bucket index of key, from the upper 32 bits so that it does not correlate with the low bits
+     */
+    private long getBucket(long key) { return ((key >>> 32) * this.bucketCount) >>> 32; }
+
+    private ByteBuffer getChunk(long key) { return this.chunks[(int) (getBucket(key) >>> CHUNK_BUCKET_BITS)]; }
+
+    private int getBucketOffset(long key) { return (int) ((getBucket(key) & CHUNK_BUCKET_MASK) * BUCKET_BYTES); }
+
+    /**
+     * @param data  long of packed entry data
+     * @return      int of packed move, Move.NONE if none
+     */
+    public static int getMove(long data) { return (int) (data & MOVE_MASK); }
+
+    /**
+     * @param data  long of packed entry data
+     * @return      int of score
+     */
+    public static int getScore(long data) { return (short) (data >>> SCORE_SHIFT); }
+
+    /**
+     * @param data  long of packed entry data
+     * @return      int of depth searched
+     */
+    public static int getDepth(long data) { return (int) (data >>> DEPTH_SHIFT) & 0xFF; }
+
+    /**
+     * @param data  long of packed entry data
+     * @return      int of bound type (UPPER_BOUND, LOWER_BOUND, EXACT)
+     */
+    public static int getBound(long data) { return (int) (data >>> BOUND_SHIFT) & 0x3; }
+
+    /**
+     * @param data  long of packed entry data
+     * @return      int of generation of the search that stored the entry
+     */
+    public static int getGeneration(long data) { return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK; }
+}
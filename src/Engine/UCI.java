@@ -0,0 +1,395 @@
+package Engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class UCI {
+
+    /**
+     * Universal Chess Interface front-end, driven by a GUI or tournament manager over standard input and output
+     *
+     * input is read on the calling thread, and searches run on a separate search thread, so input is read while a search runs
+     * and stop, ponderhit and isready are answered at once. commands that change the position or the options stop the
+     * running search first, which reports its best move, so the reader never waits on a search that waits for input
+     *
+     * go infinite and go ponder searches never report their best move on their own: they wait for stop (or ponderhit, which
+     * turns a ponder search into a search timed from that moment)
+     *
+     * with OwnBook set and a Polyglot book loaded (Book File, see PolyglotBook), go answers with a book
+     * move at once whenever the position is in the book, except for go infinite and go ponder
+     * Tablebase Path maps the endgame tables of a directory written by App tablebases (see Tablebases) for the search
+     */
+    public static final String ENGINE_NAME = "ChessEngine";
+    public static final String ENGINE_AUTHOR = "yiiilonggg";
+    private static final int MAX_THREADS = 256;
+
+    private final BufferedReader input;
+    private final PrintStream output;
+    private final TranspositionTable transpositionTable;
+    private final ParallelSearch parallelSearch;
+    private final ExecutorService searchThread;
+    private Future<?> searchTask;
+    private Chessboard chessboard;
+    private Chessboard scratchBoard;
+    private int moveOverhead = TimeManager.DEFAULT_MOVE_OVERHEAD;
+    private boolean ownBook;
+    private String bookFile = "";
+    private PolyglotBook book;
+
+    // state of the running search, guarded by this
+    private boolean waitForStop;
+    private boolean stopRequested;
+    private long ponderTimeLimit;
+
+    /**
+     * @param input     InputStream of commands
+     * @param output    PrintStream of responses
+     */
+    public UCI(InputStream input, PrintStream output) {
+        this.input = new BufferedReader(new InputStreamReader(input));
+        this.output = output;
+        this.transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+        this.parallelSearch = new ParallelSearch(this.transpositionTable, 1);
+        this.parallelSearch.setInfoOutput(output);
+        this.searchThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chessboard = new Chessboard("");
+        this.scratchBoard = new Chessboard("");
+    }
+
+    /**
+     * reads and runs commands until quit or the end of the input
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = this.input.readLine()) != null) {
+            if (!handleCommand(line.trim())) break;
+        }
+        abortSearch();
+        this.parallelSearch.shutdown();
+        this.searchThread.shutdownNow();
+    }
+
+    /**
+     * @param line  String of one command line
+     * @return      boolean of whether to keep reading commands (false after quit)
+     */
+    private boolean handleCommand(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                this.output.println("id name " + ENGINE_NAME);
+                this.output.println("id author " + ENGINE_AUTHOR);
+                this.output.println("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max " + TranspositionTable.MAX_SIZE_MB);
+                this.output.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                this.output.println("option name Ponder type check default false");
+                this.output.println("option name Move Overhead type spin default " + TimeManager.DEFAULT_MOVE_OVERHEAD + " min 0 max 5000");
+                this.output.println("option name Clear Hash type button");
+                this.output.println("option name OwnBook type check default false");
+                this.output.println("option name Book File type string default <empty>");
+                this.output.println("option name Tablebase Path type string default <empty>");
+                SearchParameters parameters = this.parallelSearch.getParameters();
+                for (String name : SearchParameters.NAMES) {
+                    this.output.println("option name " + name + " type spin default " + parameters.getParameter(name) + " min -1000 max 1000");
+                }
+                this.output.println("uciok");
+                break;
+            case "isready":
+                this.output.println("readyok");
+                break;
+            case "ucinewgame":
+                abortSearch();
+                this.transpositionTable.clear();
+                break;
+            case "setoption":
+                abortSearch();
+                setOption(line);
+                break;
+            case "position":
+                abortSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                abortSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "quit":
+                return false;
+            default:
+                // unknown commands are ignored, as the protocol requires
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * setoption name [name] value [value], names may contain spaces
+     */
+    private void setOption(String line) {
+        int nameIndex = line.indexOf(" name ");
+        if (nameIndex < 0) return;
+        int valueIndex = line.indexOf(" value ");
+        String name = (valueIndex < 0) ? line.substring(nameIndex + 6).trim() : line.substring(nameIndex + 6, valueIndex).trim();
+        String value = (valueIndex < 0) ? "" : line.substring(valueIndex + 7).trim();
+        try {
+            switch (name) {
+                case "Hash":
+                    this.transpositionTable.resize(Integer.parseInt(value));
+                    break;
+                case "Threads":
+                    this.parallelSearch.setThreadCount(Math.min(MAX_THREADS, Integer.parseInt(value)));
+                    break;
+                case "Move Overhead":
+                    this.moveOverhead = Integer.parseInt(value);
+                    break;
+                case "Clear Hash":
+                    this.transpositionTable.clear();
+                    break;
+                case "Ponder":
+                    // pondering is driven by go ponder, there is nothing to set up
+                    break;
+                case "OwnBook":
+                    this.ownBook = Boolean.parseBoolean(value);
+                    break;
+                case "Book File":
+                    this.bookFile = value;
+                    loadBook();
+                    break;
+                case "Tablebase Path":
+                    loadTablebases(value);
+                    break;
+                default:
+                    if (!this.parallelSearch.getParameters().setParameter(name, Integer.parseInt(value))) {
+                        this.output.println("info string unknown option " + name);
+                    }
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            this.output.println("info string invalid value " + value + " for option " + name);
+        }
+    }
+
+    /**
+     * opens the Polyglot book of Book File, a book that cannot be read is reported and left unused
+     */
+    private void loadBook() {
+        this.book = null;
+        if (this.bookFile.isEmpty() || this.bookFile.equals("<empty>")) return;
+        try {
+            this.book = new PolyglotBook(Paths.get(this.bookFile));
+            this.output.println("info string book " + this.bookFile + " loaded with " + this.book.getEntryCount() + " entries");
+        } catch (IOException | RuntimeException e) {
+            this.output.println("info string cannot load book " + this.bookFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * maps the endgame tables found in a directory, an empty path or a directory without tables turns probing off
+     */
+    private void loadTablebases(String path) {
+        Tablebases tablebases = null;
+        if (!path.isEmpty() && !path.equals("<empty>")) {
+            tablebases = new Tablebases(Paths.get(path));
+            int count = tablebases.loadAll();
+            this.output.println("info string " + count + " tablebases loaded from " + path);
+            if (count == 0) tablebases = null;
+        }
+        this.parallelSearch.setTablebases(tablebases);
+    }
+
+    /**
+     * position (startpos | fen [FEN string]) [moves [move] ...]
+     */
+    private void setPosition(String[] tokens) {
+        int index = 1;
+        String fenString;
+        if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                if (fen.length() > 0) fen.append(' ');
+                fen.append(tokens[index]);
+            }
+            fenString = fen.toString();
+        } else {
+            fenString = Chessboard.DEFAULT_FEN_STRING;
+            index = 2;
+        }
+        // the position is built on the spare board and swapped in only when the FEN and every move are valid, so a bad
+        // position command leaves the current board untouched. the two boards are reused by every position command
+        Chessboard board = this.scratchBoard;
+        try {
+            board.setFromFen(fenString);
+        } catch (IllegalArgumentException e) {
+            this.output.println("info string invalid fen " + fenString);
+            return;
+        }
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            int[] moves = new int[MoveHandler.MAX_MOVES];
+            for (index++; index < tokens.length; index++) {
+                int move = findMove(board, moves, tokens[index]);
+                if (move == Move.NONE) {
+                    this.output.println("info string illegal move " + tokens[index]);
+                    return;
+                }
+                board.performMove(move);
+                // a long game would fill the undo stack, only the plies since the last pawn move or capture are needed
+                if (board.getPly() > Chessboard.MAX_HISTORY / 2) board.compactHistory();
+            }
+        }
+        this.scratchBoard = this.chessboard;
+        this.chessboard = board;
+    }
+
+    /**
+     * @param chessboard    Chessboard of position to play the move in
+     * @param moves         int[] buffer of legal moves
+     * @param moveString    String of move in coordinate notation
+     * @return              int of packed legal move, Move.NONE if the move is not legal
+     */
+    private int findMove(Chessboard chessboard, int[] moves, String moveString) {
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.toString(moves[i]).equals(moveString)) return moves[i];
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * go [wtime, btime, winc, binc, movestogo, movetime, depth, nodes [value]] [infinite] [ponder]
+     */
+    private void go(String[] tokens) {
+        long whiteTime = TimeManager.NO_CLOCK, blackTime = TimeManager.NO_CLOCK, whiteIncrement = 0L, blackIncrement = 0L, moveTime = 0L, maxNodes = 0L;
+        int movesToGo = 0, maxDepth = Search.MAX_PLY;
+        boolean infinite = false, ponder = false;
+        for (int i = 1; i < tokens.length; i++) {
+            try {
+                switch (tokens[i]) {
+                    case "wtime": whiteTime = Long.parseLong(tokens[++i]); break;
+                    case "btime": blackTime = Long.parseLong(tokens[++i]); break;
+                    case "winc": whiteIncrement = Long.parseLong(tokens[++i]); break;
+                    case "binc": blackIncrement = Long.parseLong(tokens[++i]); break;
+                    case "movestogo": movesToGo = Integer.parseInt(tokens[++i]); break;
+                    case "movetime": moveTime = Long.parseLong(tokens[++i]); break;
+                    case "depth": maxDepth = Integer.parseInt(tokens[++i]); break;
+                    case "nodes": maxNodes = Long.parseLong(tokens[++i]); break;
+                    case "infinite": infinite = true; break;
+                    case "ponder": ponder = true; break;
+                    default: break;
+                }
+            } catch (RuntimeException e) {
+                this.output.println("info string invalid go parameter " + tokens[i - 1]);
+            }
+        }
+        if (this.ownBook && this.book != null && !infinite && !ponder) {
+            int bookMove = this.book.pickMove(this.chessboard, ThreadLocalRandom.current().nextDouble());
+            if (bookMove != Move.NONE) {
+                this.output.println("bestmove " + Move.toString(bookMove));
+                return;
+            }
+        }
+        boolean isWhite = this.chessboard.getIsWhiteTurn();
+        long timeLimit = TimeManager.getTimeLimit((isWhite) ? whiteTime : blackTime, (isWhite) ? whiteIncrement : blackIncrement,
+            movesToGo, moveTime, this.moveOverhead);
+
+        synchronized (this) {
+            this.stopRequested = false;
+            this.waitForStop = infinite || ponder;
+            this.ponderTimeLimit = (ponder) ? timeLimit : 0L;
+        }
+        // the stop flags and the time limit are cleared here, so that a stop or a ponderhit read before the search thread
+        // starts still applies to it
+        this.parallelSearch.resetStop();
+        Chessboard searchBoard = this.chessboard;
+        long searchTimeLimit = (infinite || ponder) ? 0L : timeLimit;
+        int searchDepth = maxDepth;
+        long searchNodes = maxNodes;
+        this.searchTask = this.searchThread.submit(() -> {
+            int bestMove = this.parallelSearch.runSearch(searchBoard, searchDepth, searchNodes, searchTimeLimit);
+            waitWhileInfinite();
+            String ponderMove = getPonderMove();
+            this.output.println("bestmove " + ((bestMove == Move.NONE) ? "0000" : Move.toString(bestMove))
+                + ((ponderMove == null) ? "" : " ponder " + ponderMove));
+        });
+    }
+
+    /**
+     * @return  String of second move of the principal variation, null if there is none
+     */
+    private String getPonderMove() {
+        String[] variation = this.parallelSearch.getPrincipalVariation().split(" ");
+        return (variation.length > 1) ? variation[1] : null;
+    }
+
+    /**
+     * infinite and ponder searches that end on their own keep their result until stop or ponderhit
+     */
+    private synchronized void waitWhileInfinite() {
+        while (this.waitForStop && !this.stopRequested) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized void stopSearch() {
+        this.stopRequested = true;
+        this.parallelSearch.stop();
+        notifyAll();
+    }
+
+    /**
+     * the opponent played the ponder move: the ponder search continues as a normal search, timed from now
+     */
+    private synchronized void ponderHit() {
+        if (!this.waitForStop) return;
+        this.waitForStop = false;
+        if (this.ponderTimeLimit > 0L) this.parallelSearch.setTimeLimit(this.ponderTimeLimit);
+        else this.parallelSearch.stop();
+        notifyAll();
+    }
+
+    /**
+     * stops the running search, if any, and blocks until it has reported its best move
+     */
+    private void abortSearch() {
+        if (this.searchTask == null) return;
+        stopSearch();
+        waitForSearch();
+    }
+
+    /**
+     * blocks until the running search, if any, has reported its best move
+     */
+    private void waitForSearch() {
+        if (this.searchTask == null) return;
+        try {
+            this.searchTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            this.output.println("info string search failed " + e.getCause());
+        }
+        this.searchTask = null;
+    }
+}
@@ -0,0 +1,71 @@
+package Engine;
+
+public final class Zobrist {
+
+    /**
+     * Zobrist hashing of chessboard positions
+     * every (piece, square) pair, the side to move, every castling rights combination and every en passant file gets a random 64 bit key
+     * the key of a position is the XOR of the keys of everything present in it, so a move only XORs in and out what it changes
+     *
+     * keys are generated from a fixed seed, so keys (and any table built on them) are the same on every run
+     */
+    public static final long[][] PIECE_SQUARE = new long[Piece.COUNT][64];
+    public static final long[] CASTLING_RIGHTS = new long[16];
+    public static final long[] EN_PASSANT_FILE = new long[8];
+    public static final long SIDE_TO_MOVE;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    static {
+        long[] state = new long[] { SEED };
+        for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[pieceIndex][square] = nextRandom(state);
+            }
+        }
+        // no castling rights hashes to 0, so positions without castling rights only differ by pieces, side and en passant
+        for (int i = 1; i < 16; i++) CASTLING_RIGHTS[i] = nextRandom(state);
+        for (int i = 0; i < 8; i++) EN_PASSANT_FILE[i] = nextRandom(state);
+        SIDE_TO_MOVE = nextRandom(state);
+    }
+
+    private Zobrist() {}
+
+    /**
+     * splitmix64 generator step
+     * @param state long[1] of generator state, advanced on every call
+     * @return      long of next random number
+     */
+    private static long nextRandom(long[] state) {
+        long z = (state[0] += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param enPassantFlag long of position of the pawn susceptible to en passant, 0 if none
+     * @return              long of en passant key, 0 if no en passant
+     */
+    public static long getEnPassantKey(long enPassantFlag) {
+        return (enPassantFlag == 0L) ? 0L : EN_PASSANT_FILE[Long.numberOfTrailingZeros(enPassantFlag) & 7];
+    }
+
+    /**
+     * computes the key of a position from scratch. used to initialise the incremental key and to verify it
+     * @param chessboard    Chessboard of position to hash
+     * @return              long of Zobrist key
+     */
+    public static long computeKey(Chessboard chessboard) {
+        long key = 0L;
+        for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) {
+            for (long pieces = chessboard.getPiecesPosition(pieceIndex); pieces != 0L; pieces = PCMBB.popLowestPosition(pieces)) {
+                key ^= PIECE_SQUARE[pieceIndex][PCMBB.getLowestSquare(pieces)];
+            }
+        }
+        key ^= CASTLING_RIGHTS[chessboard.getCastlingRights()];
+        key ^= getEnPassantKey(chessboard.getEnPassantFlag());
+        if (!chessboard.getIsWhiteTurn()) key ^= SIDE_TO_MOVE;
+        return key;
+    }
+}
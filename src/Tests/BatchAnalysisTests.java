@@ -0,0 +1,113 @@
+package Tests;
+
+import Benchmarks.EngineBenchmarks;
+import Engine.BatchAnalysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BatchAnalysisTests {
+
+    private static final long TIMEOUT_MILLIS = 30000L;
+
+    /**
+     * runs the same input of more lines than BatchAnalysis.REORDER_CAPACITY, so that the reorder ring wraps, with one and
+     * with threadCount workers, and checks that both outputs are equal and in input order
+     * then checks that a writer failing halfway fails the run instead of leaving the reader waiting for permits
+     * @param threadCount   int of number of workers of the parallel run
+     * @return              boolean of whether all checks passed
+     */
+    public static boolean testOrderedOutput(int threadCount) {
+        boolean allPassed = true;
+        String[] lines = getLines(BatchAnalysis.REORDER_CAPACITY * 2 + 17);
+        StringBuilder input = new StringBuilder();
+        for (String line : lines) input.append(line).append('\n');
+
+        for (int job : new int[] { BatchAnalysis.JOB_MOVES, BatchAnalysis.JOB_PERFT }) {
+            try {
+                String single = runBatch(new BatchAnalysis(job, 2, 1), input.toString());
+                String parallel = runBatch(new BatchAnalysis(job, 2, threadCount), input.toString());
+                String[] outputLines = parallel.split("\n", -1);
+                boolean passed = single.equals(parallel) && outputLines.length == lines.length + 1;
+                for (int i = 0; passed && i < lines.length; i++) passed = outputLines[i].startsWith(lines[i]);
+                allPassed &= report("ordered output of job " + job + " with 1 and " + threadCount + " threads", passed);
+            } catch (IOException e) {
+                allPassed &= report("ordered output of job " + job + ": " + e, false);
+            }
+        }
+
+        ExecutorService runner = Executors.newSingleThreadExecutor();
+        try {
+            BatchAnalysis batchAnalysis = new BatchAnalysis(BatchAnalysis.JOB_MOVES, 1, threadCount);
+            Future<Long> result = runner.submit(() -> batchAnalysis.run(new BufferedReader(new StringReader(input.toString())), new FailingWriter(100)));
+            try {
+                result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                allPassed &= report("failing writer fails the run", false);
+            } catch (ExecutionException e) {
+                allPassed &= report("failing writer fails the run", e.getCause() instanceof IOException);
+            }
+        } catch (Exception e) {
+            allPassed &= report("failing writer fails the run: ".concat(e.toString()), false);
+        } finally {
+            runner.shutdownNow();
+        }
+        return allPassed;
+    }
+
+    private static String runBatch(BatchAnalysis batchAnalysis, String input) throws IOException {
+        StringWriter output = new StringWriter();
+        batchAnalysis.run(new BufferedReader(new StringReader(input)), output);
+        return output.toString();
+    }
+
+    /**
+     * @return  String[] of the benchmark positions in turn, with a comment and an empty line now and then
+     */
+    private static String[] getLines(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (i % 97 == 0) lines[i] = "# line " + i;
+            else if (i % 89 == 0) lines[i] = "";
+            else lines[i] = EngineBenchmarks.POSITIONS[i % EngineBenchmarks.POSITIONS.length];
+        }
+        return lines;
+    }
+
+    /**
+     * writer that throws once a number of lines are written, like a closed pipe
+     */
+    private static final class FailingWriter extends Writer {
+        private int linesLeft;
+
+        private FailingWriter(int lines) { this.linesLeft = lines; }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n' && --this.linesLeft < 0) throw new IOException("broken pipe");
+            }
+        }
+
+        @Override
+        public void write(String str) throws IOException { write(str.toCharArray(), 0, str.length()); }
+
+        @Override
+        public void flush() { }
+
+        @Override
+        public void close() { }
+    }
+
+    private static boolean report(String name, boolean passed) {
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat("batch analysis ").concat(name));
+        return passed;
+    }
+}
@@ -0,0 +1,137 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.Evaluation;
+import Engine.MoveHandler;
+import Engine.PawnHashTable;
+
+public class EvaluationTests {
+
+    /**
+     * walks the legal move tree of the reference positions and compares the incrementally updated evaluation with the
+     * evaluation computed from scratch after every performMove and undoMove
+     * @param depth int of depth in plies to walk
+     * @return      boolean of whether all evaluations matched
+     */
+    public static boolean testIncrementalEvaluation(int depth) {
+        boolean allPassed = true;
+        String[] fenStrings = new String[] {
+            Chessboard.DEFAULT_FEN_STRING,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        };
+        for (String fenString : fenStrings) {
+            Chessboard chessboard = new Chessboard(fenString);
+            long mismatches = walk(chessboard, depth, new int[depth][MoveHandler.MAX_MOVES]);
+            allPassed &= mismatches == 0L;
+            System.out.println(((mismatches == 0L) ? "PASS " : "FAIL ").concat(fenString).concat(", mismatches: ").concat(Long.toString(mismatches)));
+        }
+        return allPassed;
+    }
+
+    /**
+     * @return  long of number of positions where the incremental evaluation did not match
+     */
+    private static long walk(Chessboard chessboard, int depth, int[][] moveBuffers) {
+        long mismatches = (Evaluation.evaluate(chessboard) == Evaluation.evaluateFromScratch(chessboard)) ? 0L : 1L;
+        if (depth == 0) return mismatches;
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            mismatches += walk(chessboard, depth - 1, moveBuffers);
+            chessboard.undoMove();
+        }
+        return mismatches;
+    }
+
+    /**
+     * checks every pawn structure term on hand-built skeletons, scores from the view of white: passed, doubled, isolated,
+     * backward and supported pawns, and the pawn shields of all four wings
+     * @return  boolean of whether all checks passed
+     */
+    public static boolean testPawnStructure() {
+        boolean allPassed = true;
+        // e5 passed on rank 5 (25, 45) and isolated (-15, -10)
+        allPassed &= checkPawns("passed pawn", "e5", "", 10, 35);
+        // e2 doubled behind e3 (-10, -20), both isolated (-30, -20), black e7 isolated (+15, +10)
+        allPassed &= checkPawns("doubled pawn", "e2 e3", "e7", -25, -30);
+        // a2 and c2 isolated (-30, -20), the black chain a7 b7 c7 has no weakness
+        allPassed &= checkPawns("isolated pawns", "a2 c2", "a7 b7 c7", -30, -20);
+        // d3 backward: c4 is ahead of it and e5 controls d4 (-8, -10), c4 passed on rank 4 (15, 25), e5 isolated (+15, +10)
+        allPassed &= checkPawns("backward pawn", "c4 d3", "e5", 22, 25);
+        // d3 supported by c2 is not backward, c2 passed on rank 2 (5, 10), e5 isolated (+15, +10)
+        allPassed &= checkPawns("supported pawn", "c2 d3", "e5", 20, 20);
+
+        // unmoved 10, advanced 5, missing -15 per file of the wing
+        long shields = Evaluation.evaluateShields(getPawns("f2 g2 h3"), getPawns("a7 b6 f7 g7 h7"));
+        boolean passed = (short) shields == 25 && (short) (shields >>> 16) == -45
+            && (short) (shields >>> 32) == 30 && (short) (shields >>> 48) == 0;
+        allPassed &= passed;
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat("pawn shields"));
+        return allPassed;
+    }
+
+    /**
+     * walks the legal move tree of the reference positions with one pawn hash table for the whole walk, so that most
+     * evaluations are hits on skeletons stored by earlier positions, and compares every evaluation with one through an
+     * empty table
+     * @param depth int of depth in plies to walk
+     * @return      boolean of whether all evaluations matched and the shared table was hit
+     */
+    public static boolean testPawnHashTable(int depth) {
+        String[] fenStrings = new String[] {
+            Chessboard.DEFAULT_FEN_STRING,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        };
+        PawnHashTable sharedTable = new PawnHashTable(PawnHashTable.DEFAULT_SIZE_BITS);
+        PawnHashTable emptyTable = new PawnHashTable(1);
+        long mismatches = 0L;
+        for (String fenString : fenStrings) {
+            mismatches += walkPawnHash(new Chessboard(fenString), depth, new int[depth][MoveHandler.MAX_MOVES], sharedTable, emptyTable);
+        }
+        boolean passed = mismatches == 0L && sharedTable.getHits() > 0L && emptyTable.getHits() == 0L;
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat(String.format("pawn hash table, hit rate %.3f, mismatches: %d",
+            sharedTable.getHitRate(), mismatches)));
+        return passed;
+    }
+
+    /**
+     * @return  long of number of positions where the evaluation through the shared table did not match
+     */
+    private static long walkPawnHash(Chessboard chessboard, int depth, int[][] moveBuffers, PawnHashTable sharedTable, PawnHashTable emptyTable) {
+        emptyTable.clear();
+        long mismatches = (Evaluation.evaluate(chessboard, sharedTable) == Evaluation.evaluate(chessboard, emptyTable)) ? 0L : 1L;
+        if (depth == 0) return mismatches;
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            mismatches += walkPawnHash(chessboard, depth - 1, moveBuffers, sharedTable, emptyTable);
+            chessboard.undoMove();
+        }
+        return mismatches;
+    }
+
+    private static boolean checkPawns(String name, String whitePawns, String blackPawns, int midgameScore, int endgameScore) {
+        int score = Evaluation.evaluatePawns(getPawns(whitePawns), getPawns(blackPawns));
+        boolean passed = score == Evaluation.packScore(midgameScore, endgameScore);
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat(name).concat(String.format(", score %d %d",
+            Evaluation.unpackMidgame(score), Evaluation.unpackEndgame(score))));
+        return passed;
+    }
+
+    /**
+     * @param squares   String of space separated square names, e.g. "e2 e4"
+     * @return          long of bitboard of the squares
+     */
+    private static long getPawns(String squares) {
+        long pawns = 0L;
+        for (String square : squares.split(" ")) {
+            if (square.isEmpty()) continue;
+            pawns |= 1L << ((square.charAt(1) - '1') * 8 + (square.charAt(0) - 'a'));
+        }
+        return pawns;
+    }
+}
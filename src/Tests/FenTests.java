@@ -0,0 +1,88 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.MoveHandler;
+
+public class FenTests {
+
+    /**
+     * loads every perft reference position into one reused chessboard and checks that toFen gives back the same FEN string
+     * then, for every position reached in depth plies from it, reloads toFen into a second chessboard and checks that the key,
+     * evaluation sums and FEN string match, which covers en passant squares and castling rights made by moves
+     * @param depth int of depth in plies to walk
+     * @return      boolean of whether all positions round-tripped
+     */
+    public static boolean testFenRoundTrip(int depth) {
+        boolean allPassed = true;
+        Chessboard chessboard = new Chessboard("");
+        Chessboard reloaded = new Chessboard("");
+        StringBuilder builder = new StringBuilder();
+        for (String[] position : PerftTests.PERFT_POSITIONS) {
+            chessboard.setFromFen(position[1]);
+            builder.setLength(0);
+            boolean passed = chessboard.toFen(builder).toString().equals(position[1]);
+            long mismatches = (passed) ? walk(chessboard, reloaded, depth, new int[depth][MoveHandler.MAX_MOVES], builder) : 1L;
+            allPassed &= mismatches == 0L;
+            System.out.println(((mismatches == 0L) ? "PASS " : "FAIL ").concat(position[1]).concat(", mismatches: ").concat(Long.toString(mismatches)));
+        }
+        return allPassed;
+    }
+
+    /**
+     * checks that setFromFen rejects malformed positions with IllegalArgumentException
+     * @return  boolean of whether every invalid FEN string was rejected
+     */
+    public static boolean testInvalidFen() {
+        boolean allPassed = true;
+        String[] fenStrings = new String[] {
+            "rnbqkbnr/pppppppp/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",        // 7 ranks
+            "rnbqkbnr/pppppppp/8/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",    // 9 ranks
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",      // 9 squares in a rank
+            "rnbqkbnr/ppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",       // 7 squares in a rank
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQ1BNR w kq - 0 1",        // no white king
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNK w kq - 0 1",        // two white kings
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN1 w KQkq - 0 1",      // K without the h1 rook
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQ1KNR w Qkq - 0 1",       // Q with the king off e1
+            "1nbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQq - 0 1",       // q without the a8 rook
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",      // bad side to move
+        };
+        Chessboard chessboard = new Chessboard("");
+        for (String fenString : fenStrings) {
+            boolean rejected = false;
+            try {
+                chessboard.setFromFen(fenString);
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            allPassed &= rejected;
+            System.out.println(((rejected) ? "PASS " : "FAIL ").concat("invalid FEN rejected: ").concat(fenString));
+        }
+        return allPassed;
+    }
+
+    /**
+     * @return  long of number of positions that did not round-trip
+     */
+    private static long walk(Chessboard chessboard, Chessboard reloaded, int depth, int[][] moveBuffers, StringBuilder builder) {
+        builder.setLength(0);
+        String fen = chessboard.toFen(builder).toString();
+        reloaded.setFromFen(fen);
+        builder.setLength(0);
+        boolean matched = reloaded.toFen(builder).toString().equals(fen)
+            && reloaded.getZobristKey() == chessboard.getZobristKey()
+            && reloaded.getMidgameScore() == chessboard.getMidgameScore()
+            && reloaded.getEndgameScore() == chessboard.getEndgameScore()
+            && reloaded.getGamePhase() == chessboard.getGamePhase();
+        long mismatches = (matched) ? 0L : 1L;
+        if (depth == 0) return mismatches;
+
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            mismatches += walk(chessboard, reloaded, depth - 1, moveBuffers, builder);
+            chessboard.undoMove();
+        }
+        return mismatches;
+    }
+}
@@ -1,7 +1,17 @@
 package Tests;
 
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import Engine.Chessboard;
+import Engine.MoveHandler;
 import Engine.PCMBB;
+import Engine.SetwiseAttacks;
+import Engine.SlidingAttacks;
+import Engine.TableSnapshot;
 
 public class PCMBBTests {
     public static void testMagicBitboards() {
@@ -10,4 +20,133 @@ public class PCMBBTests {
         PCMBB.printBoard(PCMBB.getBishopAttacks(PCMBB.positionCoordinatesToIndex("d4"), bishopTrial));
 
     }
+
+    /**
+     * compares every sliding attacks backend with the fixed magic backend on random occupancies of every square
+     * @param samples   int of random occupancies per square
+     * @return          boolean of whether all backends agreed
+     */
+    public static boolean testSlidingAttacks(int samples) {
+        boolean allPassed = true;
+        SlidingAttacks reference = SlidingAttacks.create(SlidingAttacks.FIXED_MAGIC);
+        SplittableRandom random = new SplittableRandom(1L);
+        for (String name : SlidingAttacks.BACKENDS) {
+            SlidingAttacks backend = SlidingAttacks.create(name);
+            long mismatches = 0L;
+            for (int square = 0; square < 64; square++) {
+                for (int i = 0; i < samples; i++) {
+                    // sparse and dense occupancies
+                    long occupancy = ((i & 1) == 0) ? random.nextLong() & random.nextLong() : random.nextLong() | random.nextLong();
+                    if (backend.getRookAttacks(square, occupancy) != reference.getRookAttacks(square, occupancy)) mismatches++;
+                    if (backend.getBishopAttacks(square, occupancy) != reference.getBishopAttacks(square, occupancy)) mismatches++;
+                }
+            }
+            allPassed &= mismatches == 0L;
+            System.out.println(((mismatches == 0L) ? "PASS " : "FAIL ").concat(name).concat(" sliding attacks (")
+                .concat(Long.toString(backend.getTableBytes() / 1024)).concat(" KB), mismatches: ").concat(Long.toString(mismatches)));
+        }
+        return allPassed;
+    }
+
+    /**
+     * writes a table snapshot to a temporary file, checks that it loads with the same step and line tables, and that a
+     * snapshot with a different content key or one corrupted payload byte is rejected
+     * @return  boolean of whether the snapshot round-tripped and the corrupted one was rejected
+     */
+    public static boolean testTableSnapshot() {
+        boolean passed;
+        Path path = null;
+        try {
+            path = Files.createTempFile("pcmbb", ".tables");
+            TableSnapshot.write(path);
+            LongBuffer snapshot = TableSnapshot.load(path);
+            passed = snapshot != null;
+            long[][] tables = new long[][] { PCMBB.KING_ATTACKS, PCMBB.KNIGHT_ATTACKS, PCMBB.WHITE_PAWN_MOVES, PCMBB.WHITE_PAWN_ATTACKS,
+                PCMBB.BLACK_PAWN_MOVES, PCMBB.BLACK_PAWN_ATTACKS, PCMBB.ROOK_MASK, PCMBB.BISHOP_MASK };
+            for (int i = 0; passed && i < tables.length; i++) {
+                long[] loaded = new long[64];
+                snapshot.get(loaded);
+                passed = Arrays.equals(loaded, tables[i]);
+            }
+            for (int i = 0; passed && i < 64; i++) {
+                long[] loaded = new long[64];
+                snapshot.get(loaded);
+                passed = Arrays.equals(loaded, PCMBB.BETWEEN[i]);
+            }
+
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[8] ^= 1;
+            Files.write(path, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+            passed &= TableSnapshot.load(path) == null;
+            bytes[8] ^= 1;
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(path, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+            passed &= TableSnapshot.load(path) == null;
+        } catch (IOException e) {
+            passed = false;
+        } finally {
+            try {
+                if (path != null) Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // leaving a temporary file behind does not fail the test
+            }
+        }
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat("table snapshot round trip"));
+        return passed;
+    }
+
+    /**
+     * compares set-wise attacks, one board at a time and batched, with the per-piece attacks of Chessboard
+     * on every position reached in depth plies from the perft reference positions, for both sides
+     * @param depth int of depth in plies to walk
+     * @return      boolean of whether all attack maps matched
+     */
+    public static boolean testSetwiseAttacks(int depth) {
+        SetwiseAttacks.AttackBatch batch = new SetwiseAttacks.AttackBatch(2 * MoveHandler.MAX_MOVES);
+        long mismatches = 0L, positions = 0L;
+        for (String[] position : PerftTests.PERFT_POSITIONS) {
+            Chessboard chessboard = new Chessboard(position[1]);
+            int[][] moveBuffers = new int[depth + 1][MoveHandler.MAX_MOVES];
+            mismatches += walkSetwise(chessboard, depth, moveBuffers, batch);
+            positions++;
+        }
+        System.out.println(((mismatches == 0L) ? "PASS " : "FAIL ").concat("set-wise attacks of ").concat(Long.toString(positions))
+            .concat(" positions, mismatches: ").concat(Long.toString(mismatches)));
+        return mismatches == 0L;
+    }
+
+    /**
+     * @return  long of number of attack maps that did not match, the children of every position are checked as one batch
+     */
+    private static long walkSetwise(Chessboard chessboard, int depth, int[][] moveBuffers, SetwiseAttacks.AttackBatch batch) {
+        long mismatches = 0L;
+        for (boolean byWhite : new boolean[] { true, false }) {
+            long expected = chessboard.generateAttackedSquares(byWhite, chessboard.getFullBitboard());
+            if (SetwiseAttacks.getAttackedSquares(chessboard, byWhite, chessboard.getFullBitboard()) != expected) mismatches++;
+        }
+        if (depth == 0) return mismatches;
+
+        int[] moves = moveBuffers[depth];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        long[] expected = new long[2 * count];
+        batch.clear();
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            expected[2 * i] = chessboard.generateAttackedSquares(true, chessboard.getFullBitboard());
+            expected[2 * i + 1] = chessboard.generateAttackedSquares(false, chessboard.getFullBitboard());
+            batch.add(chessboard, true);
+            batch.add(chessboard, false);
+            chessboard.undoMove();
+        }
+        batch.compute();
+        for (int i = 0; i < 2 * count; i++) {
+            if (batch.getAttacks(i) != expected[i]) mismatches++;
+        }
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            mismatches += walkSetwise(chessboard, depth - 1, moveBuffers, batch);
+            chessboard.undoMove();
+        }
+        return mismatches;
+    }
 }
@@ -0,0 +1,73 @@
+package Tests;
+
+import Benchmarks.EngineBenchmarks;
+import Engine.Chessboard;
+import Engine.MoveHandler;
+import Engine.ParallelSearch;
+import Engine.Search;
+import Engine.TranspositionTable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ParallelSearchTests {
+
+    private static final long STOP_TIMEOUT_MILLIS = 2000L;
+
+    /**
+     * checks the stop and join protocol of Lazy SMP: no helper is still running after search returns, a stop sent between
+     * resetStop and runSearch is not lost (the search returns at once with a legal move instead of running without limit),
+     * and a stop sent from another thread ends an unlimited search and joins its helpers
+     * @param threadCount   int of number of threads, at least 2 so that there are helpers
+     * @return              boolean of whether all checks passed
+     */
+    public static boolean testStopProtocol(int threadCount) {
+        boolean allPassed = true;
+        ParallelSearch parallelSearch = new ParallelSearch(new TranspositionTable(16), threadCount);
+        parallelSearch.setInfoOutput(null);
+        Chessboard chessboard = new Chessboard(EngineBenchmarks.POSITIONS[1]);
+
+        int move = parallelSearch.search(chessboard, 6, 0L, 0L);
+        allPassed &= report("helpers joined after search", isLegal(chessboard, move) && parallelSearch.getRunningHelpers() == 0);
+
+        // a stop arriving before the search thread reaches runSearch
+        parallelSearch.resetStop();
+        parallelSearch.stop();
+        long startTime = System.nanoTime();
+        move = parallelSearch.runSearch(chessboard, Search.MAX_PLY, 0L, 0L);
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000L;
+        allPassed &= report("early stop kept", elapsedMillis < STOP_TIMEOUT_MILLIS && isLegal(chessboard, move)
+            && parallelSearch.getRunningHelpers() == 0);
+
+        // a stop from another thread while an unlimited search runs
+        ExecutorService searchThread = Executors.newSingleThreadExecutor();
+        try {
+            parallelSearch.resetStop();
+            Future<Integer> result = searchThread.submit(() -> parallelSearch.runSearch(chessboard, Search.MAX_PLY, 0L, 0L));
+            Thread.sleep(100L);
+            parallelSearch.stop();
+            move = result.get(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            allPassed &= report("stop from another thread", isLegal(chessboard, move) && parallelSearch.getRunningHelpers() == 0);
+        } catch (Exception e) {
+            allPassed &= report("stop from another thread: ".concat(e.toString()), false);
+        } finally {
+            searchThread.shutdownNow();
+            parallelSearch.shutdown();
+        }
+        return allPassed;
+    }
+
+    private static boolean isLegal(Chessboard chessboard, int move) {
+        int[] moves = new int[MoveHandler.MAX_MOVES];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        for (int i = 0; i < count; i++) if (moves[i] == move) return true;
+        return false;
+    }
+
+    private static boolean report(String name, boolean passed) {
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat("parallel search ").concat(name));
+        return passed;
+    }
+}
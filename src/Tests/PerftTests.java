@@ -0,0 +1,83 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.Perft;
+
+public class PerftTests {
+
+    /**
+     * reference positions with known perft node counts
+     * each entry is { name, fen string, depth, expected nodes }
+     * standard positions are taken from the chess programming wiki perft results, edge cases from Martin Sedlak's perft suite
+     */
+    public static final String[][] PERFT_POSITIONS = new String[][] {
+        { "start position", Chessboard.DEFAULT_FEN_STRING, "1", "20" },
+        { "start position", Chessboard.DEFAULT_FEN_STRING, "2", "400" },
+        { "start position", Chessboard.DEFAULT_FEN_STRING, "3", "8902" },
+        { "start position", Chessboard.DEFAULT_FEN_STRING, "4", "197281" },
+        { "start position", Chessboard.DEFAULT_FEN_STRING, "5", "4865609" },
+        { "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "1", "48" },
+        { "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "2", "2039" },
+        { "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "3", "97862" },
+        { "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603" },
+        { "position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "3", "2812" },
+        { "position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624" },
+        { "position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "3", "9467" },
+        { "position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333" },
+        { "position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "3", "62379" },
+        { "position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "3", "89890" },
+        { "illegal en passant 1", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", "6", "1134888" },
+        { "en passant from fen", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", "6", "1440467" },
+        { "illegal en passant 2", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", "6", "1015133" },
+        { "short castling gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", "6", "661072" },
+        { "long castling gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", "6", "803711" },
+        { "castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", "4", "1274206" },
+        { "castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", "4", "1720476" },
+        { "promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", "6", "3821001" },
+        { "discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", "5", "1004658" },
+        { "promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", "6", "217342" },
+        { "under promote to give check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", "6", "92683" },
+        { "self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", "6", "2217" },
+        { "stalemate and checkmate 1", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", "7", "567584" },
+        { "stalemate and checkmate 2", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", "4", "23527" },
+    };
+
+    /**
+     * runs every reference position whose expected node count is within the budget
+     * prints node counts, elapsed time and nodes per second, and whether each count matches
+     * @param maxNodes  long of largest expected node count to run, keeps quick runs quick
+     * @return          boolean of whether all positions run matched their expected node count
+     */
+    public static boolean testPerftSuite(long maxNodes) {
+        boolean allPassed = true;
+        long totalNodes = 0L, totalTime = 0L;
+        for (String[] position : PERFT_POSITIONS) {
+            int depth = Integer.parseInt(position[2]);
+            long expectedNodes = Long.parseLong(position[3]);
+            if (expectedNodes > maxNodes) continue;
+
+            Chessboard chessboard = new Chessboard(position[1]);
+            long startTime = System.nanoTime();
+            long nodes;
+            try {
+                nodes = Perft.perft(chessboard, depth);
+            } catch (RuntimeException e) {
+                // a broken move generator can corrupt the board (e.g. capture a king), report it as a failure and carry on
+                allPassed = false;
+                System.out.println("ERROR ".concat(position[0]).concat(", depth ").concat(position[2]).concat(": ").concat(e.toString()));
+                continue;
+            }
+            long elapsed = System.nanoTime() - startTime;
+            totalNodes += nodes;
+            totalTime += elapsed;
+
+            boolean passed = nodes == expectedNodes;
+            allPassed &= passed;
+            String result = (passed) ? "PASS " : "FAIL (expected ".concat(Long.toString(expectedNodes)).concat(") ");
+            System.out.println(result.concat(position[0]).concat(", ").concat(Perft.formatReport(depth, nodes, elapsed)));
+        }
+        long totalNodesPerSecond = (totalTime > 0L) ? (long) (totalNodes * 1e9 / totalTime) : 0L;
+        System.out.println(String.format("total: %d nodes in %.3f ms (%d nps)", totalNodes, totalTime / 1e6, totalNodesPerSecond));
+        return allPassed;
+    }
+}
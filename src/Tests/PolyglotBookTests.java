@@ -0,0 +1,136 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.Move;
+import Engine.MoveHandler;
+import Engine.PolyglotBook;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class PolyglotBookTests {
+
+    // { FEN string, book moves in Polyglot notation with their weights, expected legal moves in book order }
+    private static final String[][] BOOK_POSITIONS = {
+        { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "e2e4:20 d2d4:10 e2e5:5", "e2e4 d2d4" },
+        { "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1h1:3 e1a1:2 a1a8:1", "e1g1 e1c1 a1a8" },
+        { "r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1", "e8h8:1 e8a8:1", "e8g8 e8c8" },
+        { "8/P7/8/8/8/8/8/k6K w - - 0 1", "a7a8q:4 a7a8n:1", "a7a8q a7a8n" },
+    };
+
+    // { FEN string, Polyglot key }, the reference positions of the Polyglot book format specification
+    private static final String[][] REFERENCE_KEYS = {
+        { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "463b96181691fc9c" },
+        { "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "823c9b50fd114196" },
+        { "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", "0756b94461c50fb0" },
+        { "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", "662fafb965db29d4" },
+        { "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", "22a48b5a8e47ff78" },
+        { "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3", "652a607ca3f242c1" },
+        { "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4", "00fdd303c946bdd9" },
+        { "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3", "3c8123ea7b067637" },
+        { "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4", "5c3f9b829b279560" },
+    };
+
+    // { FEN string with an en passant square, whether a pawn of the side to move can capture en passant }
+    private static final String[][] EN_PASSANT_POSITIONS = {
+        { "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "false" },
+        { "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "true" },
+        { "rnbqkbnr/ppppp1pp/8/4Pp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 1", "true" },
+        { "rnbqkbnr/pppppp1p/8/4P1p1/8/8/PPPP1PPP/RNBQKBNR w KQkq g6 0 1", "false" },
+    };
+
+    /**
+     * checks the keys of the reference positions of the Polyglot specification, which cover the start squares of every
+     * piece, all castling rights, en passant and the side to move. then writes a book for BOOK_POSITIONS and checks that it
+     * is read back as the expected legal moves (skipping moves that are not legal), that weighted picks follow the weights,
+     * and that the en passant key is only used when the capture is possible
+     * @return  boolean of whether all checks passed
+     */
+    public static boolean testPolyglotBook() {
+        boolean allPassed = true;
+        Chessboard chessboard = new Chessboard("");
+        for (String[] position : REFERENCE_KEYS) {
+            chessboard.setFromFen(position[0]);
+            long key = PolyglotBook.getKey(chessboard);
+            boolean passed = key == Long.parseUnsignedLong(position[1], 16);
+            allPassed &= passed;
+            System.out.println(((passed) ? "PASS " : "FAIL ").concat(position[0]).concat(String.format(", polyglot key %016x", key)));
+        }
+
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("polyglot");
+            Path bookPath = directory.resolve("book.bin");
+            long[][] entries = new long[0][];
+            for (String[] position : BOOK_POSITIONS) {
+                chessboard.setFromFen(position[0]);
+                long key = PolyglotBook.getKey(chessboard);
+                for (String bookMove : position[1].split(" ")) {
+                    String[] moveAndWeight = bookMove.split(":");
+                    entries = Arrays.copyOf(entries, entries.length + 1);
+                    entries[entries.length - 1] = new long[] { key, encodeMove(moveAndWeight[0]), Long.parseLong(moveAndWeight[1]) };
+                }
+            }
+            // entries of one key keep their order, as in a real book sorted by key and then weight
+            Arrays.sort(entries, (a, b) -> Long.compareUnsigned(a[0], b[0]));
+            ByteBuffer buffer = ByteBuffer.allocate(entries.length * 16);
+            for (long[] entry : entries) buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt(0);
+            Files.write(bookPath, buffer.array());
+
+            PolyglotBook book = new PolyglotBook(bookPath);
+            int[] moves = new int[MoveHandler.MAX_MOVES], weights = new int[MoveHandler.MAX_MOVES];
+            for (String[] position : BOOK_POSITIONS) {
+                chessboard.setFromFen(position[0]);
+                int count = book.getMoves(chessboard, moves, weights);
+                StringBuilder found = new StringBuilder();
+                for (int i = 0; i < count; i++) found.append((i == 0) ? "" : " ").append(Move.toString(moves[i]));
+                boolean passed = found.toString().equals(position[2])
+                    && book.pickMove(chessboard, 0.0) == moves[0]
+                    && book.pickMove(chessboard, 0.999) == moves[count - 1];
+                allPassed &= passed;
+                System.out.println(((passed) ? "PASS " : "FAIL ").concat(position[0]).concat(", book moves: ").concat(found.toString()));
+            }
+            chessboard.setFromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+            boolean missing = book.pickMove(chessboard, 0.5) == Move.NONE;
+            allPassed &= missing;
+            System.out.println(((missing) ? "PASS " : "FAIL ").concat("position not in book"));
+
+            Chessboard withoutEnPassant = new Chessboard("");
+            for (String[] position : EN_PASSANT_POSITIONS) {
+                chessboard.setFromFen(position[0]);
+                withoutEnPassant.setFromFen(position[0].replaceFirst(" [a-h][36] ", " - "));
+                boolean keyDiffers = PolyglotBook.getKey(chessboard) != PolyglotBook.getKey(withoutEnPassant);
+                boolean passed = keyDiffers == Boolean.parseBoolean(position[1]);
+                allPassed &= passed;
+                System.out.println(((passed) ? "PASS " : "FAIL ").concat(position[0]).concat(", en passant key used: ").concat(Boolean.toString(keyDiffers)));
+            }
+            return allPassed;
+        } catch (IOException e) {
+            System.out.println("FAIL polyglot book: ".concat(e.toString()));
+            return false;
+        } finally {
+            if (directory != null) {
+                try {
+                    Files.deleteIfExists(directory.resolve("book.bin"));
+                    Files.deleteIfExists(directory);
+                } catch (IOException e) {
+                    // a leftover temporary directory does not fail the test
+                }
+            }
+        }
+    }
+
+    /**
+     * @param move  String of move in Polyglot coordinate notation, castling as king takes rook
+     * @return      long of Polyglot move bits
+     */
+    private static long encodeMove(String move) {
+        int fromFile = move.charAt(0) - 'a', fromRank = move.charAt(1) - '1';
+        int toFile = move.charAt(2) - 'a', toRank = move.charAt(3) - '1';
+        int promotion = (move.length() > 4) ? "nbrq".indexOf(move.charAt(4)) + 1 : 0;
+        return (promotion << 12) | (fromRank << 9) | (fromFile << 6) | (toRank << 3) | toFile;
+    }
+}
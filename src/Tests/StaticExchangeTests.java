@@ -0,0 +1,50 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.Evaluation;
+import Engine.Move;
+import Engine.MoveHandler;
+import Engine.Piece;
+import Engine.StaticExchange;
+
+public class StaticExchangeTests {
+
+    /**
+     * each case is { FEN string, move in coordinate notation, material gain of the exchange for the side to move }
+     * the gain is checked with thresholds at and just above it
+     */
+    private static final String[][] SEE_CASES = new String[][] {
+        // undefended pawn
+        { "1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5", Integer.toString(Evaluation.PIECE_VALUES[Piece.PAWN]) },
+        // pawn defended by a pawn, rook is lost
+        { "4k3/8/3p4/4p3/8/8/8/4RK2 w - - 0 1", "e1e5", Integer.toString(Evaluation.PIECE_VALUES[Piece.PAWN] - Evaluation.PIECE_VALUES[Piece.ROOK]) },
+        // knight takes a pawn defended by a knight, and is recaptured
+        { "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5", Integer.toString(Evaluation.PIECE_VALUES[Piece.PAWN] - Evaluation.PIECE_VALUES[Piece.KNIGHT]) },
+        // x-ray: the rook behind the queen joins the exchange, the queen is not recaptured with the rook in reserve
+        { "3r2k1/8/8/3p4/8/8/3Q4/3R2K1 w - - 0 1", "d2d5", Integer.toString(Evaluation.PIECE_VALUES[Piece.PAWN] - Evaluation.PIECE_VALUES[Piece.QUEEN] + Evaluation.PIECE_VALUES[Piece.ROOK]) },
+        // equal trade of knights
+        { "4k3/8/5n2/3n4/8/4N3/8/4K3 w - - 0 1", "e3d5", "0" },
+    };
+
+    /**
+     * @return  boolean of whether every case passed
+     */
+    public static boolean testStaticExchange() {
+        boolean allPassed = true;
+        int[] moves = new int[MoveHandler.MAX_MOVES];
+        for (String[] seeCase : SEE_CASES) {
+            Chessboard chessboard = new Chessboard(seeCase[0]);
+            int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+            int move = 0;
+            for (int i = 0; i < count; i++) {
+                if (Move.toString(moves[i]).equals(seeCase[1])) move = moves[i];
+            }
+            int gain = Integer.parseInt(seeCase[2]);
+            boolean passed = move != 0 && StaticExchange.seeGreaterOrEqual(chessboard, move, gain)
+                && !StaticExchange.seeGreaterOrEqual(chessboard, move, gain + 1);
+            allPassed &= passed;
+            System.out.println(((passed) ? "PASS " : "FAIL ").concat(seeCase[1]).concat(" in ").concat(seeCase[0]));
+        }
+        return allPassed;
+    }
+}
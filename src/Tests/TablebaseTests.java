@@ -0,0 +1,151 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.MoveHandler;
+import Engine.PCMBB;
+import Engine.Piece;
+import Engine.Tablebase;
+import Engine.Tablebases;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class TablebaseTests {
+
+    // { material, longest distance to mate in plies }, the longest mates are 10 moves in KQK, 16 in KRK and 28 in KPK
+    private static final String[][] MATERIALS = { { "KQK", "20" }, { "KRK", "32" }, { "KPK", "56" } };
+
+    /**
+     * generates and writes MATERIALS (and the materials they reach) to a temporary directory, maps them back, and checks
+     * the longest mates. then for random legal positions of every material, with either colour as the stronger side,
+     * checks the code against the codes after every legal move of the engine's own move generator: a win in the shortest
+     * distance if a move reaches a lost position, a draw if a move reaches a draw, otherwise a loss in the longest distance
+     * last checks that a material with pawns on both sides, which would need en passant, is neither generated nor probed
+     * @param samples   int of random positions per material
+     * @return          boolean of whether all checks passed
+     */
+    public static boolean testTablebases(int samples) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("tablebases");
+            Tablebases generated = new Tablebases(directory);
+            for (String[] material : MATERIALS) generated.generate(material[0], true);
+            Tablebases tablebases = new Tablebases(directory);
+            tablebases.loadAll();
+
+            boolean allPassed = true;
+            SplittableRandom random = new SplittableRandom(4L);
+            Chessboard chessboard = new Chessboard("");
+            int[] moves = new int[MoveHandler.MAX_MOVES];
+            for (String[] material : MATERIALS) {
+                Tablebase table = tablebases.get(material[0]);
+                boolean passed = table != null && table.getMaxDistance() == Integer.parseInt(material[1]);
+                long mismatches = 0L;
+                for (int sample = 0; passed && sample < samples; ) {
+                    boolean swapColours = random.nextBoolean();
+                    if (!setRandomPosition(chessboard, table, swapColours, random)) continue;
+                    sample++;
+                    if (tablebases.probe(chessboard) != getExpectedCode(chessboard, tablebases, moves)) mismatches++;
+                }
+                passed &= mismatches == 0L;
+                allPassed &= passed;
+                System.out.println(((passed) ? "PASS " : "FAIL ").concat(material[0]).concat(" tablebase, longest mate ")
+                    .concat((table == null) ? "-" : Integer.toString(table.getMaxDistance())).concat(" plies, mismatches: ")
+                    .concat(Long.toString(mismatches)));
+            }
+
+            boolean refused = false;
+            try {
+                tablebases.generate("KPKP", false);
+            } catch (IllegalArgumentException e) {
+                refused = true;
+            }
+            chessboard.setFromFen("4k3/3p4/8/4P3/8/8/8/4K3 b - - 0 1");
+            boolean passed = refused && !Arrays.asList(Tablebases.getAllMaterials()).contains("KPKP")
+                && tablebases.probe(chessboard) == Tablebases.NO_RESULT;
+            allPassed &= passed;
+            System.out.println(((passed) ? "PASS " : "FAIL ").concat("KPKP tablebase refused"));
+            return allPassed;
+        } catch (IOException e) {
+            System.out.println("FAIL tablebases: ".concat(e.toString()));
+            return false;
+        } finally {
+            if (directory != null) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) Files.deleteIfExists(file);
+                    Files.deleteIfExists(directory);
+                } catch (IOException e) {
+                    // a leftover temporary directory does not fail the test
+                }
+            }
+        }
+    }
+
+    /**
+     * @return  int of code of the position found from the codes after every legal move
+     */
+    private static int getExpectedCode(Chessboard chessboard, Tablebases tablebases, int[] moves) {
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        if (count == 0) return (chessboard.isKingInCheck()) ? 1 : Tablebase.DRAW;
+        int bestWin = Integer.MAX_VALUE, longestLoss = -1;
+        boolean canDraw = false;
+        for (int i = 0; i < count; i++) {
+            chessboard.performMove(moves[i]);
+            int code = tablebases.probe(chessboard);
+            chessboard.undoMove();
+            if (code == Tablebase.DRAW) {
+                canDraw = true;
+            } else if (Tablebase.isWin(code)) {
+                longestLoss = Math.max(longestLoss, Tablebase.getDistance(code) + 1);
+            } else {
+                bestWin = Math.min(bestWin, Tablebase.getDistance(code) + 1);
+            }
+        }
+        if (bestWin != Integer.MAX_VALUE) return bestWin + 1;
+        return (canDraw) ? Tablebase.DRAW : longestLoss + 1;
+    }
+
+    /**
+     * places the kings and the pieces of a table on random squares
+     * @return  boolean of whether the position is legal
+     */
+    private static boolean setRandomPosition(Chessboard chessboard, Tablebase table, boolean swapColours, SplittableRandom random) {
+        char[] board = new char[64];
+        int[] pieces = { Piece.WHITE_KING, Piece.BLACK_KING, table.getFirstPiece(), table.getSecondPiece() };
+        for (int piece : pieces) {
+            if (piece == Piece.NONE) continue;
+            int square = random.nextInt(64);
+            if (board[square] != 0) return false;
+            char code = Piece.getCode(piece);
+            if (swapColours) code = (Character.isUpperCase(code)) ? Character.toLowerCase(code) : Character.toUpperCase(code);
+            if ((code == 'P' || code == 'p') && (square >>> 3 == 0 || square >>> 3 == 7)) return false;
+            board[square] = code;
+        }
+        boolean isWhiteTurn = random.nextBoolean();
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                char code = board[rank * 8 + file];
+                if (code == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) fen.append(empty);
+                empty = 0;
+                fen.append(code);
+            }
+            if (empty > 0) fen.append(empty);
+            if (rank > 0) fen.append('/');
+        }
+        fen.append((isWhiteTurn) ? " w - - 0 1" : " b - - 0 1");
+        chessboard.setFromFen(fen);
+        // the side not to move must not be in check
+        int otherKing = PCMBB.getLowestSquare(chessboard.getPiecesPosition((isWhiteTurn) ? Piece.BLACK_KING : Piece.WHITE_KING));
+        return !chessboard.isSquareAttacked(otherKing, isWhiteTurn);
+    }
+}
@@ -0,0 +1,36 @@
+package Tests;
+
+import Engine.TimeManager;
+
+public class TimeManagerTests {
+
+    /**
+     * checks the time limits of fixed clock states against values worked out by hand
+     * @return  boolean of whether all checks passed
+     */
+    public static boolean testTimeLimits() {
+        boolean allPassed = true;
+        // { time, increment, moves to go, move time, move overhead, expected limit }
+        long[][] cases = new long[][] {
+            { TimeManager.NO_CLOCK, 0L, 0L, 0L, 30L, 0L },  // no clock: no limit
+            { 0L, 0L, 0L, 0L, 30L, 1L },                    // clock run out: emergency limit, never below 1 ms
+            { -500L, 2000L, 0L, 0L, 30L, 970L },            // negative clock: half the increment less the overhead
+            { 60000L, 0L, 0L, 1000L, 30L, 970L },           // movetime wins over the clock, less the overhead
+            { TimeManager.NO_CLOCK, 0L, 0L, 10L, 30L, 1L }, // never below 1 ms
+            { 60000L, 0L, 0L, 0L, 30L, 1970L },             // sudden death: 60000 / 30 - 30
+            { 60000L, 1000L, 0L, 0L, 30L, 2720L },          // plus three quarters of the increment
+            { 10000L, 1000L, 10L, 0L, 30L, 1720L },         // 10000 / 10 + 750 - 30
+            { 50000L, 0L, 100L, 0L, 0L, 1000L },            // moves to go capped at 50
+            { 1000L, 2000L, 0L, 0L, 30L, 470L },            // at most half of the remaining time
+            { 1000L, 0L, 1L, 0L, 30L, 970L },               // the last move before the time control may use it all
+        };
+        for (long[] test : cases) {
+            long limit = TimeManager.getTimeLimit(test[0], test[1], (int) test[2], test[3], (int) test[4]);
+            boolean passed = limit == test[5];
+            allPassed &= passed;
+            System.out.println(((passed) ? "PASS " : "FAIL ").concat(String.format("time limit time %d inc %d movestogo %d movetime %d overhead %d: %d",
+                test[0], test[1], test[2], test[3], test[4], limit)));
+        }
+        return allPassed;
+    }
+}
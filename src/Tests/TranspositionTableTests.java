@@ -0,0 +1,73 @@
+package Tests;
+
+import Engine.Move;
+import Engine.Piece;
+import Engine.TranspositionTable;
+
+public class TranspositionTableTests {
+
+    // keys of one bucket: the bucket is chosen from the upper 32 bits, the lower bits tell the keys apart
+    private static final long BUCKET_KEY = 0x5DEECE66DL << 28;
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * checks a store and probe round trip of every field, that a key of the same bucket that was never stored is a miss,
+     * that a shallower store of the same search keeps a deeper entry, and that a full bucket replaces its shallowest entry,
+     * counting entries of older searches as shallower
+     * @return  boolean of whether all checks passed
+     */
+    public static boolean testTranspositionTable() {
+        boolean allPassed = true;
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.encode(12, 28, Piece.WHITE_PAWN, Piece.NONE, Piece.NONE, Move.FLAG_DOUBLE_PUSH);
+
+        // round trip
+        table.store(getKey(0), move, -1234, 17, TranspositionTable.LOWER_BOUND);
+        long entry = table.probe(getKey(0));
+        allPassed &= report("round trip", entry != TranspositionTable.NO_ENTRY
+            && TranspositionTable.getMove(entry) == move && TranspositionTable.getScore(entry) == -1234
+            && TranspositionTable.getDepth(entry) == 17 && TranspositionTable.getBound(entry) == TranspositionTable.LOWER_BOUND);
+
+        // a different key of the same bucket fails the key ^ data check
+        allPassed &= report("key mismatch is a miss", table.probe(getKey(1)) == TranspositionTable.NO_ENTRY);
+
+        // a shallower bound of the same search keeps the deeper entry, an exact score replaces it and keeps its move
+        table.store(getKey(0), Move.NONE, 50, 3, TranspositionTable.UPPER_BOUND);
+        boolean deeperKept = TranspositionTable.getDepth(table.probe(getKey(0))) == 17;
+        table.store(getKey(0), Move.NONE, 60, 3, TranspositionTable.EXACT);
+        entry = table.probe(getKey(0));
+        allPassed &= report("same key replacement", deeperKept && TranspositionTable.getDepth(entry) == 3
+            && TranspositionTable.getScore(entry) == 60 && TranspositionTable.getMove(entry) == move);
+
+        // a full bucket of the same search replaces its shallowest entry
+        table.clear();
+        for (int i = 0; i < BUCKET_SIZE; i++) table.store(getKey(i), move, i, 10 + i, TranspositionTable.EXACT);
+        table.store(getKey(BUCKET_SIZE), move, 0, 1, TranspositionTable.EXACT);
+        allPassed &= report("shallowest entry replaced", table.probe(getKey(0)) == TranspositionTable.NO_ENTRY
+            && countHits(table, 1, BUCKET_SIZE + 1) == BUCKET_SIZE);
+
+        // entries of an older search age by 8 plies per search: a depth 20 entry two searches old is shallower than depth 5
+        table.clear();
+        table.store(getKey(0), move, 0, 20, TranspositionTable.EXACT);
+        table.newSearch();
+        table.newSearch();
+        for (int i = 1; i < BUCKET_SIZE; i++) table.store(getKey(i), move, 0, 5, TranspositionTable.EXACT);
+        table.store(getKey(BUCKET_SIZE), move, 0, 1, TranspositionTable.EXACT);
+        allPassed &= report("older generation replaced first", table.probe(getKey(0)) == TranspositionTable.NO_ENTRY
+            && countHits(table, 1, BUCKET_SIZE + 1) == BUCKET_SIZE);
+        return allPassed;
+    }
+
+    private static long getKey(int i) { return BUCKET_KEY | (i + 1); }
+
+    private static int countHits(TranspositionTable table, int from, int to) {
+        int hits = 0;
+        for (int i = from; i < to; i++) hits += (table.probe(getKey(i)) == TranspositionTable.NO_ENTRY) ? 0 : 1;
+        return hits;
+    }
+
+    private static boolean report(String name, boolean passed) {
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat("transposition table ").concat(name));
+        return passed;
+    }
+}
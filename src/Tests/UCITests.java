@@ -0,0 +1,136 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.ParallelSearch;
+import Engine.Search;
+import Engine.TranspositionTable;
+import Engine.UCI;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class UCITests {
+
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    /**
+     * runs the UCI front-end on piped streams and checks that every search reports a best move: a depth limited go, go
+     * infinite ended by stop, and go ponder followed at once by ponderhit, which must turn into a timed search even when the
+     * ponderhit is read before the search thread has started, and a position sent during go infinite, which must stop the
+     * search rather than block the reader on it, a game longer than the move history, and an illegal move in a position
+     * command, which must leave the previous position in place
+     * the ponderhit race is also checked directly: a time limit set between resetStop and runSearch must be kept
+     * @return  boolean of whether all checks passed
+     */
+    public static boolean testSearchCommands() {
+        boolean allPassed = true;
+
+        // a search that lost the time limit runs until the watchdog stops it
+        ParallelSearch parallelSearch = new ParallelSearch(new TranspositionTable(1), 1);
+        parallelSearch.setInfoOutput(null);
+        ExecutorService searchThread = Executors.newSingleThreadExecutor();
+        try {
+            parallelSearch.resetStop();
+            parallelSearch.setTimeLimit(50L);
+            Future<Integer> result = searchThread.submit(() -> parallelSearch.runSearch(new Chessboard(""), Search.MAX_PLY, 0L, 0L));
+            result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            allPassed &= report("time limit set before runSearch kept", true);
+        } catch (Exception e) {
+            parallelSearch.stop();
+            allPassed &= report("time limit set before runSearch kept: ".concat(e.toString()), false);
+        } finally {
+            searchThread.shutdown();
+            parallelSearch.shutdown();
+        }
+
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+        PrintStream output = new PrintStream(responses, true);
+        try (PipedOutputStream commands = new PipedOutputStream()) {
+            PipedInputStream input = new PipedInputStream(commands);
+            Thread engine = new Thread(() -> {
+                try {
+                    new UCI(input, output).run();
+                } catch (IOException e) {
+                    output.println("info string ".concat(e.toString()));
+                }
+            }, "uci-test");
+            engine.setDaemon(true);
+            engine.start();
+
+            send(commands, "uci\nisready\n");
+            allPassed &= report("uci handshake", waitFor(responses, "readyok", 1));
+            send(commands, "position startpos moves e2e4\ngo depth 4\n");
+            allPassed &= report("go depth", waitFor(responses, "bestmove", 1));
+            send(commands, "position startpos\ngo infinite\n");
+            Thread.sleep(100L);
+            allPassed &= report("go infinite waits for stop", countLines(responses, "bestmove") == 1);
+            send(commands, "stop\n");
+            allPassed &= report("go infinite then stop", waitFor(responses, "bestmove", 2));
+            send(commands, "position startpos moves e2e4 e7e5\ngo ponder wtime 3000 btime 3000\nponderhit\n");
+            allPassed &= report("go ponder then ponderhit", waitFor(responses, "bestmove", 3));
+            StringBuilder longGame = new StringBuilder("position startpos moves");
+            for (int i = 0; i < Chessboard.MAX_HISTORY; i++) longGame.append(" g1f3 g8f6 f3g1 f6g8");
+            send(commands, longGame.append("\ngo depth 3\n").toString());
+            allPassed &= report("go after a game longer than the move history", waitFor(responses, "bestmove", 4));
+            send(commands, "go infinite\nposition startpos\nstop\nisready\n");
+            allPassed &= report("go infinite then position then stop", waitFor(responses, "bestmove", 5) && waitFor(responses, "readyok", 2));
+            // after an illegal move the position before the command is kept, so white is still to move
+            send(commands, "position startpos\nposition startpos moves e2e4 e2e4\ngo depth 1\n");
+            boolean answered = waitFor(responses, "bestmove", 6);
+            String bestMove = getLastLine(responses, "bestmove");
+            allPassed &= report("illegal move keeps the previous position", answered && (bestMove.charAt(10) == '1' || bestMove.charAt(10) == '2'));
+            send(commands, "quit\n");
+            engine.join(TIMEOUT_MILLIS);
+            allPassed &= report("quit", !engine.isAlive());
+        } catch (IOException | InterruptedException e) {
+            allPassed &= report(e.toString(), false);
+        }
+        return allPassed;
+    }
+
+    private static void send(PipedOutputStream commands, String lines) throws IOException {
+        commands.write(lines.getBytes(StandardCharsets.UTF_8));
+        commands.flush();
+    }
+
+    /**
+     * @return  boolean of whether at least count lines starting with prefix were written within TIMEOUT_MILLIS
+     */
+    private static boolean waitFor(ByteArrayOutputStream responses, String prefix, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT_MILLIS * 1000000L;
+        while (countLines(responses, prefix) < count) {
+            if (System.nanoTime() >= deadline) return false;
+            Thread.sleep(10L);
+        }
+        return true;
+    }
+
+    private static int countLines(ByteArrayOutputStream responses, String prefix) {
+        int count = 0;
+        for (String line : new String(responses.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith(prefix)) count++;
+        }
+        return count;
+    }
+
+    private static String getLastLine(ByteArrayOutputStream responses, String prefix) {
+        String lastLine = "";
+        for (String line : new String(responses.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith(prefix)) lastLine = line;
+        }
+        return lastLine;
+    }
+
+    private static boolean report(String name, boolean passed) {
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat("uci ").concat(name));
+        return passed;
+    }
+}
@@ -0,0 +1,99 @@
+package Tests;
+
+import Engine.Chessboard;
+import Engine.Move;
+import Engine.MoveHandler;
+import Engine.Piece;
+import Engine.Zobrist;
+
+public class ZobristTests {
+
+    /**
+     * walks the legal move tree of the reference positions and compares the incrementally updated key with the key computed from scratch
+     * after every performMove, performNullMove and undoMove
+     * @param depth int of depth in plies to walk
+     * @return      boolean of whether all keys matched
+     */
+    public static boolean testIncrementalKeys(int depth) {
+        boolean allPassed = true;
+        String[] fenStrings = new String[] {
+            Chessboard.DEFAULT_FEN_STRING,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        };
+        for (String fenString : fenStrings) {
+            Chessboard chessboard = new Chessboard(fenString);
+            long mismatches = walk(chessboard, depth, new int[depth][MoveHandler.MAX_MOVES]);
+            allPassed &= mismatches == 0L;
+            System.out.println(((mismatches == 0L) ? "PASS " : "FAIL ").concat(fenString).concat(", mismatches: ").concat(Long.toString(mismatches)));
+        }
+        return allPassed;
+    }
+
+    /**
+     * shuffles the knights out and back for more plies than the undo stack holds, compacting the history the way the UCI
+     * front-end does, and checks that repetitions are still found, that a pawn move drops the history before it, and that a
+     * full undo stack fails in performMove
+     * @return  boolean of whether all checks passed
+     */
+    public static boolean testHistoryCompaction() {
+        boolean allPassed = true;
+        int[] shuffle = new int[] {
+            Move.encode(6, 21, Piece.WHITE_KNIGHT, Piece.NONE, Piece.NONE, 0),
+            Move.encode(62, 45, Piece.BLACK_KNIGHT, Piece.NONE, Piece.NONE, 0),
+            Move.encode(21, 6, Piece.WHITE_KNIGHT, Piece.NONE, Piece.NONE, 0),
+            Move.encode(45, 62, Piece.BLACK_KNIGHT, Piece.NONE, Piece.NONE, 0),
+        };
+        Chessboard chessboard = new Chessboard("");
+        boolean repeated = true;
+        for (int i = 0; i < Chessboard.MAX_HISTORY * 2; i++) {
+            chessboard.performMove(shuffle[i & 3]);
+            if (chessboard.getPly() > Chessboard.MAX_HISTORY / 2) chessboard.compactHistory();
+            if ((i & 3) == 3) repeated &= chessboard.isRepetition();
+        }
+        allPassed &= report("repetition found across compactions, ply ".concat(Integer.toString(chessboard.getPly())),
+            repeated && chessboard.getPly() <= Chessboard.MAX_HISTORY / 2);
+
+        chessboard.performMove(Move.encode(12, 28, Piece.WHITE_PAWN, Piece.NONE, Piece.NONE, Move.FLAG_DOUBLE_PUSH));
+        chessboard.compactHistory();
+        allPassed &= report("pawn move drops the history before it", chessboard.getPly() == 0 && !chessboard.isRepetition());
+
+        chessboard = new Chessboard("");
+        boolean failed = false;
+        try {
+            for (int i = 0; i <= Chessboard.MAX_HISTORY; i++) chessboard.performMove(shuffle[i & 3]);
+        } catch (IllegalStateException e) {
+            failed = chessboard.getPly() == Chessboard.MAX_HISTORY;
+        }
+        allPassed &= report("full history fails in performMove", failed);
+        return allPassed;
+    }
+
+    private static boolean report(String name, boolean passed) {
+        System.out.println(((passed) ? "PASS " : "FAIL ").concat(name));
+        return passed;
+    }
+
+    /**
+     * @return  long of number of positions where the incremental key did not match
+     */
+    private static long walk(Chessboard chessboard, int depth, int[][] moveBuffers) {
+        long mismatches = (chessboard.getZobristKey() == Zobrist.computeKey(chessboard)) ? 0L : 1L;
+        if (depth == 0) return mismatches;
+        chessboard.performNullMove();
+        if (chessboard.getZobristKey() != Zobrist.computeKey(chessboard)) mismatches++;
+        chessboard.undoMove();
+
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveHandler.generateAllLegalMoves(chessboard, moves);
+        for (int i = 0; i < count; i++) {
+            long keyBefore = chessboard.getZobristKey();
+            chessboard.performMove(moves[i]);
+            mismatches += walk(chessboard, depth - 1, moveBuffers);
+            chessboard.undoMove();
+            if (chessboard.getZobristKey() != keyBefore) mismatches++;
+        }
+        return mismatches;
+    }
+}